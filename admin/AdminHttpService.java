@@ -4,37 +4,63 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import admin.report.*;
+import common.json.JsonFields;
 import common.models.*;
+import common.messagebus.MessageBroker;
+import common.jfr.ReportEvent;
+import common.store.CompactModelStore;
+import common.trace.TraceFilter;
+import common.warmup.Readiness;
+import common.warmup.WarmUp;
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.Map;
 import java.util.List;
 import java.util.Arrays;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 /**
  * Admin Service as a proper HTTP microservice
  * Endpoints:
- * GET /admin/reports/enrollments - generate enrollment reports
+ * GET /admin/reports/enrollments - enrollment report (JSON, or CSV with Accept: text/csv);
+ *     materialized and ETag-versioned, ?department=CS filters, ?live=true streams from live data
+ * GET /admin/reports/{utilization|near-full|over-capacity|waitlists|conflicts|all} - aggregate reports
  * POST /admin/courses/{courseId}/students/{studentId} - force add student
- * GET /health - health check
+ * POST /admin/bulk/enrollments - force add a cohort: {"courseId":"CS201","studentIds":["S001",...]}
+ * POST /admin/bulk/capacities - set capacities: {"capacities":{"CS201":60,...}}
+ * POST /admin/courses/{courseId}/cancel - cancel section, re-home roster: {"targetCourseId":"CS202"}
+ * GET /health - health check (always 200 once bound, with a ready flag)
+ * GET /health/live - liveness: 200 while the process serves requests
+ * GET /health/ready - readiness: 503 until data load and JIT warm-up (WarmUp) have finished
  */
 public class AdminHttpService {
     private static final int PORT = 8083;
     private HttpServer server;
     private final ServicesFacade facade;
-    private final ReportGenerator reportGenerator;
+    private final StreamingReportGenerator reportGenerator;
+    private final AggregateReportEngine reportEngine = new AggregateReportEngine();
+    private final MaterializedReportCache reportCache;
     
-    // In-memory data store for demo purposes
-    private final Map<String, Student> students = new ConcurrentHashMap<>();
-    private final Map<String, Course> courses = new ConcurrentHashMap<>();
+    // In-memory data store for demo purposes (off-heap records with -Dnexus.store=offheap)
+    private final CompactModelStore store = CompactModelStore.fromProperty();
+    private final Map<String, Student> students = store != null ? store.students() : new ConcurrentHashMap<>();
+    private final Map<String, Course> courses = store != null ? store.courses() : new ConcurrentHashMap<>();
+    private final Readiness readiness = new Readiness(Readiness.DATA, Readiness.WARMUP);
     
     public AdminHttpService() {
         this.facade = new ServicesFacade();
-        this.reportGenerator = new ReportAdapter();
+        this.reportGenerator = new StreamingReportAdapter();
+        this.reportCache = new MaterializedReportCache(courses);
+        new MessageBroker().subscribe(reportCache);
         initializeSampleData();
+        SyntheticCatalog.populateFromProperty(students, courses);
+        if (store != null) System.out.println("Model store: " + store);
+
+        readiness.done(Readiness.DATA);
     }
     
     private void initializeSampleData() {
@@ -71,22 +97,28 @@ public class AdminHttpService {
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
         
         // Define endpoints
-        server.createContext("/admin", new AdminHandler());
-        server.createContext("/health", new HealthHandler());
+        TraceFilter.install("admin-service", server.createContext("/admin", new AdminHandler()));
+        TraceFilter.install("admin-service", server.createContext("/health", new HealthHandler()));
         
         server.setExecutor(Executors.newFixedThreadPool(10));
         server.start();
+        WarmUp.start("admin", ReportWarmUp::new, readiness);
         
         System.out.println("Admin Service started on port " + PORT);
         System.out.println("Available endpoints:");
         System.out.println("  GET /admin/reports/enrollments - generate enrollment reports");
+        System.out.println("  GET /admin/reports/{utilization|near-full|over-capacity|waitlists|conflicts|all} - aggregate reports");
         System.out.println("  POST /admin/courses/{courseId}/students/{studentId} - force add student");
-        System.out.println("  GET /health - health check");
+        System.out.println("  POST /admin/bulk/enrollments - bulk force add");
+        System.out.println("  POST /admin/bulk/capacities - bulk capacity update");
+        System.out.println("  POST /admin/courses/{courseId}/cancel - cancel section and re-home roster");
+        System.out.println("  GET /health, /health/live, /health/ready - health, liveness and readiness");
     }
     
     public void stop() {
         if (server != null) {
             server.stop(0);
+            reportEngine.shutdown();
             System.out.println("Admin Service stopped");
         }
     }
@@ -100,8 +132,16 @@ public class AdminHttpService {
             try {
                 if ("GET".equals(method) && path.contains("/reports/enrollments")) {
                     handleEnrollmentReport(exchange);
+                } else if ("GET".equals(method) && path.startsWith("/admin/reports/")) {
+                    handleAggregateReport(exchange, path);
                 } else if ("POST".equals(method) && path.contains("/courses/") && path.contains("/students/")) {
                     handleForceAddStudent(exchange, path);
+                } else if ("POST".equals(method) && path.equals("/admin/bulk/enrollments")) {
+                    handleBulkEnrollment(exchange);
+                } else if ("POST".equals(method) && path.equals("/admin/bulk/capacities")) {
+                    handleBulkCapacity(exchange);
+                } else if ("POST".equals(method) && path.contains("/courses/") && path.endsWith("/cancel")) {
+                    handleCancelSection(exchange, path);
                 } else {
                     sendResponse(exchange, 405, "Method not allowed");
                 }
@@ -112,21 +152,84 @@ public class AdminHttpService {
         }
         
         private void handleEnrollmentReport(HttpExchange exchange) throws IOException {
-            try {
-                List<Course> courseList = new ArrayList<>(courses.values());
-                String csvReport = reportGenerator.generateEnrollmentReport(courseList);
-                
-                // Convert CSV to JSON format for better API response
-                String jsonReport = convertCsvToJson(csvReport);
-                
-                sendResponse(exchange, 200, jsonReport);
-                
-            } catch (Exception e) {
-                String errorResponse = "{\"success\":false,\"message\":\"Failed to generate report: " + e.getMessage() + "\"}";
-                sendResponse(exchange, 500, errorResponse);
+            ReportFormat format = ReportFormat.fromAccept(exchange.getRequestHeaders().getFirst("Accept"));
+            if (!"true".equals(queryParam(exchange, "live"))) {
+                sendCachedReport(exchange, format, queryParam(exchange, "department"));
+                return;
+            }
+            ReportEvent ev = new ReportEvent();
+            ev.begin();
+            exchange.getResponseHeaders().set("Content-Type", format.contentType());
+            // Length 0 = chunked transfer encoding: rows are written as they are produced
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                reportGenerator.writeEnrollmentReport(courses.values(), format, out);
+            } catch (IOException e) {
+                // status already sent; the client sees a truncated body
+                System.out.println("[AdminService] Report streaming aborted: " + e.getMessage());
+            }
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.report = "enrollment-live";
+                ev.format = format.name();
+                ev.courses = courses.size();
+                ev.bytes = -1;
+                ev.commit();
+            }
+        }
+        
+        private void sendCachedReport(HttpExchange exchange, ReportFormat format, String department) throws IOException {
+            // Conditional GET: unchanged since the client's copy -> 304 without touching the cache
+            String etag = "\"v" + reportCache.version() + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            MaterializedReportCache.Body body = reportCache.get(format, department);
+            exchange.getResponseHeaders().set("ETag", body.etag());
+            exchange.getResponseHeaders().set("Content-Type", format.contentType());
+            exchange.sendResponseHeaders(200, body.bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body.bytes);
             }
         }
         
+        private void handleAggregateReport(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /admin/reports/{report}
+            String report = path.substring("/admin/reports/".length());
+            List<String> known = Arrays.asList("utilization", "near-full", "over-capacity", "waitlists", "conflicts", "all");
+            if (!known.contains(report)) {
+                sendResponse(exchange, 404, "Unknown report: " + report + ". Expected one of " + known);
+                return;
+            }
+            
+            ReportEvent ev = new ReportEvent();
+            ev.begin();
+            // One parallel pass computes every aggregate; the path only selects what is rendered
+            AggregateReportEngine.Partial result = reportEngine.compute(courses.values(), students.values());
+            boolean all = "all".equals(report);
+            StringBuilder json = new StringBuilder();
+            json.append("{\"report\":\"").append(report).append("\"");
+            if (all || "utilization".equals(report)) { json.append(","); result.appendUtilization(json); }
+            if (all || "near-full".equals(report)) { json.append(","); result.appendNearFull(json); }
+            if (all || "over-capacity".equals(report)) { json.append(","); result.appendOverCapacity(json); }
+            if (all || "waitlists".equals(report)) { json.append(","); result.appendWaitlists(json); }
+            if (all || "conflicts".equals(report)) { json.append(","); result.appendConflicts(json); }
+            json.append("}");
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.report = report;
+                ev.format = ReportFormat.JSON.name();
+                ev.courses = courses.size();
+                ev.bytes = json.length();
+                ev.commit();
+            }
+            
+            sendResponse(exchange, 200, json.toString());
+        }
+        
         private void handleForceAddStudent(HttpExchange exchange, String path) throws IOException {
             // Parse path: /admin/courses/{courseId}/students/{studentId}
             String[] parts = path.split("/");
@@ -153,7 +256,12 @@ public class AdminHttpService {
             
             try {
                 // Use facade to force add student
-                facade.forceAddStudentToCourse(student, course);
+                if (!facade.forceAddStudentToCourse(student, course)) {
+                    sendResponse(exchange, 409, String.format(
+                        "{\"success\":false,\"message\":\"Student %s is already enrolled in %s\"}",
+                        studentId, courseId));
+                    return;
+                }
                 
                 String response = String.format(
                     "{\"success\":true,\"message\":\"Student %s force-added to course %s. New enrollment count: %d\"}",
@@ -169,34 +277,119 @@ public class AdminHttpService {
             }
         }
         
-        private String convertCsvToJson(String csvData) {
-            String[] lines = csvData.trim().split("\n");
-            StringBuilder json = new StringBuilder();
-            json.append("{\"report\":\"enrollment\",\"data\":[");
+        private void handleBulkEnrollment(HttpExchange exchange) throws IOException {
+            String body = readRequestBody(exchange);
+            String courseId = JsonFields.string(body, "courseId");
+            List<String> studentIds = JsonFields.stringArray(body, "studentIds");
+            if (courseId == null || studentIds == null) {
+                sendResponse(exchange, 400, "Expected JSON: {\"courseId\":\"CS201\",\"studentIds\":[\"S001\",\"S002\"]}");
+                return;
+            }
+            Course course = courses.get(courseId);
+            if (course == null) {
+                sendResponse(exchange, 404, "Course not found: " + courseId);
+                return;
+            }
+            // Resolve everything up front so a bad id rejects the batch before anything changes
+            List<Student> cohort = new ArrayList<>(studentIds.size());
+            for (String id : studentIds) {
+                Student student = students.get(id);
+                if (student == null) {
+                    sendResponse(exchange, 404, "Student not found: " + id);
+                    return;
+                }
+                cohort.add(student);
+            }
             
-            // Skip header line
-            for (int i = 1; i < lines.length; i++) {
-                if (i > 1) json.append(",");
-                
-                String[] fields = lines[i].split(",");
-                if (fields.length >= 3) {
-                    json.append("{\"course\":\"").append(fields[0]).append("\",");
-                    json.append("\"enrolled\":").append(fields[1]).append(",");
-                    json.append("\"capacity\":").append(fields[2]).append("}");
+            int added = facade.bulkForceAdd(course, cohort);
+            String response = String.format(
+                "{\"success\":true,\"courseId\":\"%s\",\"requested\":%d,\"added\":%d,\"enrolled\":%d}",
+                courseId, cohort.size(), added, course.getRoster().size());
+            sendResponse(exchange, 200, response);
+        }
+        
+        private void handleBulkCapacity(HttpExchange exchange) throws IOException {
+            Map<String, Integer> requested = JsonFields.intMap(readRequestBody(exchange), "capacities");
+            if (requested == null || requested.isEmpty()) {
+                sendResponse(exchange, 400, "Expected JSON: {\"capacities\":{\"CS201\":60,\"BUS101\":80}}");
+                return;
+            }
+            Map<Course, Integer> capacities = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> en : requested.entrySet()) {
+                Course course = courses.get(en.getKey());
+                if (course == null) {
+                    sendResponse(exchange, 404, "Course not found: " + en.getKey());
+                    return;
                 }
+                if (en.getValue() < 0) {
+                    sendResponse(exchange, 400, "Capacity must be non-negative for " + en.getKey());
+                    return;
+                }
+                capacities.put(course, en.getValue());
             }
             
-            json.append("]}");
-            return json.toString();
+            facade.bulkSetCapacity(capacities);
+            sendResponse(exchange, 200, String.format("{\"success\":true,\"updated\":%d}", capacities.size()));
+        }
+        
+        private void handleCancelSection(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /admin/courses/{courseId}/cancel
+            String[] parts = path.split("/");
+            String courseId = parts[3];
+            String targetId = JsonFields.string(readRequestBody(exchange), "targetCourseId");
+            Course section = courses.get(courseId);
+            Course target = targetId == null ? null : courses.get(targetId);
+            if (section == null) {
+                sendResponse(exchange, 404, "Course not found: " + courseId);
+                return;
+            }
+            if (target == null || target == section) {
+                sendResponse(exchange, 400, "Expected JSON with a different existing course: {\"targetCourseId\":\"CS202\"}");
+                return;
+            }
+            
+            int moved = facade.cancelSection(section, target);
+            String response = String.format(
+                "{\"success\":true,\"cancelled\":\"%s\",\"target\":\"%s\",\"moved\":%d,\"targetEnrolled\":%d}",
+                courseId, targetId, moved, target.getRoster().size());
+            sendResponse(exchange, 200, response);
         }
     }
     
     class HealthHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String response = "{\"status\":\"healthy\",\"service\":\"admin\",\"port\":" + PORT + "}";
-            sendResponse(exchange, 200, response);
+            String path = exchange.getRequestURI().getPath();
+            if ("/health/ready".equals(path)) {
+                sendResponse(exchange, readiness.isReady() ? 200 : 503, readiness.json("admin", PORT));
+            } else if ("/health/live".equals(path)) {
+                sendResponse(exchange, 200, "{\"status\":\"UP\",\"service\":\"admin\",\"port\":" + PORT + "}");
+            } else {
+                String response = "{\"status\":\"healthy\",\"service\":\"admin\",\"port\":" + PORT + ",\"ready\":" + readiness.isReady() + "}";
+                sendResponse(exchange, 200, response);
+            }
+        }
+    }
+    
+    private String readRequestBody(HttpExchange exchange) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody()))) {
+            StringBuilder body = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                body.append(line);
+            }
+            return body.toString();
+        }
+    }
+    
+    private String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) return pair.substring(eq + 1);
         }
+        return null;
     }
     
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
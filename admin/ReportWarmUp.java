@@ -0,0 +1,84 @@
+package admin;
+
+import admin.report.*;
+import common.messagebus.MessageBroker;
+import common.models.*;
+import common.notification.NotificationService;
+import common.store.CompactModelStore;
+import common.warmup.WarmUp;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/*
+ Warm-up workload of the admin service: streamed and cached enrollment reports
+ in both formats, the parallel aggregate pass with every section rendered, and
+ force-adds (undone again, so rosters stay the same size from round to round).
+ The synthetic catalog lives in the same kind of model store as the service's
+ (-Dnexus.store). Force-add events go to a broker of its own, with the report
+ cache as its only listener.
+*/
+final class ReportWarmUp implements WarmUp.Workload {
+    private static final int STUDENTS = 2000, COURSES = 400, COURSES_PER_STUDENT = 5, FORCE_ADDS_PER_ROUND = 200;
+
+    private final CompactModelStore store = CompactModelStore.fromProperty();
+    private final Map<String, Student> students = store != null ? store.students() : new HashMap<>();
+    private final Map<String, Course> courses = store != null ? store.courses() : new HashMap<>();
+    private final StreamingReportGenerator generator = new StreamingReportAdapter();
+    private final AggregateReportEngine engine = new AggregateReportEngine();
+    private final MaterializedReportCache cache;
+    private final NotificationService events = NotificationService.isolated();
+    private final ServicesFacade facade = new ServicesFacade(new MessageBroker(events));
+    private final Random rnd = new Random(SyntheticCatalog.DEFAULT_SEED);
+    private final Student[] studentList;
+    private final Course[] courseList;
+    private long checksum; // keeps the results live
+
+    ReportWarmUp(){
+        SyntheticCatalog.populate(students, courses, STUDENTS, COURSES, SyntheticCatalog.DEFAULT_SEED);
+        studentList = students.values().toArray(new Student[0]);
+        courseList = courses.values().toArray(new Course[0]);
+        for(Student s : studentList){
+            for(int k = 0; k < COURSES_PER_STUDENT; k++) facade.forceAddStudentToCourse(s, courseList[rnd.nextInt(courseList.length)]);
+        }
+        cache = new MaterializedReportCache(courses);
+        events.register(cache);
+    }
+
+    @Override
+    public void round(int round) throws IOException {
+        for(ReportFormat format : ReportFormat.values()){
+            generator.writeEnrollmentReport(courses.values(), format, Writer.nullWriter());
+            for(int i = 0; i < 10; i++){
+                Course dirty = courseList[rnd.nextInt(courseList.length)];
+                cache.markDirty(dirty.getCode());
+                checksum += cache.get(format, i % 2 == 0 ? null : dirty.getDepartment()).bytes.length;
+            }
+        }
+        AggregateReportEngine.Partial result = engine.compute(courses.values(), students.values());
+        StringBuilder json = new StringBuilder("{\"report\":\"all\"");
+        json.append(","); result.appendUtilization(json);
+        json.append(","); result.appendNearFull(json);
+        json.append(","); result.appendOverCapacity(json);
+        json.append(","); result.appendWaitlists(json);
+        json.append(","); result.appendConflicts(json);
+        checksum += json.append("}").length();
+        for(int i = 0; i < FORCE_ADDS_PER_ROUND; i++){
+            Student s = studentList[rnd.nextInt(studentList.length)];
+            Course c = courseList[rnd.nextInt(courseList.length)];
+            if(!facade.forceAddStudentToCourse(s, c)) continue;
+            for(Enrollment e : s.getEnrollments()){
+                if(e.getCourse().getCode().equals(c.getCode())){
+                    synchronized(c){
+                        c.removeEnrollment(e);
+                        s.removeEnrollment(e);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close(){ engine.shutdown(); }
+}
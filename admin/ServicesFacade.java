@@ -1,15 +1,99 @@
 package admin;
 
+import common.log.Log;
 import common.models.*;
+import common.messagebus.MessageBroker;
+import java.util.*;
 /*
  Facade pattern: simplify complex operations across services (demo).
+ Bulk operations group their work by course and apply it in batches: each
+ course is locked once per batch and one
+ coalesced event is published per batch instead of one per student.
 */
 public class ServicesFacade {
-    public void forceAddStudentToCourse(Student s, Course c){
+    static final int BATCH_SIZE = 500;
+    private final MessageBroker broker;
+
+    public ServicesFacade(){ this(new MessageBroker()); }
+    public ServicesFacade(MessageBroker broker){ this.broker = broker; }
+
+    /** Adds s to c regardless of capacity; returns false if s is already on the roster. */
+    public boolean forceAddStudentToCourse(Student s, Course c){
         Enrollment e = new Enrollment(s,c);
         // Admin can override capacity rules
-        c.addEnrollment(e);
-        s.addEnrollment(e);
-        System.out.println("[Facade] Force-added " + s + " to " + c);
+        synchronized(c){
+            for(Enrollment x : c.getRoster()){
+                if(x.getStudent().getId().equals(s.getId())) return false;
+            }
+            c.addEnrollment(e);
+            s.addEnrollment(e);
+        }
+        Log.println("[Facade] Force-added " + s + " to " + c);
+        broker.publish("forceadd", "Student " + s.getId() + " force-added to " + c.getCode());
+        return true;
+    }
+
+    /** Force-adds a cohort into one section; students already on the roster are skipped. Returns students added. */
+    public int bulkForceAdd(Course c, List<Student> students){
+        return bulkForceAdd(Collections.singletonMap(c, students));
+    }
+
+    public int bulkForceAdd(Map<Course, List<Student>> byCourse){
+        int added = 0;
+        for(Map.Entry<Course, List<Student>> en : byCourse.entrySet()){
+            Course c = en.getKey();
+            List<Student> students = en.getValue();
+            for(int from = 0; from < students.size(); from += BATCH_SIZE){
+                List<Student> batch = students.subList(from, Math.min(from + BATCH_SIZE, students.size()));
+                int n = 0;
+                synchronized(c){
+                    Set<String> enrolled = new HashSet<>();
+                    for(Enrollment e : c.getRoster()) enrolled.add(e.getStudent().getId());
+                    for(Student s : batch){
+                        if(!enrolled.add(s.getId())) continue;
+                        Enrollment e = new Enrollment(s, c);
+                        c.addEnrollment(e);
+                        s.addEnrollment(e);
+                        n++;
+                    }
+                }
+                if(n > 0) broker.publish("forceadd", "Batch of " + n + " students force-added to " + c.getCode());
+                added += n;
+            }
+        }
+        Log.println("[Facade] Bulk force-added " + added + " students across " + byCourse.size() + " courses");
+        return added;
+    }
+
+    public void bulkSetCapacity(Map<Course, Integer> capacities){
+        if(capacities.isEmpty()) return;
+        StringJoiner codes = new StringJoiner(",");
+        for(Map.Entry<Course, Integer> en : capacities.entrySet()){
+            Course c = en.getKey();
+            synchronized(c){ c.setCapacity(en.getValue()); }
+            codes.add(c.getCode());
+        }
+        // one event for the batch; listeners split the trailing list of codes
+        broker.publish("capacity", "Capacity updated for " + capacities.size() + " courses: " + codes);
+        Log.println("[Facade] Updated capacity of " + capacities.size() + " courses");
+    }
+
+    /** Cancels a section and re-homes its whole roster into target. Returns students moved. */
+    public int cancelSection(Course section, Course target){
+        if(section == target) throw new IllegalArgumentException("Cannot re-home a section into itself");
+        List<Enrollment> moved;
+        synchronized(section){
+            moved = section.clearRoster();
+            for(Enrollment e : moved){
+                Student s = e.getStudent();
+                s.removeEnrollment(e);
+            }
+        }
+        broker.publish("drop", "Section cancelled, " + moved.size() + " students dropped " + section.getCode());
+        List<Student> students = new ArrayList<>(moved.size());
+        for(Enrollment e : moved) students.add(e.getStudent());
+        int added = bulkForceAdd(target, students);
+        Log.println("[Facade] Cancelled " + section + ", re-homed " + added + " students into " + target);
+        return moved.size();
     }
 }
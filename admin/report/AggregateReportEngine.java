@@ -0,0 +1,173 @@
+package admin.report;
+
+import common.models.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ Computes the registrar's aggregate reports in one parallel pass over the
+ course and student sets (fork-join, each leaf builds a Partial that is merged
+ pairwise on the way up):
+  - utilization by department
+  - near-full courses (>= NEAR_FULL of capacity) and over-capacity courses (admin force-adds)
+  - waitlist depth per course
+  - time-conflict hot spots per schedule slot (courses, seats, students double-booked)
+ Runs on its own low-priority pool capped at half the cores, so report
+ generation never competes with the HTTP threads serving enrollments.
+*/
+public class AggregateReportEngine {
+    public static final double NEAR_FULL = 0.9;
+    private static final int LEAF_SIZE = 512;
+
+    private final ForkJoinPool pool = new ForkJoinPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+        p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("report-worker-" + t.getPoolIndex());
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.setDaemon(true);
+            return t;
+        },
+        null, false);
+
+    public Partial compute(Collection<Course> courses, Collection<Student> students){
+        Course[] cs = courses.toArray(new Course[0]);
+        Student[] ss = students.toArray(new Student[0]);
+        return pool.invoke(new Pass(cs, ss, 0, cs.length + ss.length));
+    }
+
+    public void shutdown(){ pool.shutdown(); }
+
+    // Index range over courses followed by students: [0, cs.length) then [cs.length, cs.length + ss.length)
+    static final class Pass extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+        private final Course[] cs;
+        private final Student[] ss;
+        private final int from, to;
+
+        Pass(Course[] cs, Student[] ss, int from, int to){
+            this.cs = cs; this.ss = ss; this.from = from; this.to = to;
+        }
+
+        protected Partial compute(){
+            if(to - from <= LEAF_SIZE){
+                Partial p = new Partial();
+                for(int i = from; i < to; i++){
+                    if(i < cs.length) p.addCourse(cs[i]);
+                    else p.addStudent(ss[i - cs.length]);
+                }
+                return p;
+            }
+            int mid = (from + to) >>> 1;
+            Pass left = new Pass(cs, ss, from, mid);
+            left.fork();
+            Partial right = new Pass(cs, ss, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /** Mergeable partial aggregate; the merged root is the finished report set. */
+    public static final class Partial {
+        private final Map<String, long[]> departments = new TreeMap<>(); // {courses, enrolled, capacity}
+        private final List<String[]> nearFull = new ArrayList<>();       // {course, enrolled, capacity}
+        private final List<String[]> overCapacity = new ArrayList<>();
+        private final List<String[]> waitlists = new ArrayList<>();      // {course, depth}
+        private final Map<String, long[]> slots = new TreeMap<>();       // {courses, enrolled, doubleBooked}
+
+        void addCourse(Course c){
+            int enrolled = c.getRoster().size(), capacity = c.getCapacity();
+            long[] d = departments.computeIfAbsent(c.getDepartment(), k -> new long[3]);
+            d[0]++; d[1] += enrolled; d[2] += capacity;
+            String[] row = {c.getCode(), Integer.toString(enrolled), Integer.toString(capacity)};
+            if(enrolled > capacity) overCapacity.add(row);
+            else if(capacity > 0 && enrolled >= NEAR_FULL * capacity) nearFull.add(row);
+            int depth = c.getWaitlist().size();
+            if(depth > 0) waitlists.add(new String[]{c.getCode(), Integer.toString(depth)});
+            long[] slot = slots.computeIfAbsent(c.getSchedule(), k -> new long[3]);
+            slot[0]++; slot[1] += enrolled;
+        }
+
+        void addStudent(Student s){
+            Map<String, Integer> perSlot = new HashMap<>();
+            for(Enrollment e : s.getEnrollments()) perSlot.merge(e.getCourse().getSchedule(), 1, Integer::sum);
+            for(Map.Entry<String, Integer> en : perSlot.entrySet()){
+                if(en.getValue() > 1) slots.computeIfAbsent(en.getKey(), k -> new long[3])[2]++;
+            }
+        }
+
+        Partial merge(Partial o){
+            o.departments.forEach((k, v) -> addAll(departments.computeIfAbsent(k, x -> new long[3]), v));
+            o.slots.forEach((k, v) -> addAll(slots.computeIfAbsent(k, x -> new long[3]), v));
+            nearFull.addAll(o.nearFull);
+            overCapacity.addAll(o.overCapacity);
+            waitlists.addAll(o.waitlists);
+            return this;
+        }
+
+        private static void addAll(long[] into, long[] from){
+            for(int i = 0; i < into.length; i++) into[i] += from[i];
+        }
+
+        public void appendUtilization(StringBuilder json){
+            json.append("\"utilization\":[");
+            int i = 0;
+            for(Map.Entry<String, long[]> en : departments.entrySet()){
+                long[] d = en.getValue();
+                if(i++ > 0) json.append(",");
+                json.append("{\"department\":\"").append(en.getKey()).append("\",");
+                json.append("\"courses\":").append(d[0]).append(",");
+                json.append("\"enrolled\":").append(d[1]).append(",");
+                json.append("\"capacity\":").append(d[2]).append(",");
+                json.append("\"utilization\":").append(String.format("%.3f", d[2] == 0 ? 0.0 : (double) d[1] / d[2])).append("}");
+            }
+            json.append("]");
+        }
+
+        public void appendNearFull(StringBuilder json){ appendCourseRows(json, "nearFull", nearFull); }
+        public void appendOverCapacity(StringBuilder json){ appendCourseRows(json, "overCapacity", overCapacity); }
+
+        public void appendWaitlists(StringBuilder json){
+            waitlists.sort((a, b) -> Integer.parseInt(b[1]) - Integer.parseInt(a[1]));
+            json.append("\"waitlists\":[");
+            for(int i = 0; i < waitlists.size(); i++){
+                if(i > 0) json.append(",");
+                json.append("{\"course\":\"").append(waitlists.get(i)[0]).append("\",");
+                json.append("\"depth\":").append(waitlists.get(i)[1]).append("}");
+            }
+            json.append("]");
+        }
+
+        public void appendConflicts(StringBuilder json){
+            // hottest first: most double-booked students, then most seats in the slot
+            List<Map.Entry<String, long[]>> ranked = new ArrayList<>(slots.entrySet());
+            ranked.sort((a, b) -> a.getValue()[2] != b.getValue()[2]
+                ? Long.compare(b.getValue()[2], a.getValue()[2])
+                : Long.compare(b.getValue()[1], a.getValue()[1]));
+            json.append("\"conflicts\":[");
+            int i = 0;
+            for(Map.Entry<String, long[]> en : ranked){
+                long[] s = en.getValue();
+                if(i++ > 0) json.append(",");
+                json.append("{\"slot\":\"").append(en.getKey()).append("\",");
+                json.append("\"courses\":").append(s[0]).append(",");
+                json.append("\"enrolled\":").append(s[1]).append(",");
+                json.append("\"doubleBooked\":").append(s[2]).append("}");
+            }
+            json.append("]");
+        }
+
+        private static void appendCourseRows(StringBuilder json, String name, List<String[]> rows){
+            rows.sort(Comparator.comparing(r -> r[0]));
+            json.append("\"").append(name).append("\":[");
+            for(int i = 0; i < rows.size(); i++){
+                if(i > 0) json.append(",");
+                json.append("{\"course\":\"").append(rows.get(i)[0]).append("\",");
+                json.append("\"enrolled\":").append(rows.get(i)[1]).append(",");
+                json.append("\"capacity\":").append(rows.get(i)[2]).append("}");
+            }
+            json.append("]");
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package admin.report;
+
+import common.jfr.ReportEvent;
+import common.models.Course;
+import common.notification.NotificationListener;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Materialized enrollment report, maintained incrementally (Observer on the
+ message broker). enrollment/drop/forceadd/capacity events mark only the
+ affected course row dirty, queue its code on every cached variant and bump a
+ global version. Each variant (format + optional department filter) keeps its
+ assembled body with the offset at which every row ends, so a read re-serializes
+ just the changed rows and splices them between bulk copies of the old body; a
+ variant none of whose rows changed reuses its bytes as they are. Variants are
+ cached in a bounded LRU, so rarely requested ones are evicted first. Rebuilds
+ run one at a time, and a reader that waited for one takes its result rather
+ than rebuilding again. The version doubles as the ETag for conditional GETs.
+*/
+public class MaterializedReportCache implements NotificationListener {
+    private static final int MAX_VARIANTS = 16;
+    private static final Set<String> TOPICS = new HashSet<>(Arrays.asList("enrollment", "drop", "forceadd", "capacity"));
+
+    private final Map<String, Course> courses;
+    private final Map<String, Row> rows = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong(1);
+    private final Map<String, Variant> variants = new LinkedHashMap<String, Variant>(MAX_VARIANTS, 0.75f, true){
+        protected boolean removeEldestEntry(Map.Entry<String, Variant> eldest){ return size() > MAX_VARIANTS; }
+    };
+
+    public MaterializedReportCache(Map<String, Course> courses){
+        this.courses = courses;
+    }
+
+    /** Serialized report plus the version it reflects. */
+    public static final class Body {
+        public final long version;
+        public final byte[] bytes;
+        Body(long version, byte[] bytes){ this.version = version; this.bytes = bytes; }
+        public String etag(){ return "\"v" + version + "\""; }
+    }
+
+    static final class Row {
+        final Course course;
+        volatile boolean dirty = true;
+        byte[] csv, json; // guarded by the cache's rebuild lock
+
+        Row(Course course){ this.course = course; }
+
+        byte[] bytes(ReportFormat format){ return format == ReportFormat.JSON ? json : csv; }
+    }
+
+    // One cached body and where each of its rows sits in it.
+    static final class Variant {
+        final ReportFormat format;
+        final Row[] rows;                                   // in body order
+        final Map<String, Integer> index = new HashMap<>(); // course code -> position in rows
+        final int first, separator;                         // offset of row 0, bytes between rows
+        final Set<String> pending = new HashSet<>();        // codes changed since body; guarded by variants
+        volatile Body body;                                 // null until first assembled
+        int[] ends;                                         // offset just past each row; guarded by the rebuild lock
+
+        Variant(ReportFormat format, Row[] rows){
+            this.format = format;
+            this.rows = rows;
+            for(int i = 0; i < rows.length; i++) index.put(rows[i].course.getCode(), i);
+            this.first = utf8(StreamingReportAdapter.header(format)).length;
+            this.separator = utf8(StreamingReportAdapter.separator(format)).length;
+        }
+
+        int start(int[] ends, int i){ return i == 0 ? first : ends[i - 1] + separator; }
+    }
+
+    public void onNotify(String topic, String message){
+        if(!TOPICS.contains(topic) || message == null) return;
+        for(String code : NotificationListener.courseCodes(message)) markDirty(code);
+    }
+
+    public void markDirty(String courseCode){
+        Row r = rows.get(courseCode);
+        if(r != null) r.dirty = true;
+        // queued before the version moves, so a rebuild for a newer version always finds the code
+        synchronized(variants){
+            for(Variant x : variants.values()) x.pending.add(courseCode);
+        }
+        version.incrementAndGet();
+    }
+
+    public long version(){ return version.get(); }
+
+    /** Report body for the variant; free when nothing changed since the last read of it. */
+    public Body get(ReportFormat format, String department){
+        String key = format + "|" + (department == null ? "" : department);
+        long v = version.get();
+        Variant x;
+        synchronized(variants){ x = variants.get(key); }
+        Body cached = x == null ? null : x.body;
+        if(cached != null && cached.version == v) return cached;
+        return build(key, format, department, v);
+    }
+
+    private synchronized Body build(String key, ReportFormat format, String department, long seen){
+        Variant x;
+        synchronized(variants){
+            x = variants.get(key);
+            if(x == null){
+                // registered before the version is read, so no event in between goes unqueued
+                x = new Variant(format, select(department));
+                variants.put(key, x);
+            }
+        }
+        Body old = x.body;
+        if(old != null && old.version >= seen) return old; // rebuilt by the reader we waited behind
+        ReportEvent ev = new ReportEvent();
+        ev.begin();
+        long v = version.get();
+        Set<String> changed;
+        synchronized(variants){
+            changed = new HashSet<>(x.pending);
+            x.pending.clear();
+        }
+        Body body = old == null ? assemble(x, v) : splice(x, old, changed, v);
+        x.body = body;
+        ev.end();
+        if(ev.shouldCommit()){
+            ev.report = "enrollment";
+            ev.format = format.name();
+            ev.department = department;
+            ev.courses = x.rows.length;
+            ev.bytes = body.bytes.length;
+            ev.commit();
+        }
+        return body;
+    }
+
+    private Row[] select(String department){
+        List<Row> out = new ArrayList<>();
+        for(Course c : courses.values()){
+            if(department != null && !department.equals(c.getDepartment())) continue;
+            out.add(rows.computeIfAbsent(c.getCode(), k -> new Row(c)));
+        }
+        return out.toArray(new Row[0]);
+    }
+
+    // rebuild lock held: the whole body, recording where each row ends
+    private Body assemble(Variant x, long v){
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        byte[] separator = utf8(StreamingReportAdapter.separator(x.format));
+        int[] ends = new int[x.rows.length];
+        buf.writeBytes(utf8(StreamingReportAdapter.header(x.format)));
+        for(int i = 0; i < x.rows.length; i++){
+            if(i > 0) buf.writeBytes(separator);
+            buf.writeBytes(refresh(x.rows[i]).bytes(x.format));
+            ends[i] = buf.size();
+        }
+        buf.writeBytes(utf8(StreamingReportAdapter.footer(x.format)));
+        x.ends = ends;
+        return new Body(v, buf.toByteArray());
+    }
+
+    // rebuild lock held: the old body with the changed rows replaced; unchanged stretches are bulk-copied
+    private Body splice(Variant x, Body old, Set<String> changed, long v){
+        int[] at = changed.stream().map(x.index::get).filter(Objects::nonNull).mapToInt(Integer::intValue).sorted().toArray();
+        if(at.length == 0) return new Body(v, old.bytes);
+        byte[][] fresh = new byte[at.length][];
+        int length = old.bytes.length;
+        for(int k = 0; k < at.length; k++){
+            int i = at[k];
+            fresh[k] = refresh(x.rows[i]).bytes(x.format);
+            length += fresh[k].length - (x.ends[i] - x.start(x.ends, i));
+        }
+        byte[] out = new byte[length];
+        int[] ends = new int[x.ends.length];
+        int src = 0, dst = 0, next = 0, shift = 0;
+        for(int k = 0; k < at.length; k++){
+            int i = at[k], from = x.start(x.ends, i);
+            System.arraycopy(old.bytes, src, out, dst, from - src);
+            dst += from - src;
+            System.arraycopy(fresh[k], 0, out, dst, fresh[k].length);
+            dst += fresh[k].length;
+            src = x.ends[i];
+            for(; next < i; next++) ends[next] = x.ends[next] + shift;
+            shift = dst - src;
+            ends[next++] = dst;
+        }
+        System.arraycopy(old.bytes, src, out, dst, old.bytes.length - src);
+        for(; next < ends.length; next++) ends[next] = x.ends[next] + shift;
+        x.ends = ends;
+        return new Body(v, out);
+    }
+
+    // rebuild lock held
+    private static Row refresh(Row r){
+        if(r.dirty){
+            r.dirty = false; // cleared first so an event arriving mid-serialization re-dirties it
+            r.csv = serialize(r.course, ReportFormat.CSV);
+            r.json = serialize(r.course, ReportFormat.JSON);
+        }
+        return r;
+    }
+
+    private static byte[] serialize(Course c, ReportFormat format){
+        StringWriter sw = new StringWriter(48);
+        try {
+            StreamingReportAdapter.writeRow(c, format, sw);
+        } catch(IOException e){
+            throw new UncheckedIOException(e); // in-memory writer does not throw
+        }
+        return utf8(sw.toString());
+    }
+
+    private static byte[] utf8(String s){ return s.getBytes(StandardCharsets.UTF_8); }
+}
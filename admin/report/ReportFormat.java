@@ -0,0 +1,21 @@
+package admin.report;
+
+/*
+ Output formats for streamed reports, negotiated from the HTTP Accept header.
+*/
+public enum ReportFormat {
+    CSV("text/csv"),
+    JSON("application/json");
+
+    private final String contentType;
+
+    ReportFormat(String contentType){ this.contentType = contentType; }
+
+    public String contentType(){ return contentType; }
+
+    // JSON unless the client explicitly asks for CSV (keeps the existing API default)
+    public static ReportFormat fromAccept(String accept){
+        if(accept != null && accept.contains(CSV.contentType) && !accept.contains(JSON.contentType)) return CSV;
+        return JSON;
+    }
+}
@@ -0,0 +1,56 @@
+package admin.report;
+
+import common.models.Course;
+import java.io.*;
+import java.util.*;
+
+/*
+ Adapter exposing both report interfaces over a row-at-a-time writer.
+ The String form is kept for callers of ReportGenerator; it produces the same
+ CSV as ConcreteCsvReportGenerator.createCSV.
+*/
+public class StreamingReportAdapter implements ReportGenerator, StreamingReportGenerator {
+    private static final int FLUSH_EVERY = 256; // rows per chunk after the first
+
+    public String generateEnrollmentReport(List<Course> courses){
+        StringWriter sw = new StringWriter();
+        try {
+            writeEnrollmentReport(courses, ReportFormat.CSV, sw);
+        } catch(IOException e){
+            throw new UncheckedIOException(e); // StringWriter does not throw
+        }
+        return sw.toString();
+    }
+
+    public void writeEnrollmentReport(Iterable<Course> courses, ReportFormat format, Writer out) throws IOException {
+        out.write(header(format));
+        int rows = 0;
+        for(Course c : courses){
+            if(rows > 0) out.write(separator(format));
+            writeRow(c, format, out);
+            // first row goes out immediately for time-to-first-byte, then in fixed-size chunks
+            if(++rows == 1 || rows % FLUSH_EVERY == 0) out.flush();
+        }
+        out.write(footer(format));
+        out.flush();
+    }
+
+    static String header(ReportFormat format){
+        return format == ReportFormat.JSON ? "{\"report\":\"enrollment\",\"data\":[" : "Course,Enrolled,Capacity\n";
+    }
+    static String separator(ReportFormat format){ return format == ReportFormat.JSON ? "," : ""; }
+    static String footer(ReportFormat format){ return format == ReportFormat.JSON ? "]}" : ""; }
+
+    static void writeRow(Course c, ReportFormat format, Writer out) throws IOException {
+        if(format == ReportFormat.JSON){
+            out.write("{\"course\":\""); out.write(c.getCode());
+            out.write("\",\"enrolled\":"); out.write(Integer.toString(c.getRoster().size()));
+            out.write(",\"capacity\":"); out.write(Integer.toString(c.getCapacity()));
+            out.write('}');
+        } else {
+            out.write(c.getCode()); out.write(',');
+            out.write(Integer.toString(c.getRoster().size())); out.write(',');
+            out.write(Integer.toString(c.getCapacity())); out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package admin.report;
+
+import common.models.Course;
+import java.io.IOException;
+import java.io.Writer;
+
+/*
+ Streaming variant of ReportGenerator: rows are written straight to the
+ caller's Writer as the courses are visited, so memory stays constant in the
+ number of courses and the first bytes leave before the last row is computed.
+*/
+public interface StreamingReportGenerator {
+    void writeEnrollmentReport(Iterable<Course> courses, ReportFormat format, Writer out) throws IOException;
+}
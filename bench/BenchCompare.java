@@ -0,0 +1,56 @@
+package bench;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+/*
+ Compares two benchmark result files (JSON Lines from BenchMain).
+   java -cp out bench.BenchCompare <baseline.jsonl> <candidate.jsonl> [thresholdPercent]
+ A benchmark is flagged as a regression when its throughput dropped by more
+ than the threshold (default 5%) and by more than the combined error of both
+ runs. Exit status 1 if anything regressed, so CI can gate on it.
+*/
+public class BenchCompare {
+    public static void main(String[] args) throws Exception {
+        if(args.length < 2){
+            System.err.println("Usage: BenchCompare <baseline.jsonl> <candidate.jsonl> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+        Map<String, String> base = load(Paths.get(args[0])), cand = load(Paths.get(args[1]));
+        int regressions = 0;
+        System.out.printf("%-55s %14s %14s %9s%n", "benchmark", "baseline", "candidate", "change");
+        for(Map.Entry<String, String> en : cand.entrySet()){
+            String before = base.get(en.getKey());
+            if(before == null){
+                System.out.printf("%-55s %14s %14s %9s%n", en.getKey(), "-", field(en.getValue(), "score"), "new");
+                continue;
+            }
+            double b = Double.parseDouble(field(before, "score")), c = Double.parseDouble(field(en.getValue(), "score"));
+            double noise = Double.parseDouble(field(before, "error")) + Double.parseDouble(field(en.getValue(), "error"));
+            double change = b == 0 ? 0 : (c - b) * 100 / b;
+            boolean regressed = change < -threshold && b - c > noise;
+            if(regressed) regressions++;
+            System.out.printf("%-55s %14.1f %14.1f %+8.1f%%%s%n", en.getKey(), b, c, change, regressed ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions == 0 ? "No regressions." : regressions + " regression(s).");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    private static Map<String, String> load(Path file) throws Exception {
+        Map<String, String> byId = new LinkedHashMap<>();
+        for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)){
+            if(!line.isBlank()) byId.put(field(line, "id"), line);
+        }
+        return byId;
+    }
+
+    // value of a top-level string or number field in one result line
+    static String field(String json, String key){
+        Matcher m = Pattern.compile("\"" + Pattern.quote(key) + "\":(\"([^\"]*)\"|[-0-9.eE]+)").matcher(json);
+        if(!m.find()) return null;
+        return m.group(2) != null ? m.group(2) : m.group(1);
+    }
+}
@@ -0,0 +1,109 @@
+package bench;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/*
+ Benchmark suite entry point.
+   java -cp out bench.BenchMain [--filter <regex>] [--quick] [--no-fork] [--out <file>] [--list]
+ Every benchmark runs in its own forked JVM (like JMH forks) so JIT profiles
+ of one hot path do not skew the next. Results are written as JSON Lines, one
+ result per line, to bench-results/<timestamp>.jsonl unless --out is given;
+ compare two runs with bench.BenchCompare.
+ Service code logs to stdout on every operation; stdout is discarded while
+ measuring so the terminal is not part of the measurement.
+*/
+public class BenchMain {
+    private static final String RESULT_PREFIX = "BENCH-RESULT ";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        boolean quick = opts.containsKey("quick");
+        BenchRunner runner = quick ? new BenchRunner(2, 3, 200) : new BenchRunner(5, 10, 1000);
+
+        if(opts.containsKey("child")){
+            runChild(opts.get("child"), runner);
+            return;
+        }
+
+        Pattern filter = Pattern.compile(opts.getOrDefault("filter", ".*"));
+        List<Benchmarks.Spec> specs = new ArrayList<>();
+        for(Benchmarks.Spec s : Benchmarks.all()) if(filter.matcher(s.id).find()) specs.add(s);
+        if(opts.containsKey("list")){
+            specs.forEach(s -> System.out.println(s.id));
+            return;
+        }
+
+        Path out = Paths.get(opts.getOrDefault("out",
+            "bench-results/" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".jsonl"));
+        if(out.getParent() != null) Files.createDirectories(out.getParent());
+        try (BufferedWriter w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            for(Benchmarks.Spec s : specs){
+                String json = opts.containsKey("no-fork") ? measure(s, runner).toJson() : fork(s.id, quick);
+                w.write(json);
+                w.newLine();
+                w.flush();
+                System.out.println(summary(json));
+            }
+        }
+        System.out.println("Results written to " + out);
+    }
+
+    private static void runChild(String id, BenchRunner runner) throws Exception {
+        for(Benchmarks.Spec s : Benchmarks.all()){
+            if(s.id.equals(id)){
+                System.out.println(RESULT_PREFIX + measure(s, runner).toJson());
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown benchmark: " + id);
+    }
+
+    private static BenchRunner.Result measure(Benchmarks.Spec s, BenchRunner runner) throws Exception {
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return runner.run(s.id, s.threads, s.factory.get());
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    private static String fork(String id, boolean quick) throws Exception {
+        List<String> cmd = new ArrayList<>(Arrays.asList(
+            Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"), BenchMain.class.getName(), "--child", id));
+        if(quick) cmd.add("--quick");
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+        String result = null;
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = r.readLine()) != null){
+                if(line.startsWith(RESULT_PREFIX)) result = line.substring(RESULT_PREFIX.length());
+                else System.err.println("  [" + id + "] " + line);
+            }
+        }
+        if(p.waitFor() != 0 || result == null) throw new IllegalStateException("Forked benchmark failed: " + id);
+        return result;
+    }
+
+    private static String summary(String json){
+        return String.format("%-55s %16s ops/s  +- %s", BenchCompare.field(json, "id"),
+            BenchCompare.field(json, "score"), BenchCompare.field(json, "error"));
+    }
+
+    private static Map<String, String> parseArgs(String[] args){
+        Map<String, String> opts = new HashMap<>();
+        for(int i = 0; i < args.length; i++){
+            if(!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            String key = args[i].substring(2);
+            boolean takesValue = key.equals("filter") || key.equals("out") || key.equals("child");
+            opts.put(key, takesValue && i + 1 < args.length ? args[++i] : "true");
+        }
+        return opts;
+    }
+}
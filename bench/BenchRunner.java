@@ -0,0 +1,127 @@
+package bench;
+
+import java.util.*;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ JMH-style measurement loop. The project builds with plain javac and no
+ external libraries, so instead of depending on JMH this mirrors its model:
+ forked JVM per benchmark (see BenchMain), warmup iterations, timed
+ measurement iterations on N threads started together, a Blackhole against
+ dead-code elimination, and throughput reported as mean with a 99.9% interval.
+*/
+public final class BenchRunner {
+    private final int warmups, iterations;
+    private final long iterationMillis;
+
+    public BenchRunner(int warmups, int iterations, long iterationMillis){
+        this.warmups = warmups; this.iterations = iterations; this.iterationMillis = iterationMillis;
+    }
+
+    /** One benchmark instance: fresh state per fork, op() is the measured operation. */
+    public static abstract class Benchmark {
+        public void setUp() throws Exception {}
+        public abstract void op(int thread, Blackhole bh) throws Exception;
+        public void tearDown() throws Exception {}
+    }
+
+    /** Consumes results so the JIT cannot prove them unused. */
+    public static final class Blackhole {
+        public volatile Object sentinel = new Object();
+        public volatile int sentinelInt = Integer.MIN_VALUE + 7;
+        private int hits;
+        public void consume(Object o){ if(o == sentinel) hits++; }
+        public void consume(int v){ if(v == sentinelInt) hits++; }
+        public void consume(boolean b){ consume(b ? 1 : 0); }
+        int hits(){ return hits; }
+    }
+
+    public static final class Result {
+        public final String id;
+        public final int threads;
+        public final double opsPerSec, error; // error = half-width of the 99.9% interval
+        public final double[] samples;
+
+        Result(String id, int threads, double[] samples){
+            this.id = id; this.threads = threads; this.samples = samples;
+            double mean = 0;
+            for(double s : samples) mean += s;
+            mean /= samples.length;
+            double var = 0;
+            for(double s : samples) var += (s - mean) * (s - mean);
+            double sd = samples.length > 1 ? Math.sqrt(var / (samples.length - 1)) : 0;
+            this.opsPerSec = mean;
+            this.error = 3.29 * sd / Math.sqrt(samples.length); // z for 99.9%, normal approximation
+        }
+
+        public double nsPerOp(){ return opsPerSec == 0 ? 0 : threads * 1e9 / opsPerSec; }
+
+        public String toJson(){
+            StringBuilder json = new StringBuilder();
+            json.append("{\"id\":\"").append(id).append("\",");
+            json.append("\"threads\":").append(threads).append(",");
+            json.append("\"mode\":\"thrpt\",\"unit\":\"ops/s\",");
+            json.append("\"score\":").append(String.format(Locale.ROOT, "%.3f", opsPerSec)).append(",");
+            json.append("\"error\":").append(String.format(Locale.ROOT, "%.3f", error)).append(",");
+            json.append("\"nsPerOp\":").append(String.format(Locale.ROOT, "%.1f", nsPerOp())).append(",");
+            json.append("\"samples\":[");
+            for(int i = 0; i < samples.length; i++){
+                if(i > 0) json.append(",");
+                json.append(String.format(Locale.ROOT, "%.1f", samples[i]));
+            }
+            json.append("]}");
+            return json.toString();
+        }
+    }
+
+    public Result run(String id, int threads, Benchmark b) throws Exception {
+        b.setUp();
+        try {
+            for(int i = 0; i < warmups; i++) iteration(b, threads);
+            double[] samples = new double[iterations];
+            for(int i = 0; i < iterations; i++) samples[i] = iteration(b, threads);
+            return new Result(id, threads, samples);
+        } finally {
+            b.tearDown();
+        }
+    }
+
+    // ops/s over one timed window; all threads start on a barrier and stop on a shared flag
+    private double iteration(Benchmark b, int threads) throws Exception {
+        LongAdder ops = new LongAdder();
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        AtomicBoolean stop = new AtomicBoolean();
+        Throwable[] failure = {null};
+        Thread[] workers = new Thread[threads];
+        for(int t = 0; t < threads; t++){
+            final int thread = t;
+            workers[t] = new Thread(() -> {
+                Blackhole bh = new Blackhole();
+                long n = 0;
+                try {
+                    start.await();
+                    while(true){
+                        b.op(thread, bh);
+                        n++;
+                        if((n & 63) == 0 && stop.get()) break;
+                    }
+                } catch(Throwable e){
+                    failure[0] = e;
+                }
+                ops.add(n);
+                if(bh.hits() == 42) System.err.print(""); // keep the blackhole alive
+            }, "bench-" + t);
+            workers[t].start();
+        }
+        start.await();
+        long t0 = System.nanoTime();
+        Thread.sleep(iterationMillis);
+        stop.set(true);
+        for(Thread w : workers) w.join();
+        long elapsed = System.nanoTime() - t0;
+        if(failure[0] != null) throw new RuntimeException("Benchmark op failed", failure[0]);
+        return ops.sum() * 1e9 / elapsed;
+    }
+}
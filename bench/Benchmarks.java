@@ -0,0 +1,172 @@
+package bench;
+
+import admin.report.*;
+import bench.BenchRunner.Benchmark;
+import bench.BenchRunner.Blackhole;
+import common.json.JsonFields;
+import common.messagebus.MessageBroker;
+import common.models.*;
+import common.notification.NotificationListener;
+import common.notification.NotificationService;
+import faculty.FacultyHttpService;
+import java.io.Writer;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import student.EnrollmentManager;
+import student.validation.*;
+
+/*
+ Registry of hot-path benchmarks. Each spec id is "<group>.<name>" plus its
+ parameters, e.g. "enrollment.enrollDrop roster=1000 threads=16".
+*/
+final class Benchmarks {
+    private Benchmarks(){}
+
+    static final class Spec {
+        final String id;
+        final int threads;
+        final Supplier<Benchmark> factory;
+        Spec(String id, int threads, Supplier<Benchmark> factory){
+            this.id = id; this.threads = threads; this.factory = factory;
+        }
+    }
+
+    static List<Spec> all(){
+        List<Spec> specs = new ArrayList<>();
+        for(int roster : new int[]{10, 1000}){
+            for(int threads : new int[]{1, 4, 16}){
+                specs.add(new Spec("enrollment.enrollDrop roster=" + roster + " threads=" + threads, threads,
+                    () -> enrollDrop(roster, threads)));
+            }
+        }
+        for(int enrolled : new int[]{1, 16}){
+            specs.add(new Spec("validation.prerequisite enrolled=" + enrolled, 1, () -> validator(new PrerequisiteValidator(), enrolled)));
+            specs.add(new Spec("validation.capacity enrolled=" + enrolled, 1, () -> validator(new CapacityValidator(), enrolled)));
+            specs.add(new Spec("validation.timeConflict enrolled=" + enrolled, 1, () -> validator(new TimeConflictValidator(), enrolled)));
+        }
+        for(int listeners : new int[]{1, 10, 100}){
+            specs.add(new Spec("messaging.publish listeners=" + listeners, 1, () -> publish(listeners)));
+        }
+        for(int roster : new int[]{30, 1000}){
+            specs.add(new Spec("serialization.rosterJson roster=" + roster, 1, () -> rosterJson(roster)));
+        }
+        for(int courses : new int[]{100, 10000}){
+            specs.add(new Spec("serialization.reportStream courses=" + courses, 1, () -> reportStream(courses)));
+            specs.add(new Spec("serialization.reportCached courses=" + courses, 1, () -> reportCached(courses, false)));
+            specs.add(new Spec("serialization.reportCachedDirtyRow courses=" + courses, 1, () -> reportCached(courses, true)));
+        }
+        specs.add(new Spec("parsing.courseId", 1, () -> parse(b -> JsonFields.string(b, "courseId"), "{\"courseId\":\"CS201\"}")));
+        specs.add(new Spec("parsing.gradeSubmission", 1, () -> parse(
+            b -> JsonFields.string(b, "studentId") + JsonFields.string(b, "grade"), "{\"studentId\":\"S001\",\"grade\":\"A\"}")));
+        specs.add(new Spec("parsing.bulkStudentIds ids=300", 1, () -> parse(b -> JsonFields.stringArray(b, "studentIds"), bulkBody(300))));
+        return specs;
+    }
+
+    // Each thread enrolls and drops its own student; EnrollmentManager's lock is the contention point.
+    static Benchmark enrollDrop(int rosterSize, int threads){
+        return new Benchmark(){
+            final EnrollmentManager em = new EnrollmentManager();
+            final Course course = new Course("BEN101", "Bench", rosterSize + threads, "Mon9-11");
+            final Student[] students = new Student[threads];
+            public void setUp(){
+                for(int i = 0; i < rosterSize; i++) enrollDirect(new Student("R" + i, "Roster " + i), course);
+                for(int t = 0; t < threads; t++) students[t] = new Student("B" + t, "Bench " + t);
+            }
+            public void op(int thread, Blackhole bh){
+                bh.consume(em.enroll(students[thread], course));
+                bh.consume(em.drop(students[thread], course));
+            }
+        };
+    }
+
+    // Every check passes so the full loop of each validator is measured.
+    static Benchmark validator(EnrollmentValidator v, int enrolled){
+        Student s = new Student("S1", "Bench");
+        for(int i = 0; i < enrolled; i++) enrollDirect(s, new Course("E" + i, "Enrolled " + i, 100, "Slot" + i));
+        Course target = new Course("BEN201", "Target", 100, "Fri8-10");
+        for(String p : new String[]{"CS101", "CS102", "MATH101"}){
+            target.addPrerequisite(p);
+            s.addCompletedCourse(p);
+        }
+        return new Benchmark(){
+            public void op(int thread, Blackhole bh){ bh.consume(v.validate(s, target)); }
+        };
+    }
+
+    static Benchmark publish(int listeners){
+        return new Benchmark(){
+            final MessageBroker broker = new MessageBroker();
+            final List<NotificationListener> registered = new ArrayList<>();
+            volatile int delivered;
+            public void setUp(){
+                for(int i = 0; i < listeners; i++){
+                    NotificationListener l = (topic, message) -> delivered++;
+                    registered.add(l);
+                    broker.subscribe(l);
+                }
+            }
+            public void op(int thread, Blackhole bh){ broker.publish("enrollment", "Student S001 enrolled in CS201"); }
+            public void tearDown(){ registered.forEach(NotificationService.getInstance()::unregister); }
+        };
+    }
+
+    static Benchmark rosterJson(int rosterSize){
+        Course c = new Course("CS201", "Algorithms", rosterSize, "Mon9-11");
+        for(int i = 0; i < rosterSize; i++) enrollDirect(new Student("S" + i, "Student " + i), c);
+        return new Benchmark(){
+            public void op(int thread, Blackhole bh){ bh.consume(FacultyHttpService.rosterJson(c)); }
+        };
+    }
+
+    static Benchmark reportStream(int courseCount){
+        List<Course> courses = catalog(courseCount);
+        StreamingReportGenerator generator = new StreamingReportAdapter();
+        Writer discard = Writer.nullWriter();
+        return new Benchmark(){
+            public void op(int thread, Blackhole bh) throws Exception {
+                generator.writeEnrollmentReport(courses, ReportFormat.JSON, discard);
+            }
+        };
+    }
+
+    static Benchmark reportCached(int courseCount, boolean dirtyOneRow){
+        Map<String, Course> courses = new LinkedHashMap<>();
+        for(Course c : catalog(courseCount)) courses.put(c.getCode(), c);
+        MaterializedReportCache cache = new MaterializedReportCache(courses);
+        return new Benchmark(){
+            public void op(int thread, Blackhole bh){
+                if(dirtyOneRow) cache.markDirty("C0");
+                bh.consume(cache.get(ReportFormat.JSON, null));
+            }
+        };
+    }
+
+    static Benchmark parse(Function<String, Object> parser, String body){
+        return new Benchmark(){
+            public void op(int thread, Blackhole bh){ bh.consume(parser.apply(body)); }
+        };
+    }
+
+    private static String bulkBody(int ids){
+        StringBuilder sb = new StringBuilder("{\"courseId\":\"CS201\",\"studentIds\":[");
+        for(int i = 0; i < ids; i++) sb.append(i > 0 ? "," : "").append("\"S").append(i).append("\"");
+        return sb.append("]}").toString();
+    }
+
+    private static List<Course> catalog(int n){
+        List<Course> courses = new ArrayList<>(n);
+        for(int i = 0; i < n; i++){
+            Course c = new Course("C" + i, "Course " + i, 40, "Slot" + (i % 40));
+            for(int j = 0; j < i % 30; j++) c.addEnrollment(new Enrollment(null, c));
+            courses.add(c);
+        }
+        return courses;
+    }
+
+    private static void enrollDirect(Student s, Course c){
+        Enrollment e = new Enrollment(s, c);
+        c.addEnrollment(e);
+        s.addEnrollment(e);
+    }
+}
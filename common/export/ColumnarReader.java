@@ -0,0 +1,215 @@
+package common.export;
+
+import common.export.ColumnarWriter.Type;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/*
+ Reads files written by ColumnarWriter. Opening one reads only the footer, so
+ table sizes and column statistics are available without touching the data.
+ scan() inflates one row group at a time, decoding each column into an array,
+ and hands the rows to a visitor; memory stays at one row group.
+*/
+public class ColumnarReader implements Closeable {
+    private final Path file;
+    private final FileChannel ch;
+    private final List<TableInfo> tables = new ArrayList<>();
+
+    /** Statistics of one column chunk (one column of one row group). */
+    public static final class ChunkInfo {
+        public final long offset;
+        public final int storedBytes, rawBytes, nulls, distinct;
+        public final Object min, max; // Integer or String; null if the chunk is all nulls
+        ChunkInfo(long offset, int storedBytes, int rawBytes, int nulls, int distinct, Object min, Object max){
+            this.offset = offset; this.storedBytes = storedBytes; this.rawBytes = rawBytes;
+            this.nulls = nulls; this.distinct = distinct; this.min = min; this.max = max;
+        }
+    }
+
+    public static final class TableInfo {
+        public final String name;
+        public final List<ColumnarWriter.Column> columns;
+        final List<Integer> groupRows = new ArrayList<>();
+        final List<ChunkInfo[]> groups = new ArrayList<>();
+
+        TableInfo(String name, List<ColumnarWriter.Column> columns){ this.name = name; this.columns = columns; }
+
+        public long rows(){
+            long n = 0;
+            for(int r : groupRows) n += r;
+            return n;
+        }
+        public int rowGroups(){ return groups.size(); }
+        public int column(String name){
+            for(int i = 0; i < columns.size(); i++) if(columns.get(i).name.equals(name)) return i;
+            return -1;
+        }
+        /** The column's chunks, one per row group. */
+        public List<ChunkInfo> chunks(int column){
+            List<ChunkInfo> list = new ArrayList<>();
+            for(ChunkInfo[] g : groups) list.add(g[column]);
+            return list;
+        }
+    }
+
+    /** One decoded row, valid only during the visitor call. */
+    public static final class Row {
+        private Object[] columns;
+        private int index;
+        public String string(int column){ return ((String[]) columns[column])[index]; }
+        public int integer(int column){ return ((int[]) columns[column])[index]; }
+        public boolean isNull(int column){ return columns[column] instanceof String[] && string(column) == null; }
+    }
+
+    public interface RowVisitor {
+        void accept(Row row) throws IOException;
+    }
+
+    private ColumnarReader(Path file, FileChannel ch) throws IOException {
+        this.file = file;
+        this.ch = ch;
+        long size = ch.size();
+        if(size < 16 || readAt(0, 4).getInt() != ColumnarWriter.MAGIC || readAt(size - 4, 4).getInt() != ColumnarWriter.MAGIC){
+            throw new IllegalArgumentException("Not a columnar export: " + file);
+        }
+        int version = readAt(4, 4).getInt();
+        if(version != ColumnarWriter.VERSION) throw new IllegalArgumentException("Unsupported export version " + version + ": " + file);
+        int footerLength = readAt(size - 8, 4).getInt();
+        ByteBuffer f = readAt(size - 8 - footerLength, footerLength);
+        for(int t = f.getInt(); t > 0; t--){
+            String name = getString(f);
+            List<ColumnarWriter.Column> columns = new ArrayList<>();
+            for(int c = f.getInt(); c > 0; c--) columns.add(new ColumnarWriter.Column(getString(f), Type.values()[f.get()]));
+            TableInfo table = new TableInfo(name, Collections.unmodifiableList(columns));
+            for(int g = f.getInt(); g > 0; g--){
+                int rows = f.getInt();
+                ChunkInfo[] chunks = new ChunkInfo[columns.size()];
+                for(int c = 0; c < chunks.length; c++){
+                    long offset = f.getLong();
+                    int stored = f.getInt(), raw = f.getInt(), nulls = f.getInt(), distinct = f.getInt();
+                    Object min = null, max = null;
+                    if(columns.get(c).type == Type.INT){
+                        min = f.getInt();
+                        max = f.getInt();
+                    } else if(nulls < rows){
+                        min = getString(f);
+                        max = getString(f);
+                    }
+                    chunks[c] = new ChunkInfo(offset, stored, raw, nulls, distinct, min, max);
+                }
+                table.groupRows.add(rows);
+                table.groups.add(chunks);
+            }
+            tables.add(table);
+        }
+    }
+
+    public static ColumnarReader open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarReader(file, ch);
+        } catch(IOException | RuntimeException e){
+            ch.close();
+            throw e;
+        }
+    }
+
+    public Path file(){ return file; }
+    public List<TableInfo> tables(){ return Collections.unmodifiableList(tables); }
+
+    public TableInfo table(String name){
+        for(TableInfo t : tables) if(t.name.equals(name)) return t;
+        return null;
+    }
+
+    /** Visits every row of the table in write order. */
+    public void scan(String tableName, RowVisitor visitor) throws IOException {
+        TableInfo t = table(tableName);
+        if(t == null) throw new IllegalArgumentException("No table " + tableName + " in " + file);
+        Inflater inflater = new Inflater();
+        try {
+            Row row = new Row();
+            row.columns = new Object[t.columns.size()];
+            for(int g = 0; g < t.groups.size(); g++){
+                int rows = t.groupRows.get(g);
+                ChunkInfo[] chunks = t.groups.get(g);
+                for(int c = 0; c < chunks.length; c++){
+                    ByteBuffer raw = inflate(inflater, chunks[c]);
+                    row.columns[c] = t.columns.get(c).type == Type.STRING ? decodeStrings(raw, rows) : decodeInts(raw, rows);
+                }
+                for(row.index = 0; row.index < rows; row.index++) visitor.accept(row);
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override public void close() throws IOException { ch.close(); }
+
+    private ByteBuffer inflate(Inflater inflater, ChunkInfo chunk) throws IOException {
+        ByteBuffer stored = readAt(chunk.offset, chunk.storedBytes);
+        byte[] raw = new byte[chunk.rawBytes];
+        inflater.reset();
+        inflater.setInput(stored.array(), 0, chunk.storedBytes);
+        try {
+            int n = 0;
+            while(n < raw.length && !inflater.finished()) n += inflater.inflate(raw, n, raw.length - n);
+            if(n != raw.length) throw new IOException("Truncated column chunk at " + chunk.offset + " in " + file);
+        } catch(DataFormatException e){
+            throw new IOException("Corrupt column chunk at " + chunk.offset + " in " + file, e);
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private static String[] decodeStrings(ByteBuffer raw, int rows){
+        String[] dict = new String[getVarint(raw) + 1]; // code 0 = null
+        for(int i = 1; i < dict.length; i++){
+            byte[] b = new byte[getVarint(raw)];
+            raw.get(b);
+            dict[i] = new String(b, StandardCharsets.UTF_8);
+        }
+        String[] values = new String[rows];
+        for(int i = 0; i < rows; i++) values[i] = dict[getVarint(raw)];
+        return values;
+    }
+
+    private static int[] decodeInts(ByteBuffer raw, int rows){
+        int[] values = new int[rows];
+        int prev = 0;
+        for(int i = 0; i < rows; i++){
+            int z = getVarint(raw);
+            prev += (z >>> 1) ^ -(z & 1);
+            values[i] = prev;
+        }
+        return values;
+    }
+
+    private ByteBuffer readAt(long position, int length) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(length);
+        while(b.hasRemaining()){
+            if(ch.read(b, position + b.position()) < 0) throw new EOFException("Unexpected end of " + file);
+        }
+        return b.flip();
+    }
+
+    static int getVarint(ByteBuffer b){
+        int v = 0;
+        for(int shift = 0; ; shift += 7){
+            int x = b.get();
+            v |= (x & 0x7F) << shift;
+            if(x >= 0) return v;
+        }
+    }
+
+    private static String getString(ByteBuffer b){
+        byte[] s = new byte[getVarint(b)];
+        b.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+}
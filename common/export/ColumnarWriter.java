@@ -0,0 +1,315 @@
+package common.export;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.Deflater;
+
+/*
+ Streaming writer for the NXCF columnar format. A file holds one or more tables;
+ each table is cut into row groups of at most ROW_GROUP rows, and each row group
+ stores every column as one deflated chunk:
+   STRING  chunk dictionary (varint count, then varint length + UTF-8 per entry,
+           in order of first use) followed by one varint code per row, 0 = null
+   INT     zigzag varint of the difference to the previous row
+ so repeated codes (course ids, terms, letters) cost a byte or less per row
+ before compression. Every chunk records its row count, null count, distinct
+ count and min/max, and the footer at the end of the file carries that directory:
+   file    magic, version, chunk*, footer, footer length (int), magic
+   footer  table count, per table {name, column count, per column {name, type},
+           group count, per group {rows, per column {offset (long), stored
+           length, raw length, nulls, distinct, min, max}}}
+ (ints big-endian, strings as varint length + UTF-8; INT stats are ints, STRING
+ stats are strings, absent when the chunk has only nulls).
+ Chunks are deflated at BEST_SPEED by default: the id columns dominate the
+ size and barely shrink further at higher levels, which cost twice the time.
+ Only the current row group is buffered, so memory stays bounded by
+ ROW_GROUP rows whatever the export size, and bytes go out as soon as a group
+ is complete. Tables are written one after the other; not thread-safe.
+*/
+public class ColumnarWriter implements Closeable {
+    static final int MAGIC = 0x4E584346; // "NXCF"
+    static final int VERSION = 1;
+    public static final int ROW_GROUP = 1 << 16;
+
+    public enum Type { STRING, INT }
+
+    /** A column name and type, in the order values are set. */
+    public static final class Column {
+        public final String name;
+        public final Type type;
+        public Column(String name, Type type){ this.name = name; this.type = type; }
+        public static Column string(String name){ return new Column(name, Type.STRING); }
+        public static Column integer(String name){ return new Column(name, Type.INT); }
+    }
+
+    private final CountingOutputStream out;
+    private final Deflater deflater;
+    private final ChunkBuffer raw = new ChunkBuffer();
+    private final byte[] deflateBuf = new byte[1 << 16];
+    private final List<TableMeta> finished = new ArrayList<>();
+    private Table open;
+    private boolean closed;
+
+    public ColumnarWriter(OutputStream out) throws IOException { this(out, Deflater.BEST_SPEED); }
+
+    public ColumnarWriter(OutputStream out, int level) throws IOException {
+        this.out = new CountingOutputStream(out);
+        this.deflater = new Deflater(level);
+        DataOutputStream header = new DataOutputStream(this.out);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+    }
+
+    /** Starts a table; the previous one, if still open, is finished first. */
+    public Table table(String name, Column... columns) throws IOException {
+        if(closed) throw new IllegalStateException("Writer closed");
+        if(open != null) open.finish();
+        open = new Table(name, columns);
+        return open;
+    }
+
+    /** Bytes written so far. */
+    public long bytesWritten(){ return out.count; }
+
+    /** Finishes the open table and writes the footer. Does not close the underlying stream. */
+    public void finish() throws IOException {
+        if(closed) return;
+        if(open != null) open.finish();
+        closed = true;
+        ByteArrayOutputStream footer = new ByteArrayOutputStream();
+        DataOutputStream f = new DataOutputStream(footer);
+        f.writeInt(finished.size());
+        for(TableMeta t : finished){
+            putString(f, t.name);
+            f.writeInt(t.columns.length);
+            for(Column c : t.columns){
+                putString(f, c.name);
+                f.writeByte(c.type.ordinal());
+            }
+            f.writeInt(t.groups.size());
+            for(ByteArrayOutputStream g : t.groups) g.writeTo(f);
+        }
+        DataOutputStream d = new DataOutputStream(out);
+        footer.writeTo(d);
+        d.writeInt(footer.size());
+        d.writeInt(MAGIC);
+        d.flush();
+        deflater.end();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /** Rows of one table: set each column of a row, then endRow(). */
+    public final class Table {
+        private final TableMeta meta;
+        private final String[][] strings;
+        private final int[][] ints;
+        private final boolean[] set;
+        private int rows;
+        private long total;
+
+        Table(String name, Column[] columns){
+            meta = new TableMeta(name, columns.clone());
+            strings = new String[columns.length][];
+            ints = new int[columns.length][];
+            set = new boolean[columns.length];
+            for(int i = 0; i < columns.length; i++){
+                if(columns[i].type == Type.STRING) strings[i] = new String[ROW_GROUP];
+                else ints[i] = new int[ROW_GROUP];
+            }
+        }
+
+        public Table set(int column, String value){
+            if(strings[column] == null) throw new IllegalArgumentException("Column " + meta.columns[column].name + " is not a string column");
+            strings[column][rows] = value;
+            set[column] = true;
+            return this;
+        }
+
+        public Table set(int column, int value){
+            if(ints[column] == null) throw new IllegalArgumentException("Column " + meta.columns[column].name + " is not an int column");
+            ints[column][rows] = value;
+            set[column] = true;
+            return this;
+        }
+
+        /** Completes the row; string columns left unset are null, int columns 0. */
+        public void endRow() throws IOException {
+            if(open != this) throw new IllegalStateException("Table " + meta.name + " is finished");
+            for(int i = 0; i < set.length; i++){
+                if(!set[i]){
+                    if(strings[i] != null) strings[i][rows] = null;
+                    else ints[i][rows] = 0;
+                }
+                set[i] = false;
+            }
+            total++;
+            if(++rows == ROW_GROUP) flushGroup();
+        }
+
+        public long rows(){ return total; }
+
+        void finish() throws IOException {
+            if(rows > 0) flushGroup();
+            finished.add(meta);
+            open = null;
+        }
+
+        private void flushGroup() throws IOException {
+            ByteArrayOutputStream dirBytes = new ByteArrayOutputStream();
+            DataOutputStream dir = new DataOutputStream(dirBytes);
+            dir.writeInt(rows);
+            for(int c = 0; c < meta.columns.length; c++){
+                raw.reset();
+                ChunkStats stats = strings[c] != null ? encodeStrings(strings[c], rows) : encodeInts(ints[c], rows);
+                long offset = out.count;
+                int stored = deflateTo(out);
+                dir.writeLong(offset);
+                dir.writeInt(stored);
+                dir.writeInt(raw.size);
+                dir.writeInt(stats.nulls);
+                dir.writeInt(stats.distinct);
+                if(strings[c] != null){
+                    if(stats.nulls < rows){
+                        putString(dir, stats.minString);
+                        putString(dir, stats.maxString);
+                    }
+                    Arrays.fill(strings[c], 0, rows, null);
+                } else {
+                    dir.writeInt(stats.min);
+                    dir.writeInt(stats.max);
+                }
+            }
+            meta.groups.add(dirBytes);
+            out.flush();
+            rows = 0;
+        }
+    }
+
+    private ChunkStats encodeStrings(String[] values, int n){
+        ChunkStats s = new ChunkStats();
+        Map<String, Integer> dict = new HashMap<>();
+        int[] codes = new int[n];
+        List<String> entries = new ArrayList<>();
+        String last = null;
+        int lastCode = 0;
+        for(int i = 0; i < n; i++){
+            String v = values[i];
+            if(v == null){ s.nulls++; continue; }
+            if(v == last){ codes[i] = lastCode; continue; } // runs of one instance (terms, sorted course ids) skip the lookup
+            Integer code = dict.get(v);
+            if(code == null){
+                code = entries.size() + 1;
+                dict.put(v, code);
+                entries.add(v);
+                if(s.minString == null || v.compareTo(s.minString) < 0) s.minString = v;
+                if(s.maxString == null || v.compareTo(s.maxString) > 0) s.maxString = v;
+            }
+            codes[i] = lastCode = code;
+            last = v;
+        }
+        s.distinct = entries.size();
+        raw.varint(entries.size());
+        for(String e : entries){
+            byte[] b = e.getBytes(StandardCharsets.UTF_8);
+            raw.varint(b.length);
+            raw.put(b);
+        }
+        for(int i = 0; i < n; i++) raw.varint(codes[i]);
+        return s;
+    }
+
+    private ChunkStats encodeInts(int[] values, int n){
+        ChunkStats s = new ChunkStats();
+        s.min = Integer.MAX_VALUE;
+        s.max = Integer.MIN_VALUE;
+        Set<Integer> seen = new HashSet<>();
+        int prev = 0;
+        for(int i = 0; i < n; i++){
+            int v = values[i];
+            if(v < s.min) s.min = v;
+            if(v > s.max) s.max = v;
+            if(seen.size() <= 4096) seen.add(v); // exact for low-cardinality columns, a floor otherwise
+            int delta = v - prev;
+            raw.varint((delta << 1) ^ (delta >> 31));
+            prev = v;
+        }
+        s.distinct = seen.size();
+        return s;
+    }
+
+    private int deflateTo(OutputStream sink) throws IOException {
+        deflater.reset();
+        deflater.setInput(raw.bytes, 0, raw.size);
+        deflater.finish();
+        int stored = 0;
+        while(!deflater.finished()){
+            int k = deflater.deflate(deflateBuf);
+            sink.write(deflateBuf, 0, k);
+            stored += k;
+        }
+        return stored;
+    }
+
+    static void putString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        int len = b.length;
+        while((len & ~0x7F) != 0){
+            out.write((len & 0x7F) | 0x80);
+            len >>>= 7;
+        }
+        out.write(len);
+        out.write(b);
+    }
+
+    // Unsynchronized growable buffer for one encoded chunk, reused across chunks.
+    private static final class ChunkBuffer {
+        byte[] bytes = new byte[1 << 16];
+        int size;
+
+        void reset(){ size = 0; }
+        void varint(int v){
+            ensure(5);
+            while((v & ~0x7F) != 0){
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+        void put(byte[] b){
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+        private void ensure(int n){
+            if(size + n > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+        }
+    }
+
+    private static final class ChunkStats {
+        int nulls, distinct, min, max;
+        String minString, maxString;
+    }
+
+    private static final class TableMeta {
+        final String name;
+        final Column[] columns;
+        final List<ByteArrayOutputStream> groups = new ArrayList<>(); // per-group column directory
+        TableMeta(String name, Column[] columns){ this.name = name; this.columns = columns; }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+        CountingOutputStream(OutputStream out){ super(out); }
+        @Override public void write(int b) throws IOException { out.write(b); count++; }
+        @Override public void write(byte[] b, int off, int len) throws IOException { out.write(b, off, len); count += len; }
+    }
+}
@@ -0,0 +1,16 @@
+package common.jfr;
+
+import jdk.jfr.*;
+
+/*
+ One listener handling one published message.
+*/
+@Name("nexus.BrokerDeliver")
+@Label("Broker Delivery")
+@Category({"NexusEnroll", "Messaging"})
+@StackTrace(false)
+@Threshold("1 ms")
+public final class BrokerDeliverEvent extends Event {
+    @Label("Topic") public String topic;
+    @Label("Listener") public String listener;
+}
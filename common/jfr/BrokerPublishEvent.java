@@ -0,0 +1,16 @@
+package common.jfr;
+
+import jdk.jfr.*;
+
+/*
+ MessageBroker.publish; delivery is synchronous, so the duration includes every listener.
+*/
+@Name("nexus.BrokerPublish")
+@Label("Broker Publish")
+@Category({"NexusEnroll", "Messaging"})
+@StackTrace(false)
+@Threshold("1 ms")
+public final class BrokerPublishEvent extends Event {
+    @Label("Topic") public String topic;
+    @Label("Listeners") public int listeners;
+}
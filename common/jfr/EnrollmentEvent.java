@@ -0,0 +1,23 @@
+package common.jfr;
+
+import jdk.jfr.*;
+
+/*
+ One enroll, hold, confirm, swap or drop attempt. The event duration covers lock
+ wait, validation, commit and publish; lockWait isolates the time spent waiting
+ for monitors.
+*/
+@Name("nexus.Enrollment")
+@Label("Enrollment Operation")
+@Category({"NexusEnroll", "Student"})
+@Description("Enroll, hold, confirm, swap or drop attempt with its outcome and lock wait")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class EnrollmentEvent extends Event {
+    @Label("Operation") public String operation;
+    @Label("Student") public String student;
+    @Label("Course") public String course;
+    @Label("Outcome") @Description("enrolled, held, swapped, dropped, rejected, not-enrolled or rolled-back") public String outcome;
+    @Label("Rejected By") @Description("Validator that rejected the enrollment, if any") public String rejectedBy;
+    @Label("Lock Wait") @Timespan(Timespan.NANOSECONDS) public long lockWait;
+}
@@ -0,0 +1,20 @@
+package common.jfr;
+
+import jdk.jfr.*;
+
+/*
+ A grade moving between states (Pending, Submitted, Final). Bulk approvals emit
+ one zero-duration event per grade with bulk set, so a threshold filters them out.
+*/
+@Name("nexus.GradeTransition")
+@Label("Grade Transition")
+@Category({"NexusEnroll", "Faculty"})
+@StackTrace(false)
+public final class GradeTransitionEvent extends Event {
+    @Label("Student") public String student;
+    @Label("Course") public String course;
+    @Label("From") public String from;
+    @Label("To") public String to;
+    @Label("Letter") public String letter;
+    @Label("Bulk") public boolean bulk;
+}
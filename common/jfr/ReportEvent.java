@@ -0,0 +1,19 @@
+package common.jfr;
+
+import jdk.jfr.*;
+
+/*
+ Generation of one report body, from first row to last byte.
+*/
+@Name("nexus.Report")
+@Label("Report Generation")
+@Category({"NexusEnroll", "Admin"})
+@StackTrace(false)
+@Threshold("10 ms")
+public final class ReportEvent extends Event {
+    @Label("Report") public String report;
+    @Label("Format") public String format;
+    @Label("Department") public String department;
+    @Label("Courses") public int courses;
+    @Label("Bytes") @DataAmount @Description("-1 when streamed") public long bytes;
+}
@@ -0,0 +1,119 @@
+package common.json;
+
+import java.util.*;
+
+/*
+ Minimal field extraction for the flat JSON request bodies the services accept
+ (no external JSON library by design). Each method returns null when the key is
+ missing or the value has the wrong shape.
+*/
+public final class JsonFields {
+    private JsonFields(){}
+
+    // "key":"value" -> value; \" and \\ escapes are decoded (no other escapes occur in our payloads)
+    public static String string(String json, String key){
+        int start = valueStart(json, key);
+        if(start < 0 || start >= json.length() || json.charAt(start) != '"') return null;
+        StringBuilder value = null;
+        for(int i = start + 1; i < json.length(); i++){
+            char ch = json.charAt(i);
+            if(ch == '"') return value == null ? json.substring(start + 1, i) : value.toString();
+            if(ch == '\\' && i + 1 < json.length()){
+                if(value == null) value = new StringBuilder(json.substring(start + 1, i));
+                value.append(json.charAt(++i));
+            } else if(value != null){
+                value.append(ch);
+            }
+        }
+        return null;
+    }
+
+    // "key":42 -> 42
+    public static Integer integer(String json, String key){
+        int start = valueStart(json, key);
+        if(start < 0) return null;
+        int end = start;
+        while(end < json.length() && (Character.isDigit(json.charAt(end)) || (end == start && json.charAt(end) == '-'))) end++;
+        if(end == start || (end == start + 1 && json.charAt(start) == '-')) return null;
+        return Integer.valueOf(json.substring(start, end));
+    }
+
+    // "key":true -> true
+    public static Boolean bool(String json, String key){
+        int start = valueStart(json, key);
+        if(start < 0) return null;
+        if(json.startsWith("true", start)) return Boolean.TRUE;
+        if(json.startsWith("false", start)) return Boolean.FALSE;
+        return null;
+    }
+
+    // "key":["a","b"] -> [a, b]
+    public static List<String> stringArray(String json, String key){
+        int start = valueStart(json, key);
+        if(start < 0 || start >= json.length() || json.charAt(start) != '[') return null;
+        int close = json.indexOf(']', start);
+        if(close < 0) return null;
+        List<String> values = new ArrayList<>();
+        for(String item : json.substring(start + 1, close).split(",")){
+            String v = item.trim();
+            if(v.length() >= 2 && v.startsWith("\"") && v.endsWith("\"")) values.add(v.substring(1, v.length() - 1));
+        }
+        return values;
+    }
+
+    // "key":[["a","b"],"c"] -> [[a, b], [c]]; a bare string is a one-element group
+    public static List<List<String>> stringGroups(String json, String key){
+        int start = valueStart(json, key);
+        if(start < 0 || start >= json.length() || json.charAt(start) != '[') return null;
+        List<List<String>> groups = new ArrayList<>();
+        List<String> group = null;
+        for(int i = start + 1; i < json.length(); i++){
+            char ch = json.charAt(i);
+            if(ch == '[' && group == null){
+                group = new ArrayList<>();
+            } else if(ch == ']'){
+                if(group == null) return groups;
+                groups.add(group);
+                group = null;
+            } else if(ch == '"'){
+                int end = json.indexOf('"', i + 1);
+                if(end < 0) return null;
+                String v = json.substring(i + 1, end);
+                if(group != null) group.add(v);
+                else groups.add(new ArrayList<>(Collections.singletonList(v)));
+                i = end;
+            }
+        }
+        return null;
+    }
+
+    // "key":{"a":1,"b":2} -> {a=1, b=2}, insertion ordered
+    public static Map<String, Integer> intMap(String json, String key){
+        int start = valueStart(json, key);
+        if(start < 0 || start >= json.length() || json.charAt(start) != '{') return null;
+        int close = json.indexOf('}', start);
+        if(close < 0) return null;
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for(String item : json.substring(start + 1, close).split(",")){
+            String[] kv = item.split(":");
+            if(kv.length != 2) continue;
+            try {
+                values.put(kv[0].trim().replace("\"", ""), Integer.parseInt(kv[1].trim()));
+            } catch(NumberFormatException e){
+                return null;
+            }
+        }
+        return values;
+    }
+
+    // index of the first non-blank character after "key":, or -1
+    private static int valueStart(String json, String key){
+        if(json == null) return -1;
+        String searchKey = "\"" + key + "\":";
+        int keyIndex = json.indexOf(searchKey);
+        if(keyIndex < 0) return -1;
+        int i = keyIndex + searchKey.length();
+        while(i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        return i;
+    }
+}
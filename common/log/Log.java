@@ -0,0 +1,20 @@
+package common.log;
+
+/*
+ Console logging for model code (enrollment, broker, admin facade). Lines go to
+ System.out unless the calling thread has muted itself: the JIT warm-up drives
+ the same code as live requests and mutes only its own thread, so the process's
+ System.out is never swapped and other threads' lines are never filtered.
+*/
+public final class Log {
+    private static final ThreadLocal<boolean[]> MUTED = ThreadLocal.withInitial(() -> new boolean[1]);
+
+    private Log(){}
+
+    public static void println(String line){
+        if(!MUTED.get()[0]) System.out.println(line);
+    }
+
+    /** Mutes (or unmutes) model logging on the calling thread only. */
+    public static void mute(boolean muted){ MUTED.get()[0] = muted; }
+}
@@ -1,19 +1,40 @@
 package common.messagebus;
 
 import java.util.*;
+import common.jfr.BrokerPublishEvent;
+import common.log.Log;
 import common.notification.NotificationListener;
 import common.notification.NotificationService;
+import common.trace.Span;
+import common.trace.Tracer;
 
 /*
  A simple message broker that other services can use to publish/subscribe.
  This demonstrates the Observer pattern (listeners register to NotificationService).
 */
 public class MessageBroker {
-    private final NotificationService ns = NotificationService.getInstance();
+    private final NotificationService ns;
+
+    public MessageBroker(){ this(NotificationService.getInstance()); }
+    public MessageBroker(NotificationService ns){ this.ns = ns; }
 
     public void publish(String topic, String message){
-        System.out.println("[MessageBroker] Publishing topic=" + topic + " message=" + message);
-        ns.notifyAll(topic, message);
+        Log.println("[MessageBroker] Publishing topic=" + topic + " message=" + message);
+        BrokerPublishEvent ev = new BrokerPublishEvent();
+        ev.begin();
+        Span span = Tracer.start("publish ", topic);
+        int delivered;
+        try {
+            delivered = ns.notifyAll(topic, Tracer.inject(message));
+        } finally {
+            span.end();
+        }
+        ev.end();
+        if(ev.shouldCommit()){
+            ev.topic = topic;
+            ev.listeners = delivered;
+            ev.commit();
+        }
     }
 
     public void subscribe(NotificationListener l){
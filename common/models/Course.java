@@ -1,28 +1,65 @@
 package common.models;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Course {
     private final String code;
     private final String name;
-    private int capacity;
-    private final Set<String> prerequisites = new HashSet<>();
-    private final List<Enrollment> roster = new ArrayList<>();
+    private volatile int capacity;
+    private final int credits;
+    private final Set<String> prerequisites;
+    private final SnapshotList<Enrollment> roster;
+    private final Deque<String> waitlist; // student ids, FIFO
+    private final AtomicInteger held; // seats reserved by unconfirmed holds
     private final String schedule; // simplified
 
     public Course(String code, String name, int capacity, String schedule){
-        this.code = code; this.name = name; this.capacity = capacity; this.schedule = schedule;
+        this(code, name, capacity, schedule, 3);
+    }
+    public Course(String code, String name, int capacity, String schedule, int credits){
+        this.code = code; this.name = name; this.capacity = capacity; this.schedule = schedule; this.credits = credits;
+        this.prerequisites = ConcurrentHashMap.newKeySet(); // editable while validators read it
+        this.roster = new SnapshotList<>();
+        this.waitlist = new ConcurrentLinkedDeque<>();
+        this.held = new AtomicInteger();
+    }
+    // for storage-backed views (common.store.CompactModelStore), which override every accessor
+    protected Course(){
+        this.code = null; this.name = null; this.schedule = null; this.credits = 0;
+        this.prerequisites = null; this.roster = null; this.waitlist = null; this.held = null;
     }
     public String getCode(){ return code; }
     public String getName(){ return name; }
+    // department = leading letters of the code, e.g. CS201 -> CS
+    public String getDepartment(){
+        String code = getCode();
+        int i = 0;
+        while(i < code.length() && Character.isLetter(code.charAt(i))) i++;
+        return code.substring(0, i);
+    }
     public int getCapacity(){ return capacity; }
+    public int getCredits(){ return credits; }
     public void setCapacity(int c){ this.capacity = c; }
-    public List<Enrollment> getRoster(){ return roster; }
+    // point-in-time, read-only view; safe to iterate while enrollments change
+    public List<Enrollment> getRoster(){ return roster.snapshot(); }
     public String getSchedule(){ return schedule; }
     public void addPrerequisite(String c){ prerequisites.add(c); }
+    public boolean removePrerequisite(String c){ return prerequisites.remove(c); }
     public Set<String> getPrerequisites(){ return prerequisites; }
-    public boolean isFull(){ return roster.size() >= capacity; }
+    // held seats count as taken until the hold is confirmed or released
+    public boolean isFull(){ return roster.size() + held.get() >= capacity; }
+    public int getHeld(){ return held.get(); }
+    public void addHold(){ held.incrementAndGet(); }
+    public void releaseHold(){ held.decrementAndGet(); }
     public void addEnrollment(Enrollment e){ roster.add(e); }
     public void removeEnrollment(Enrollment e){ roster.remove(e); }
-    @Override public String toString(){ return String.format("Course[%s:%s]", code, name); }
+    public List<Enrollment> clearRoster(){ return roster.clear(); }
+    public Deque<String> getWaitlist(){ return waitlist; }
+    // check and append as one step under the course lock (which enrollment callers already hold), so a student is queued once
+    public synchronized void addToWaitlist(String studentId){ if(!waitlist.contains(studentId)) waitlist.addLast(studentId); }
+    public void removeFromWaitlist(String studentId){ waitlist.remove(studentId); }
+    @Override public String toString(){ return String.format("Course[%s:%s]", getCode(), getName()); }
 }
@@ -1,11 +1,12 @@
 package common.models;
 
-public class FinalState implements GradeState {
-    public void submit(Grade g){
-        System.out.println("Grade final; cannot submit.");
-    }
-    public void approve(Grade g){
-        System.out.println("Already final.");
-    }
+public final class FinalState implements GradeState {
+    public static final int CODE = 2;
+    public static final FinalState INSTANCE = new FinalState();
+    private FinalState(){}
+
+    public GradeState afterSubmit(){ return null; } // final grades are immutable
+    public GradeState afterApprove(){ return null; }
+    public int code(){ return CODE; }
     public String getName(){ return "Final"; }
 }
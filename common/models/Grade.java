@@ -1,13 +1,19 @@
 package common.models;
 
+import common.jfr.GradeTransitionEvent;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 public class Grade {
+    private static final AtomicReferenceFieldUpdater<Grade, GradeState> STATE =
+        AtomicReferenceFieldUpdater.newUpdater(Grade.class, GradeState.class, "state");
+
     private final Student student;
     private final Course course;
-    private String letter;
-    private GradeState state;
+    private volatile String letter;
+    private volatile GradeState state;
 
     public Grade(Student s, Course c){
-        this.student = s; this.course = c; this.state = new PendingState();
+        this.student = s; this.course = c; this.state = PendingState.INSTANCE;
     }
     public Student getStudent(){ return student; }
     public Course getCourse(){ return course; }
@@ -16,12 +22,27 @@ public class Grade {
     public GradeState getState(){ return state; }
     public void setState(GradeState s){ this.state = s; }
 
+    // CAS so concurrent submit/approve races resolve without locks; false if disallowed or lost
+    boolean transition(GradeState from, GradeState to){
+        if(to == null || !STATE.compareAndSet(this, from, to)) return false;
+        GradeTransitionEvent ev = new GradeTransitionEvent();
+        if(ev.shouldCommit()){
+            ev.student = student.getId();
+            ev.course = course.getCode();
+            ev.from = from.getName();
+            ev.to = to.getName();
+            ev.letter = letter;
+            ev.commit();
+        }
+        return true;
+    }
+
     // state transition helpers
-    public void submit(){
-        state.submit(this);
+    public boolean submit(){
+        return state.submit(this);
     }
-    public void approve(){
-        state.approve(this);
+    public boolean approve(){
+        return state.approve(this);
     }
     @Override public String toString(){
         return String.format("Grade[%s:%s=%s (%s)]", student.getId(), course.getCode(), letter, state.getName());
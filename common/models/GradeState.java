@@ -1,7 +1,26 @@
 package common.models;
 
+/*
+ State pattern for the grade lifecycle: Pending -> Submitted -> Final.
+ States are stateless flyweights; afterSubmit/afterApprove form the transition
+ table (null = transition not allowed) and code() is the compact form used by
+ packed grade stores.
+*/
 public interface GradeState {
-    void submit(Grade g);
-    void approve(Grade g);
+    GradeState afterSubmit();
+    GradeState afterApprove();
+    int code();
     String getName();
+
+    default boolean submit(Grade g){ return g.transition(this, afterSubmit()); }
+    default boolean approve(Grade g){ return g.transition(this, afterApprove()); }
+
+    static GradeState fromCode(int code){
+        switch(code){
+            case PendingState.CODE: return PendingState.INSTANCE;
+            case SubmittedState.CODE: return SubmittedState.INSTANCE;
+            case FinalState.CODE: return FinalState.INSTANCE;
+            default: throw new IllegalArgumentException("Unknown grade state code: " + code);
+        }
+    }
 }
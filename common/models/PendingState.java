@@ -1,12 +1,12 @@
 package common.models;
 
-public class PendingState implements GradeState {
-    public void submit(Grade g){
-        System.out.println("Submitting grade -> moving to SubmittedState");
-        g.setState(new SubmittedState());
-    }
-    public void approve(Grade g){
-        System.out.println("Cannot approve: grade still pending.");
-    }
+public final class PendingState implements GradeState {
+    public static final int CODE = 0;
+    public static final PendingState INSTANCE = new PendingState();
+    private PendingState(){}
+
+    public GradeState afterSubmit(){ return SubmittedState.INSTANCE; }
+    public GradeState afterApprove(){ return null; } // cannot approve a pending grade
+    public int code(){ return CODE; }
     public String getName(){ return "Pending"; }
 }
@@ -0,0 +1,50 @@
+package common.models;
+
+import java.util.*;
+
+/*
+ Copy-on-write list backing Course rosters and Student enrollments.
+ Every write publishes a new immutable array (a new version), so snapshot()
+ is an O(1), point-in-time, read-only view: readers never lock and never see a
+ half-applied write, and long analytic reads cannot slow writers down.
+ Writers serialize on the list itself.
+*/
+final class SnapshotList<E> {
+    private static final Object[] EMPTY = new Object[0];
+    private volatile Object[] items = EMPTY;
+
+    synchronized void add(E e){
+        Object[] cur = items;
+        Object[] next = Arrays.copyOf(cur, cur.length + 1);
+        next[cur.length] = e;
+        items = next;
+    }
+
+    synchronized boolean remove(Object e){
+        Object[] cur = items;
+        for(int i = 0; i < cur.length; i++){
+            if(Objects.equals(cur[i], e)){
+                Object[] next = new Object[cur.length - 1];
+                System.arraycopy(cur, 0, next, 0, i);
+                System.arraycopy(cur, i + 1, next, i, cur.length - i - 1);
+                items = next;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // removes everything, returning the version that was removed
+    synchronized List<E> clear(){
+        List<E> removed = snapshot();
+        items = EMPTY;
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    List<E> snapshot(){
+        return (List<E>) Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    int size(){ return items.length; }
+}
@@ -1,23 +1,34 @@
 package common.models;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Student {
     private final String id;
     private final String name;
-    private final Set<String> completedCourses = new HashSet<>();
-    private final List<Enrollment> enrollments = new ArrayList<>();
+    // concurrent: final grades add completions while prerequisite checks read them
+    private final Set<String> completedCourses;
+    private final SnapshotList<Enrollment> enrollments;
 
     public Student(String id, String name) {
         this.id = id; this.name = name;
+        this.completedCourses = ConcurrentHashMap.newKeySet();
+        this.enrollments = new SnapshotList<>();
+    }
+    // for storage-backed views (common.store.CompactModelStore), which override every accessor
+    protected Student(){
+        this.id = null; this.name = null; this.completedCourses = null; this.enrollments = null;
     }
     public String getId(){return id;}
     public String getName(){return name;}
     public Set<String> getCompletedCourses(){ return completedCourses; }
-    public List<Enrollment> getEnrollments(){ return enrollments; }
+    public boolean hasCompleted(String courseCode){ return getCompletedCourses().contains(courseCode); }
+    // point-in-time, read-only view; safe to iterate while enrollments change
+    public List<Enrollment> getEnrollments(){ return enrollments.snapshot(); }
 
     public void addCompletedCourse(String courseCode){ completedCourses.add(courseCode); }
+    public void removeCompletedCourse(String courseCode){ completedCourses.remove(courseCode); }
     public void addEnrollment(Enrollment e){ enrollments.add(e); }
     public void removeEnrollment(Enrollment e){ enrollments.remove(e); }
-    @Override public String toString(){ return String.format("Student[%s:%s]", id, name); }
+    @Override public String toString(){ return String.format("Student[%s:%s]", getId(), getName()); }
 }
@@ -1,12 +1,12 @@
 package common.models;
 
-public class SubmittedState implements GradeState {
-    public void submit(Grade g){
-        System.out.println("Already submitted.");
-    }
-    public void approve(Grade g){
-        System.out.println("Approving grade -> final.");
-        g.setState(new FinalState());
-    }
+public final class SubmittedState implements GradeState {
+    public static final int CODE = 1;
+    public static final SubmittedState INSTANCE = new SubmittedState();
+    private SubmittedState(){}
+
+    public GradeState afterSubmit(){ return this; } // resubmission = instructor correction
+    public GradeState afterApprove(){ return FinalState.INSTANCE; }
+    public int code(){ return CODE; }
     public String getName(){ return "Submitted"; }
 }
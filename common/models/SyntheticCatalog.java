@@ -0,0 +1,61 @@
+package common.models;
+
+import java.util.*;
+
+/*
+ Deterministic synthetic catalog for load tests and sizing runs.
+ Every service seeded with the same counts and seed gets the same students
+ (S00000..), courses (CS1000, MATH1000, ...) and prerequisites, so a load
+ generator can target ids that exist everywhere. Enabled per service with
+ -Dnexus.seed=<students>:<courses>; ids never collide with the sample data.
+*/
+public final class SyntheticCatalog {
+    public static final String SEED_PROPERTY = "nexus.seed";
+    public static final long DEFAULT_SEED = 42L;
+    private static final String[] DEPARTMENTS = {"CS", "MATH", "BUS", "PHYS", "ENG", "HIST", "BIO", "CHEM"};
+    private static final String[] SLOTS = {
+        "Mon8-10", "Mon10-12", "Mon13-15", "Mon15-17", "Tue8-10", "Tue10-12", "Tue13-15", "Tue15-17",
+        "Wed8-10", "Wed10-12", "Wed13-15", "Wed15-17", "Thu8-10", "Thu10-12", "Thu13-15", "Thu15-17",
+        "Fri8-10", "Fri10-12", "Fri13-15", "Fri15-17"};
+
+    private SyntheticCatalog(){}
+
+    public static String studentId(int i){ return String.format("S%05d", i); }
+    public static String courseId(int i){ return DEPARTMENTS[i % DEPARTMENTS.length] + (1000 + i / DEPARTMENTS.length); }
+
+    /** {students, courses} from -Dnexus.seed, or null when seeding is off. */
+    public static int[] sizesFromProperty(){
+        String spec = System.getProperty(SEED_PROPERTY);
+        if(spec == null || spec.isBlank()) return null;
+        String[] parts = spec.split(":");
+        if(parts.length != 2) throw new IllegalArgumentException(SEED_PROPERTY + " must be <students>:<courses>, got " + spec);
+        return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+    }
+
+    /** Seeds the maps if -Dnexus.seed is set; returns whether anything was added. */
+    public static boolean populateFromProperty(Map<String, Student> students, Map<String, Course> courses){
+        int[] sizes = sizesFromProperty();
+        if(sizes == null) return false;
+        populate(students, courses, sizes[0], sizes[1], DEFAULT_SEED);
+        System.out.println("Seeded synthetic catalog: " + sizes[0] + " students, " + sizes[1] + " courses");
+        return true;
+    }
+
+    public static void populate(Map<String, Student> students, Map<String, Course> courses,
+                                int studentCount, int courseCount, long seed){
+        Random rnd = new Random(seed);
+        for(int i = 0; i < courseCount; i++){
+            Course c = new Course(courseId(i), "Synthetic Course " + i, 20 + rnd.nextInt(181),
+                SLOTS[rnd.nextInt(SLOTS.length)], 1 + rnd.nextInt(4));
+            // a quarter of the courses require an earlier course of the same department
+            if(i >= DEPARTMENTS.length && rnd.nextInt(4) == 0) c.addPrerequisite(courseId(i - DEPARTMENTS.length));
+            courses.put(c.getCode(), c);
+        }
+        for(int i = 0; i < studentCount; i++){
+            Student s = new Student(studentId(i), "Synthetic Student " + i);
+            int completed = courseCount == 0 ? 0 : rnd.nextInt(Math.min(6, courseCount) + 1);
+            for(int k = 0; k < completed; k++) s.addCompletedCourse(courseId(rnd.nextInt(courseCount)));
+            students.put(s.getId(), s);
+        }
+    }
+}
@@ -2,4 +2,10 @@ package common.notification;
 
 public interface NotificationListener {
     void onNotify(String topic, String message);
+
+    // Event messages end with the course code, e.g. "Student S001 enrolled in CS201",
+    // or with a comma-separated list for batch events, e.g. "Capacity updated for 2 courses: CS201,CS301"
+    static String[] courseCodes(String message){
+        return message.substring(message.lastIndexOf(' ') + 1).split(",");
+    }
 }
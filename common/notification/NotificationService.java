@@ -1,6 +1,9 @@
 package common.notification;
 
 import java.util.*;
+import common.jfr.BrokerDeliverEvent;
+import common.trace.Span;
+import common.trace.Tracer;
 
 public class NotificationService {
     // Singleton pattern: single shared NotificationService
@@ -14,6 +17,11 @@ public class NotificationService {
         return instance;
     }
 
+    // A service of its own, outside the shared one: its listeners and events stay private (e.g. the JIT warm-up)
+    public static NotificationService isolated(){
+        return new NotificationService();
+    }
+
     public void register(NotificationListener l){
         listeners.add(l);
     }
@@ -22,9 +30,34 @@ public class NotificationService {
     }
 
     // Observer pattern: publish notifications to registered listeners
-    public void notifyAll(String topic, String message){
-        for(NotificationListener l : new ArrayList<>(listeners)){
-            l.onNotify(topic, message);
+    // A trace context injected by the publisher is stripped before listeners see the message.
+    // Returns the number of listeners notified.
+    public int notifyAll(String topic, String message){
+        String context = null;
+        int at = Tracer.payloadContextAt(message);
+        if(at >= 0){
+            context = Tracer.payloadContext(message, at);
+            message = message.substring(0, at);
+        }
+        List<NotificationListener> targets = new ArrayList<>(listeners);
+        for(NotificationListener l : targets){
+            BrokerDeliverEvent ev = new BrokerDeliverEvent();
+            ev.begin();
+            Span span = context != null && !Tracer.current().isSampled()
+                ? Tracer.startServer("notification-service", "deliver " + topic, context)
+                : Tracer.start("deliver ", topic);
+            try {
+                l.onNotify(topic, message);
+            } finally {
+                span.end();
+            }
+            ev.end();
+            if(ev.shouldCommit()){
+                ev.topic = topic;
+                ev.listener = l.getClass().getName();
+                ev.commit();
+            }
         }
+        return targets.size();
     }
 }
@@ -0,0 +1,608 @@
+package common.store;
+
+import common.models.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.locks.StampedLock;
+
+/*
+ Optional off-heap storage engine for the common.models data, for system-wide
+ scale (millions of students and enrollment rows). A service started with
+ -Dnexus.store=offheap holds students() and courses() instead of ConcurrentHashMaps;
+ everything downstream keeps using Student and Course.
+ Layout, in OffHeapMemory words:
+   student record  8 words: id, name, enrollment list, count, completion list, count
+   course record   16 words: code, name, schedule, capacity, credits, held, roster list,
+                   count, prerequisite list, count, flags
+   lists           int segments of 2^k words: capacity, then members
+   dictionaries    open-addressing id -> record number tables over the UTF-8 ids
+ The enrollment relation is two int adjacency lists (course numbers per student,
+ student numbers per course), and no Enrollment objects are kept. Completions and
+ prerequisites are lists of course-code numbers; a code seen before its course
+ (a completed CS101 that is not offered) gets a record without the PRESENT flag.
+ Getters return flyweight views: getRoster() copies an int list and builds an
+ Enrollment only for the elements read. The Student and Course views are
+ canonical, one small object per record ever looked up, because EnrollmentManager
+ locks on them. Writes take a StampedLock; reads run optimistically and retry
+ under the read lock if a write overlapped. Waitlists stay on the heap, and only
+ for courses that have one.
+*/
+public final class CompactModelStore {
+    public static final String PROPERTY = "nexus.store";
+
+    private static final int S_WIDTH = 8, S_ID = 0, S_NAME = 1, S_ENROLLED = 2, S_COMPLETED = 4;
+    private static final int C_WIDTH = 16, C_CODE = 0, C_NAME = 1, C_SCHEDULE = 2, C_CAPACITY = 3, C_CREDITS = 4,
+        C_HELD = 5, C_ROSTER = 6, C_PREREQUISITES = 8, C_FLAGS = 10;
+    private static final int PRESENT = 1;
+    private static final int VIEW_CHUNK_SHIFT = 12;
+
+    private final OffHeapMemory studentRecords = new OffHeapMemory(0);
+    private final OffHeapMemory courseRecords = new OffHeapMemory(0);
+    private final OffHeapMemory lists = new OffHeapMemory(1);
+    private final OffHeapMemory strings = new OffHeapMemory(1);
+    private final Dictionary studentIds = new Dictionary(studentRecords, S_WIDTH, S_ID);
+    private final Dictionary courseCodes = new Dictionary(courseRecords, C_WIDTH, C_CODE);
+    private final int[] freeSegments = new int[OffHeapMemory.PAGE_SHIFT + 1]; // by log2 of segment size; guarded by lock
+    private final StampedLock lock = new StampedLock();
+    private final Object[][] studentViews = new Object[1 << (31 - 3 - VIEW_CHUNK_SHIFT)][];
+    private final Object[][] courseViews = new Object[1 << (31 - 4 - VIEW_CHUNK_SHIFT)][];
+    private final Map<Integer, Deque<String>> waitlists = new ConcurrentHashMap<>();
+    private final Map<String, Student> studentMap = new StudentMap();
+    private final Map<String, Course> courseMap = new CourseMap();
+    private volatile int presentCourses;
+    private volatile long enrollments;
+
+    /** A new store if -Dnexus.store=offheap, else null for the plain on-heap maps. */
+    public static CompactModelStore fromProperty(){
+        String mode = System.getProperty(PROPERTY, "heap");
+        if("heap".equals(mode)) return null;
+        if("offheap".equals(mode)) return new CompactModelStore();
+        throw new IllegalArgumentException(PROPERTY + " must be heap or offheap, got " + mode);
+    }
+
+    /**
+     Students by id. put() copies a heap Student in (completions, and enrollments in
+     courses already stored); use the view get() returns from then on. Ids are added
+     once; removal is not supported.
+    */
+    public Map<String, Student> students(){ return studentMap; }
+
+    /** Courses by code, with the same put() contract; rosters link to students already stored. */
+    public Map<String, Course> courses(){ return courseMap; }
+
+    public long offHeapBytes(){
+        return studentRecords.reservedBytes() + courseRecords.reservedBytes() + lists.reservedBytes()
+            + strings.reservedBytes() + studentIds.tableBytes() + courseCodes.tableBytes();
+    }
+
+    @Override public String toString(){
+        return String.format("CompactModelStore[%d students, %d courses, %d enrollments, %.1f MB off-heap]",
+            studentIds.size, presentCourses, enrollments, offHeapBytes() / 1048576.0);
+    }
+
+    // ---- views ----
+
+    private final class StoredStudent extends Student {
+        final int n;
+        StoredStudent(int n){ this.n = n; }
+
+        @Override public String getId(){ return string(studentRecords, n * S_WIDTH + S_ID); }
+        @Override public String getName(){ return string(studentRecords, n * S_WIDTH + S_NAME); }
+        @Override public Set<String> getCompletedCourses(){ return new CodeSet(studentRecords, n * S_WIDTH + S_COMPLETED); }
+        @Override public List<Enrollment> getEnrollments(){
+            int[] courses = members(studentRecords, n * S_WIDTH + S_ENROLLED);
+            return new AbstractList<Enrollment>() {
+                public Enrollment get(int i){ return new Enrollment(StoredStudent.this, course(courses[i])); }
+                public int size(){ return courses.length; }
+            };
+        }
+        @Override public void addCompletedCourse(String code){
+            long stamp = lock.writeLock();
+            try {
+                add(studentRecords, n * S_WIDTH + S_COMPLETED, codeNumber(code), true);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        @Override public void removeCompletedCourse(String code){
+            long stamp = lock.writeLock();
+            try {
+                int k = courseCodes.find(utf8(code));
+                if(k >= 0) remove(studentRecords, n * S_WIDTH + S_COMPLETED, k);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        @Override public void addEnrollment(Enrollment e){
+            long stamp = lock.writeLock();
+            try {
+                if(add(studentRecords, n * S_WIDTH + S_ENROLLED, courseNumber(e.getCourse()), false)) enrollments++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        @Override public void removeEnrollment(Enrollment e){
+            long stamp = lock.writeLock();
+            try {
+                if(remove(studentRecords, n * S_WIDTH + S_ENROLLED, courseNumber(e.getCourse()))) enrollments--;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private final class StoredCourse extends Course {
+        final int n;
+        StoredCourse(int n){ this.n = n; }
+
+        @Override public String getCode(){ return string(courseRecords, n * C_WIDTH + C_CODE); }
+        @Override public String getName(){ return string(courseRecords, n * C_WIDTH + C_NAME); }
+        @Override public String getSchedule(){ return string(courseRecords, n * C_WIDTH + C_SCHEDULE); }
+        @Override public int getCapacity(){ return courseRecords.getVolatile(n * C_WIDTH + C_CAPACITY); }
+        @Override public void setCapacity(int c){ courseRecords.setVolatile(n * C_WIDTH + C_CAPACITY, c); }
+        @Override public int getCredits(){ return courseRecords.get(n * C_WIDTH + C_CREDITS); }
+        @Override public Set<String> getPrerequisites(){ return new CodeSet(courseRecords, n * C_WIDTH + C_PREREQUISITES); }
+        @Override public void addPrerequisite(String code){
+            long stamp = lock.writeLock();
+            try {
+                add(courseRecords, n * C_WIDTH + C_PREREQUISITES, codeNumber(code), true);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        @Override public boolean removePrerequisite(String code){
+            long stamp = lock.writeLock();
+            try {
+                return remove(courseRecords, n * C_WIDTH + C_PREREQUISITES, codeNumber(code));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        @Override public List<Enrollment> getRoster(){ return roster(members(courseRecords, n * C_WIDTH + C_ROSTER)); }
+        @Override public boolean isFull(){
+            int r = n * C_WIDTH;
+            return courseRecords.getVolatile(r + C_ROSTER + 1) + courseRecords.getVolatile(r + C_HELD) >= courseRecords.getVolatile(r + C_CAPACITY);
+        }
+        @Override public int getHeld(){ return courseRecords.getVolatile(n * C_WIDTH + C_HELD); }
+        @Override public void addHold(){ courseRecords.getAndAdd(n * C_WIDTH + C_HELD, 1); }
+        @Override public void releaseHold(){ courseRecords.getAndAdd(n * C_WIDTH + C_HELD, -1); }
+        @Override public void addEnrollment(Enrollment e){
+            long stamp = lock.writeLock();
+            try {
+                add(courseRecords, n * C_WIDTH + C_ROSTER, studentNumber(e.getStudent()), false);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        @Override public void removeEnrollment(Enrollment e){
+            long stamp = lock.writeLock();
+            try {
+                remove(courseRecords, n * C_WIDTH + C_ROSTER, studentNumber(e.getStudent()));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        @Override public List<Enrollment> clearRoster(){
+            int[] removed;
+            long stamp = lock.writeLock();
+            try {
+                int at = n * C_WIDTH + C_ROSTER;
+                removed = copy(courseRecords, at);
+                int p = courseRecords.get(at);
+                if(p != 0) release(p);
+                courseRecords.set(at, 0);
+                courseRecords.setVolatile(at + 1, 0);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            return roster(removed);
+        }
+        @Override public Deque<String> getWaitlist(){
+            Deque<String> d = waitlists.get(n);
+            return d != null ? d : new ConcurrentLinkedDeque<>();
+        }
+        @Override public void addToWaitlist(String studentId){
+            waitlists.compute(n, (k, d) -> {
+                if(d == null) d = new ConcurrentLinkedDeque<>();
+                if(!d.contains(studentId)) d.addLast(studentId);
+                return d;
+            });
+        }
+        @Override public void removeFromWaitlist(String studentId){
+            waitlists.computeIfPresent(n, (k, d) -> {
+                d.remove(studentId);
+                return d.isEmpty() ? null : d;
+            });
+        }
+
+        private List<Enrollment> roster(int[] students){
+            return new AbstractList<Enrollment>() {
+                public Enrollment get(int i){ return new Enrollment(student(students[i]), StoredCourse.this); }
+                public int size(){ return students.length; }
+            };
+        }
+    }
+
+    /** Read-only set of course codes over a code-number list. */
+    private final class CodeSet extends AbstractSet<String> {
+        private final OffHeapMemory records;
+        private final int at;
+        CodeSet(OffHeapMemory records, int at){ this.records = records; this.at = at; }
+
+        @Override public int size(){ return records.getVolatile(at + 1); }
+        @Override public boolean contains(Object o){
+            if(!(o instanceof String)) return false;
+            byte[] key = utf8((String) o);
+            long stamp = lock.tryOptimisticRead();
+            try {
+                boolean found = containsCode(key);
+                if(lock.validate(stamp)) return found;
+            } catch(RuntimeException torn){
+                // a write moved the list under us; retry locked
+            }
+            stamp = lock.readLock();
+            try {
+                return containsCode(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        @Override public Iterator<String> iterator(){
+            int[] codes = members(records, at);
+            return new Iterator<String>() {
+                int i;
+                public boolean hasNext(){ return i < codes.length; }
+                public String next(){
+                    if(i >= codes.length) throw new NoSuchElementException();
+                    return string(courseRecords, codes[i++] * C_WIDTH + C_CODE);
+                }
+            };
+        }
+
+        private boolean containsCode(byte[] key){
+            int k = courseCodes.find(key);
+            if(k < 0) return false;
+            int p = records.get(at), n = Math.min(records.get(at + 1), p == 0 ? 0 : lists.get(p));
+            for(int i = 0; i < n; i++) if(lists.get(p + 1 + i) == k) return true;
+            return false;
+        }
+    }
+
+    private Student student(int n){
+        Object[] chunk = chunk(studentViews, n);
+        Object v = chunk[n & ((1 << VIEW_CHUNK_SHIFT) - 1)];
+        if(v != null) return (Student) v;
+        synchronized(chunk){
+            v = chunk[n & ((1 << VIEW_CHUNK_SHIFT) - 1)];
+            if(v == null) chunk[n & ((1 << VIEW_CHUNK_SHIFT) - 1)] = v = new StoredStudent(n);
+            return (Student) v;
+        }
+    }
+
+    private Course course(int n){
+        Object[] chunk = chunk(courseViews, n);
+        Object v = chunk[n & ((1 << VIEW_CHUNK_SHIFT) - 1)];
+        if(v != null) return (Course) v;
+        synchronized(chunk){
+            v = chunk[n & ((1 << VIEW_CHUNK_SHIFT) - 1)];
+            if(v == null) chunk[n & ((1 << VIEW_CHUNK_SHIFT) - 1)] = v = new StoredCourse(n);
+            return (Course) v;
+        }
+    }
+
+    // views are final-field objects, so a racy read of a published chunk slot is safe
+    private static Object[] chunk(Object[][] views, int n){
+        Object[] chunk = views[n >>> VIEW_CHUNK_SHIFT];
+        if(chunk != null) return chunk;
+        synchronized(views){
+            chunk = views[n >>> VIEW_CHUNK_SHIFT];
+            if(chunk == null) views[n >>> VIEW_CHUNK_SHIFT] = chunk = new Object[1 << VIEW_CHUNK_SHIFT];
+            return chunk;
+        }
+    }
+
+    // ---- maps ----
+
+    private final class StudentMap extends AbstractMap<String, Student> {
+        @Override public Student get(Object key){
+            int n = key instanceof String ? find(studentIds, (String) key) : -1;
+            return n < 0 ? null : student(n);
+        }
+        @Override public boolean containsKey(Object key){ return get(key) != null; }
+        @Override public int size(){ return studentIds.size; }
+        @Override public Student put(String id, Student s){
+            if(s instanceof StoredStudent && get(id) == s) return s;
+            importStudent(id, s);
+            return null;
+        }
+        @Override public Collection<Student> values(){
+            return new AbstractCollection<Student>() {
+                public int size(){ return studentIds.size; }
+                public Iterator<Student> iterator(){ return records(studentIds.size, n -> true, n -> student(n)); }
+            };
+        }
+        @Override public Set<Map.Entry<String, Student>> entrySet(){
+            return new AbstractSet<Map.Entry<String, Student>>() {
+                public int size(){ return studentIds.size; }
+                public Iterator<Map.Entry<String, Student>> iterator(){
+                    return records(studentIds.size, n -> true, n -> new SimpleImmutableEntry<>(student(n).getId(), student(n)));
+                }
+            };
+        }
+    }
+
+    private final class CourseMap extends AbstractMap<String, Course> {
+        @Override public Course get(Object key){
+            int n = key instanceof String ? find(courseCodes, (String) key) : -1;
+            return n < 0 || !present(n) ? null : course(n);
+        }
+        @Override public boolean containsKey(Object key){ return get(key) != null; }
+        @Override public int size(){ return presentCourses; }
+        @Override public Course put(String code, Course c){
+            if(c instanceof StoredCourse && get(code) == c) return c;
+            importCourse(code, c);
+            return null;
+        }
+        @Override public Collection<Course> values(){
+            return new AbstractCollection<Course>() {
+                public int size(){ return presentCourses; }
+                public Iterator<Course> iterator(){ return records(courseCodes.size, CompactModelStore.this::present, n -> course(n)); }
+            };
+        }
+        @Override public Set<Map.Entry<String, Course>> entrySet(){
+            return new AbstractSet<Map.Entry<String, Course>>() {
+                public int size(){ return presentCourses; }
+                public Iterator<Map.Entry<String, Course>> iterator(){
+                    return records(courseCodes.size, CompactModelStore.this::present, n -> new SimpleImmutableEntry<>(course(n).getCode(), course(n)));
+                }
+            };
+        }
+    }
+
+    private static <T> Iterator<T> records(int count, java.util.function.IntPredicate include, java.util.function.IntFunction<T> view){
+        return new Iterator<T>() {
+            int next = advance(0);
+            int advance(int from){
+                while(from < count && !include.test(from)) from++;
+                return from;
+            }
+            public boolean hasNext(){ return next < count; }
+            public T next(){
+                if(next >= count) throw new NoSuchElementException();
+                T v = view.apply(next);
+                next = advance(next + 1);
+                return v;
+            }
+        };
+    }
+
+    private void importStudent(String id, Student s){
+        byte[] key = utf8(id);
+        long stamp = lock.writeLock();
+        try {
+            if(studentIds.find(key) >= 0) throw new IllegalArgumentException("Student already stored: " + id);
+            int n = studentIds.add(key);
+            int r = n * S_WIDTH;
+            studentRecords.set(r + S_NAME, putString(s.getName()));
+            for(String code : s.getCompletedCourses()) add(studentRecords, r + S_COMPLETED, codeNumber(code), true);
+            for(Enrollment e : s.getEnrollments()){
+                int c = courseCodes.find(utf8(e.getCourse().getCode()));
+                if(c >= 0 && present(c)) link(n, c);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void importCourse(String code, Course c){
+        int n;
+        long stamp = lock.writeLock();
+        try {
+            n = codeNumber(code);
+            int r = n * C_WIDTH;
+            if(present(n)) throw new IllegalArgumentException("Course already stored: " + code);
+            courseRecords.set(r + C_NAME, putString(c.getName()));
+            courseRecords.set(r + C_SCHEDULE, putString(c.getSchedule()));
+            courseRecords.set(r + C_CAPACITY, c.getCapacity());
+            courseRecords.set(r + C_CREDITS, c.getCredits());
+            courseRecords.set(r + C_HELD, c.getHeld());
+            for(String pre : c.getPrerequisites()) add(courseRecords, r + C_PREREQUISITES, codeNumber(pre), true);
+            for(Enrollment e : c.getRoster()){
+                int s = studentIds.find(utf8(e.getStudent().getId()));
+                if(s >= 0) link(s, n);
+            }
+            courseRecords.setVolatile(r + C_FLAGS, PRESENT);
+            presentCourses++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if(!c.getWaitlist().isEmpty()) waitlists.put(n, new ConcurrentLinkedDeque<>(c.getWaitlist()));
+    }
+
+    // ---- records and lists (write paths hold the write lock) ----
+
+    private void link(int student, int course){
+        boolean added = add(studentRecords, student * S_WIDTH + S_ENROLLED, course, true);
+        add(courseRecords, course * C_WIDTH + C_ROSTER, student, true);
+        if(added) enrollments++;
+    }
+
+    private boolean present(int course){ return (courseRecords.getVolatile(course * C_WIDTH + C_FLAGS) & PRESENT) != 0; }
+
+    // course-code number, creating a record without PRESENT for a code not seen yet
+    private int codeNumber(String code){
+        byte[] key = utf8(code);
+        int n = courseCodes.find(key);
+        return n >= 0 ? n : courseCodes.add(key);
+    }
+
+    private int courseNumber(Course c){
+        if(c instanceof StoredCourse && course(((StoredCourse) c).n) == c) return ((StoredCourse) c).n;
+        int n = courseCodes.find(utf8(c.getCode()));
+        if(n < 0 || !present(n)) throw new IllegalArgumentException("Course not in this store: " + c.getCode());
+        return n;
+    }
+
+    private int studentNumber(Student s){
+        if(s instanceof StoredStudent && student(((StoredStudent) s).n) == s) return ((StoredStudent) s).n;
+        int n = studentIds.find(utf8(s.getId()));
+        if(n < 0) throw new IllegalArgumentException("Student not in this store: " + s.getId());
+        return n;
+    }
+
+    // list at word `at` of a record, its count at `at + 1`
+    private boolean add(OffHeapMemory records, int at, int value, boolean unique){
+        int p = records.get(at), n = records.get(at + 1);
+        if(unique){
+            for(int i = 0; i < n; i++) if(lists.get(p + 1 + i) == value) return false;
+        }
+        if(p == 0 || n == lists.get(p)){
+            int q = segment(n + 1);
+            for(int i = 0; i < n; i++) lists.set(q + 1 + i, lists.get(p + 1 + i));
+            if(p != 0) release(p);
+            records.set(at, q);
+            p = q;
+        }
+        lists.set(p + 1 + n, value);
+        records.setVolatile(at + 1, n + 1);
+        return true;
+    }
+
+    // removes the first occurrence, keeping the order of the rest
+    private boolean remove(OffHeapMemory records, int at, int value){
+        int p = records.get(at), n = records.get(at + 1);
+        for(int i = 0; i < n; i++){
+            if(lists.get(p + 1 + i) != value) continue;
+            for(int j = i + 1; j < n; j++) lists.set(p + j, lists.get(p + 1 + j));
+            records.setVolatile(at + 1, n - 1);
+            if(n == 1){
+                release(p);
+                records.set(at, 0);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // a segment of 2^k words holding at least `members` ints, reusing a released one if possible
+    private int segment(int members){
+        int k = 2;
+        while((1 << k) - 1 < members) k++;
+        if(k > OffHeapMemory.PAGE_SHIFT) throw new IllegalStateException("List longer than " + ((1 << OffHeapMemory.PAGE_SHIFT) - 1));
+        int p = freeSegments[k];
+        if(p != 0){
+            freeSegments[k] = lists.get(p + 1);
+        } else {
+            p = lists.allocate(1 << k);
+        }
+        lists.set(p, (1 << k) - 1);
+        return p;
+    }
+
+    private void release(int p){
+        int k = 32 - Integer.numberOfLeadingZeros(lists.get(p)); // capacity 2^k - 1
+        lists.set(p + 1, freeSegments[k]);
+        freeSegments[k] = p;
+    }
+
+    private int[] members(OffHeapMemory records, int at){
+        long stamp = lock.tryOptimisticRead();
+        try {
+            int[] out = copy(records, at);
+            if(lock.validate(stamp)) return out;
+        } catch(RuntimeException torn){
+            // a write moved the list under us; retry locked
+        }
+        stamp = lock.readLock();
+        try {
+            return copy(records, at);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int[] copy(OffHeapMemory records, int at){
+        int p = records.get(at);
+        if(p == 0) return new int[0];
+        int[] out = new int[Math.min(records.get(at + 1), lists.get(p))];
+        for(int i = 0; i < out.length; i++) out[i] = lists.get(p + 1 + i);
+        return out;
+    }
+
+    private int find(Dictionary d, String id){
+        byte[] key = utf8(id);
+        long stamp = lock.tryOptimisticRead();
+        try {
+            int n = d.find(key);
+            if(lock.validate(stamp)) return n;
+        } catch(RuntimeException torn){
+            // the table grew under us; retry locked
+        }
+        stamp = lock.readLock();
+        try {
+            return d.find(key);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private String string(OffHeapMemory records, int at){
+        int ref = records.get(at);
+        return ref == 0 ? null : strings.getString(ref);
+    }
+
+    private int putString(String s){ return s == null ? 0 : strings.putString(utf8(s)); }
+
+    private static byte[] utf8(String s){ return s.getBytes(StandardCharsets.UTF_8); }
+
+    /** Open-addressing id -> record number table, kept at most half full. */
+    private final class Dictionary {
+        private final OffHeapMemory records;
+        private final int width, keyField;
+        private volatile ByteBuffer table = ByteBuffer.allocateDirect(1024 * 4); // record number + 1 per slot, 0 = empty
+        volatile int size;
+
+        Dictionary(OffHeapMemory records, int width, int keyField){
+            this.records = records; this.width = width; this.keyField = keyField;
+        }
+
+        int find(byte[] key){
+            ByteBuffer t = table;
+            int mask = t.capacity() / 4 - 1;
+            for(int i = OffHeapMemory.hash(key) & mask; ; i = (i + 1) & mask){
+                int v = t.getInt(i * 4);
+                if(v == 0) return -1;
+                if(strings.stringEquals(records.get((v - 1) * width + keyField), key)) return v - 1;
+            }
+        }
+
+        // write lock held and key absent
+        int add(byte[] key){
+            int n = size;
+            records.ensureCapacity((long) (n + 1) * width);
+            records.set(n * width + keyField, strings.putString(key));
+            ByteBuffer t = table;
+            if((n + 1) * 2 > t.capacity() / 4){
+                ByteBuffer grown = ByteBuffer.allocateDirect(t.capacity() * 2);
+                for(int i = 0; i < n; i++) insert(grown, i, strings.stringHash(records.get(i * width + keyField)));
+                t = grown;
+            }
+            insert(t, n, OffHeapMemory.hash(key));
+            table = t;
+            size = n + 1;
+            return n;
+        }
+
+        long tableBytes(){ return table.capacity(); }
+
+        private void insert(ByteBuffer t, int record, int hash){
+            int mask = t.capacity() / 4 - 1;
+            int i = hash & mask;
+            while(t.getInt(i * 4) != 0) i = (i + 1) & mask;
+            t.putInt(i * 4, record + 1);
+        }
+    }
+}
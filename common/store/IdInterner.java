@@ -0,0 +1,39 @@
+package common.store;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ Maps string identifiers (student ids, course codes) to dense int indexes so
+ stores can key entries by primitive ints instead of strings.
+ Lookups are lock-free; only first-time registration of an id synchronizes.
+*/
+public class IdInterner {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int size; // guarded by this
+
+    public int intern(String id){
+        Integer i = ids.get(id);
+        if(i != null) return i;
+        synchronized(this){
+            i = ids.get(id);
+            if(i != null) return i;
+            int idx = size;
+            if(idx == names.length) names = Arrays.copyOf(names, idx * 2);
+            names[idx] = id;
+            size = idx + 1;
+            ids.put(id, idx);
+            return idx;
+        }
+    }
+
+    // -1 if the id has never been interned
+    public int indexOf(String id){
+        Integer i = ids.get(id);
+        return i == null ? -1 : i;
+    }
+
+    public String nameOf(int index){ return names[index]; }
+    public int size(){ return ids.size(); }
+}
@@ -0,0 +1,108 @@
+package common.store;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/*
+ Growable off-heap memory made of 4 MB direct pages, addressed by 32-bit word
+ index (up to 8 GB). Blocks are bump-allocated and never straddle a page, so a
+ record, list segment or string is always contiguous. Words are read and written
+ through a byte-buffer VarHandle, which also gives atomic updates for counters
+ that change outside the owner's lock. Word 0 is never handed out, so 0 can mean
+ "none". Allocation is not thread-safe; the owner serializes it.
+*/
+final class OffHeapMemory {
+    static final int PAGE_SHIFT = 20;
+    static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+    private static final int OFFSET_MASK = PAGE_WORDS - 1;
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+    private int top; // next free word
+
+    OffHeapMemory(int reserved){ top = Math.max(1, reserved); }
+
+    /** Address of a new zeroed block of words (at most one page). */
+    int allocate(int words){
+        if(words <= 0 || words > PAGE_WORDS) throw new IllegalArgumentException("Block of " + words + " words");
+        int page = top >>> PAGE_SHIFT;
+        if((top & OFFSET_MASK) + words > PAGE_WORDS) page++; // would straddle: start on the next page
+        if(page >= 1 << (31 - PAGE_SHIFT)) throw new IllegalStateException("Off-heap store full");
+        if(page != top >>> PAGE_SHIFT) top = page << PAGE_SHIFT;
+        ensurePage(page);
+        int at = top;
+        top += words;
+        return at;
+    }
+
+    /** Makes words [0, end) addressable, for fixed-width record regions that compute their own addresses. */
+    void ensureCapacity(long end){
+        if(end > 1L << 31) throw new IllegalStateException("Off-heap store full");
+        if(end > 0) ensurePage((int) ((end - 1) >>> PAGE_SHIFT));
+    }
+
+    int get(int w){ return (int) INT.get(page(w), offset(w)); }
+    void set(int w, int v){ INT.set(page(w), offset(w), v); }
+    int getVolatile(int w){ return (int) INT.getVolatile(page(w), offset(w)); }
+    void setVolatile(int w, int v){ INT.setVolatile(page(w), offset(w), v); }
+    int getAndAdd(int w, int delta){ return (int) INT.getAndAdd(page(w), offset(w), delta); }
+
+    void clear(int w, int words){
+        ByteBuffer p = page(w);
+        for(int i = 0, at = offset(w); i < words; i++, at += 4) INT.set(p, at, 0);
+    }
+
+    // Strings: byte length in the first word, UTF-8 bytes from the next one on.
+
+    int putString(byte[] utf8){
+        int at = allocate(1 + (utf8.length + 3) / 4);
+        set(at, utf8.length);
+        page(at).put(offset(at) + 4, utf8);
+        return at;
+    }
+
+    String getString(int w){
+        byte[] b = new byte[get(w)];
+        page(w).get(offset(w) + 4, b);
+        return new String(b, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    boolean stringEquals(int w, byte[] utf8){
+        if(get(w) != utf8.length) return false;
+        ByteBuffer p = page(w);
+        for(int i = 0, at = offset(w) + 4; i < utf8.length; i++, at++){
+            if(p.get(at) != utf8[i]) return false;
+        }
+        return true;
+    }
+
+    int stringHash(int w){
+        ByteBuffer p = page(w);
+        int h = 0x811C9DC5;
+        for(int i = 0, n = get(w), at = offset(w) + 4; i < n; i++, at++) h = (h ^ (p.get(at) & 0xFF)) * 0x01000193;
+        return h;
+    }
+
+    static int hash(byte[] utf8){
+        int h = 0x811C9DC5;
+        for(byte b : utf8) h = (h ^ (b & 0xFF)) * 0x01000193;
+        return h;
+    }
+
+    long reservedBytes(){ return (long) pages.length * PAGE_WORDS * 4; }
+    long usedBytes(){ return (long) top * 4; }
+
+    private ByteBuffer page(int w){ return pages[w >>> PAGE_SHIFT]; }
+    private static int offset(int w){ return (w & OFFSET_MASK) << 2; }
+
+    private void ensurePage(int page){
+        ByteBuffer[] cur = pages;
+        if(page < cur.length) return;
+        ByteBuffer[] grown = Arrays.copyOf(cur, page + 1);
+        for(int i = cur.length; i <= page; i++) grown[i] = ByteBuffer.allocateDirect(PAGE_WORDS * 4).order(ByteOrder.nativeOrder());
+        pages = grown;
+    }
+}
@@ -0,0 +1,214 @@
+package common.store;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/*
+ Read-only archive of one closed academic term's final grades, memory-mapped
+ from disk. Layout (big-endian ints):
+   header    magic, version, closedAtMillis (long), term name offset,
+             student count, course count, record count, strings offset
+   students  per student {id offset, first record}, sorted by id bytes, plus
+             an end entry, so a student's records are [first(i), first(i+1))
+   courses   per course {code offset, credits}
+   records   per grade: course index << 3 | letter code, grouped by student
+   strings   length-prefixed UTF-8
+ Nothing is decoded when the file is opened. A lookup binary-searches the
+ student table and reads only that student's records, so an archived term
+ costs one mapping rather than objects on the heap, however large it is.
+*/
+public final class TermArchive {
+    private static final int MAGIC = 0x4E585441; // "NXTA"
+    private static final int VERSION = 1;
+    private static final int HEADER = 36;
+    private static final String LETTERS = "ABCDFP";
+
+    private final Path file;
+    private final MappedByteBuffer buf;
+    private final int students, courses, records;
+    private final int studentTable, courseTable, recordTable;
+    private final String term;
+    private final long closedAtMillis;
+
+    /** One final grade handed to write(). */
+    public static final class Record {
+        final String studentId, courseId, letter;
+        final int credits;
+        public Record(String studentId, String courseId, String letter, int credits){
+            this.studentId = studentId; this.courseId = courseId; this.letter = letter; this.credits = credits;
+        }
+        public String studentId(){ return studentId; }
+        public String courseId(){ return courseId; }
+    }
+
+    public interface RecordVisitor {
+        void accept(String courseId, String letter, int credits);
+    }
+
+    public interface GradeVisitor {
+        void accept(String studentId, String courseId, String letter, int credits);
+    }
+
+    private TermArchive(Path file, MappedByteBuffer buf){
+        this.file = file;
+        this.buf = buf;
+        if(buf.capacity() < HEADER || buf.getInt(0) != MAGIC) throw new IllegalArgumentException("Not a term archive: " + file);
+        if(buf.getInt(4) != VERSION) throw new IllegalArgumentException("Unsupported term archive version " + buf.getInt(4) + ": " + file);
+        closedAtMillis = buf.getLong(8);
+        students = buf.getInt(20);
+        courses = buf.getInt(24);
+        records = buf.getInt(28);
+        studentTable = HEADER;
+        courseTable = studentTable + (students + 1) * 8;
+        recordTable = courseTable + courses * 8;
+        term = string(buf.getInt(16));
+    }
+
+    /** Maps an archive written by write(); the file must not change afterwards. */
+    public static TermArchive open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new TermArchive(file, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        }
+    }
+
+    /** Writes the term's final grades (letters A-D, F, P) and maps the result. */
+    public static TermArchive write(Path file, String term, Collection<Record> grades) throws IOException {
+        List<Record> sorted = new ArrayList<>(grades);
+        Map<String, byte[]> utf8 = new HashMap<>();
+        for(Record r : sorted){
+            if(LETTERS.indexOf(r.letter) < 0 || r.letter.length() != 1) throw new IllegalArgumentException("Invalid grade letter: " + r.letter);
+            utf8.computeIfAbsent(r.studentId, k -> k.getBytes(StandardCharsets.UTF_8));
+            utf8.computeIfAbsent(r.courseId, k -> k.getBytes(StandardCharsets.UTF_8));
+        }
+        Comparator<String> byBytes = (a, b) -> Arrays.compareUnsigned(utf8.get(a), utf8.get(b));
+        sorted.sort(Comparator.comparing((Record r) -> r.studentId, byBytes).thenComparing(r -> r.courseId, byBytes));
+        TreeMap<String, Integer> credits = new TreeMap<>(byBytes);
+        for(Record r : sorted) credits.putIfAbsent(r.courseId, r.credits);
+        Map<String, Integer> courseIndex = new HashMap<>();
+        for(String c : credits.keySet()) courseIndex.put(c, courseIndex.size());
+
+        // string heap first, so every table can point into it
+        ByteArrayOutputStream heap = new ByteArrayOutputStream();
+        DataOutputStream strings = new DataOutputStream(heap);
+        Map<String, Integer> offsets = new HashMap<>();
+        List<String> studentOrder = new ArrayList<>();
+        for(Record r : sorted){
+            if(!offsets.containsKey(r.studentId)){
+                studentOrder.add(r.studentId);
+                offsets.put(r.studentId, putString(strings, r.studentId));
+            }
+        }
+        for(String c : credits.keySet()) offsets.putIfAbsent(c, putString(strings, c));
+        int termOffset = putString(strings, term);
+
+        long stringsAt = HEADER + (studentOrder.size() + 1) * 8L + credits.size() * 8L + sorted.size() * 4L;
+        if(stringsAt + heap.size() > Integer.MAX_VALUE) throw new IllegalArgumentException("Term too large for one archive: " + term);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt((int) stringsAt + termOffset);
+            out.writeInt(studentOrder.size());
+            out.writeInt(credits.size());
+            out.writeInt(sorted.size());
+            out.writeInt((int) stringsAt);
+            int first = 0;
+            for(String s : studentOrder){
+                out.writeInt((int) stringsAt + offsets.get(s));
+                out.writeInt(first);
+                while(first < sorted.size() && sorted.get(first).studentId.equals(s)) first++;
+            }
+            out.writeInt(0); // end entry: only its first record is read
+            out.writeInt(first);
+            for(Map.Entry<String, Integer> c : credits.entrySet()){
+                out.writeInt((int) stringsAt + offsets.get(c.getKey()));
+                out.writeInt(c.getValue());
+            }
+            for(Record r : sorted) out.writeInt(courseIndex.get(r.courseId) << 3 | (LETTERS.indexOf(r.letter) + 1));
+            heap.writeTo(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    public String term(){ return term; }
+    public long closedAtMillis(){ return closedAtMillis; }
+    public int studentCount(){ return students; }
+    public int recordCount(){ return records; }
+    public long sizeBytes(){ return buf.capacity(); }
+    public Path file(){ return file; }
+
+    /** Visits the student's grades in course order; false if the student has none in this term. */
+    public boolean forStudent(String studentId, RecordVisitor visitor){
+        int i = findStudent(studentId.getBytes(StandardCharsets.UTF_8));
+        if(i < 0) return false;
+        for(int r = first(i), end = first(i + 1); r < end; r++){
+            int rec = buf.getInt(recordTable + r * 4);
+            int course = courseTable + (rec >>> 3) * 8;
+            visitor.accept(string(buf.getInt(course)), String.valueOf(LETTERS.charAt((rec & 0x7) - 1)), buf.getInt(course + 4));
+        }
+        return true;
+    }
+
+    /** Visits every grade, grouped by student in id order. Course codes are decoded once. */
+    public void forEach(GradeVisitor visitor){
+        String[] codes = new String[courses];
+        for(int c = 0; c < courses; c++) codes[c] = string(buf.getInt(courseTable + c * 8));
+        String[] letters = new String[LETTERS.length() + 1];
+        for(int l = 1; l < letters.length; l++) letters[l] = String.valueOf(LETTERS.charAt(l - 1));
+        for(int i = 0; i < students; i++){
+            String studentId = string(buf.getInt(studentTable + i * 8));
+            for(int r = first(i), end = first(i + 1); r < end; r++){
+                int rec = buf.getInt(recordTable + r * 4);
+                int course = rec >>> 3;
+                visitor.accept(studentId, codes[course], letters[rec & 0x7], buf.getInt(courseTable + course * 8 + 4));
+            }
+        }
+    }
+
+    private int first(int student){ return buf.getInt(studentTable + student * 8 + 4); }
+
+    private int findStudent(byte[] id){
+        int lo = 0, hi = students - 1;
+        while(lo <= hi){
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(buf.getInt(studentTable + mid * 8), id);
+            if(cmp < 0) lo = mid + 1;
+            else if(cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    // compares the stored string at offset with key, unsigned bytewise, without decoding it
+    private int compare(int offset, byte[] key){
+        int len = buf.getShort(offset) & 0xFFFF;
+        for(int i = 0; i < len && i < key.length; i++){
+            int d = (buf.get(offset + 2 + i) & 0xFF) - (key[i] & 0xFF);
+            if(d != 0) return d;
+        }
+        return len - key.length;
+    }
+
+    private String string(int offset){
+        byte[] b = new byte[buf.getShort(offset) & 0xFFFF];
+        buf.get(offset + 2, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static int putString(DataOutputStream out, String s) throws IOException {
+        int at = out.size();
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if(b.length > 0xFFFF) throw new IllegalArgumentException("Identifier too long: " + s.substring(0, 32));
+        out.writeShort(b.length);
+        out.write(b);
+        return at;
+    }
+
+    @Override public String toString(){ return String.format("TermArchive[%s: %d grades, %d bytes]", term, records, sizeBytes()); }
+}
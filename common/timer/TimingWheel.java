@@ -0,0 +1,172 @@
+package common.timer;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ Hierarchical timing wheel (Varghese & Lauck) driven by one daemon thread.
+ Four levels of 64 slots. A slot on level L spans 64^L ticks, so with 10 ms
+ ticks the wheel covers about 46 hours; later deadlines park in the top level
+ and are re-placed as it turns. Scheduling and cancelling are O(1) no matter
+ how many timeouts are outstanding. Callers only enqueue; the wheel thread owns
+ the slot lists, links new timeouts in, unlinks cancelled ones and, when a
+ lower level wraps, cascades the next slot of the level above down toward
+ level 0. Tasks run on the wheel thread, so they must be short.
+*/
+public class TimingWheel {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long RANGE = 1L << (BITS * LEVELS); // ticks the wheel can place exactly
+
+    private static final int PENDING = 0, CANCELLED = 1, EXPIRED = 2;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout[][] heads = new Timeout[LEVELS][SLOTS]; // wheel thread only
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private long now; // last processed tick; wheel thread only
+    private volatile boolean stopped;
+
+    /** A scheduled task; cancel() wins only if the task has not started. */
+    public final class Timeout {
+        final Runnable task;
+        final long deadline; // in ticks
+        final AtomicInteger state = new AtomicInteger(PENDING);
+        Timeout prev, next;
+        int level = -1, slot;  // -1 while not linked into a slot
+
+        Timeout(Runnable task, long deadline){ this.task = task; this.deadline = deadline; }
+
+        public boolean cancel(){
+            if(!state.compareAndSet(PENDING, CANCELLED)) return false;
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isExpired(){ return state.get() == EXPIRED; }
+    }
+
+    public TimingWheel(String name, long tick, TimeUnit unit){
+        this.tickNanos = Math.max(1, unit.toNanos(tick));
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /** Runs the task once the delay has passed, rounded up to the next tick. */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit){
+        long ticks = (System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay)) + tickNanos - 1) / tickNanos;
+        Timeout t = new Timeout(task, ticks);
+        pending.incrementAndGet();
+        added.add(t);
+        return t;
+    }
+
+    /** Timeouts scheduled and neither run nor cancelled yet. */
+    public long pending(){ return pending.get(); }
+
+    public void stop(){
+        stopped = true;
+        LockSupport.unpark(worker);
+    }
+
+    private void run(){
+        while(!stopped){
+            long due = (System.nanoTime() - startNanos) / tickNanos;
+            drain();
+            while(now < due){
+                now++;
+                cascade();
+                expire();
+            }
+            long sleep = startNanos + (now + 1) * tickNanos - System.nanoTime();
+            if(sleep > 0) LockSupport.parkNanos(this, sleep);
+        }
+    }
+
+    private void drain(){
+        Timeout t;
+        while((t = cancelled.poll()) != null) unlink(t);
+        while((t = added.poll()) != null){
+            if(t.state.get() == PENDING) place(t);
+        }
+    }
+
+    // Slot for a deadline relative to the current tick; see the class comment.
+    private void place(Timeout t){
+        long at = t.deadline <= now ? now + 1 : Math.min(t.deadline, now + RANGE - 1);
+        long delta = at - now;
+        int level = 0;
+        while(delta >= 1L << (BITS * (level + 1))) level++;
+        link(t, level, (int) (at >>> (BITS * level)) & MASK);
+    }
+
+    // On the first tick of each lower-level turn, spread the next slot of the level above downward.
+    private void cascade(){
+        for(int level = 1; level < LEVELS; level++){
+            if((now & ((1L << (BITS * level)) - 1)) != 0) return;
+            int slot = (int) (now >>> (BITS * level)) & MASK;
+            Timeout t = heads[level][slot];
+            heads[level][slot] = null;
+            while(t != null){
+                Timeout next = t.next;
+                t.prev = t.next = null;
+                t.level = -1;
+                if(t.deadline <= now){
+                    link(t, 0, (int) now & MASK);
+                } else {
+                    place(t);
+                }
+                t = next;
+            }
+        }
+    }
+
+    private void expire(){
+        int slot = (int) now & MASK;
+        Timeout t = heads[0][slot];
+        heads[0][slot] = null;
+        while(t != null){
+            Timeout next = t.next;
+            t.prev = t.next = null;
+            t.level = -1;
+            if(t.state.compareAndSet(PENDING, EXPIRED)){
+                pending.decrementAndGet();
+                try {
+                    t.task.run();
+                } catch(RuntimeException e){
+                    System.out.println("[TimingWheel] task failed: " + e);
+                }
+            }
+            t = next;
+        }
+    }
+
+    private void link(Timeout t, int level, int slot){
+        t.level = level;
+        t.slot = slot;
+        t.next = heads[level][slot];
+        if(t.next != null) t.next.prev = t;
+        heads[level][slot] = t;
+    }
+
+    private void unlink(Timeout t){
+        if(t.level < 0) return; // still queued in added, or already run
+        if(t.prev != null) t.prev.next = t.next;
+        else heads[t.level][t.slot] = t.next;
+        if(t.next != null) t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.level = -1;
+    }
+}
@@ -0,0 +1,53 @@
+package common.trace;
+
+import java.util.*;
+
+/*
+ One timed operation in a trace. Spans are created through Tracer.start/startServer
+ and must be ended on the thread that started them; end() restores the parent as
+ the thread's current span. Unsampled work gets Span.NOOP, which ignores everything.
+*/
+public class Span {
+    static final Span NOOP = new Span(null, null, null, null, null, null);
+
+    final String traceId, id, parentId, name, kind, service;
+    final Span parent;
+    final long startMicros, startNanos;
+    long durationNanos;
+    private Map<String, String> tags;
+
+    Span(Span parent, String traceId, String parentId, String name, String kind, String service){
+        this.parent = parent;
+        this.traceId = traceId;
+        this.id = traceId == null ? null : Tracer.newId();
+        this.parentId = parentId;
+        this.name = name;
+        this.kind = kind;
+        this.service = service;
+        this.startNanos = traceId == null ? 0 : System.nanoTime();
+        this.startMicros = traceId == null ? 0 : Tracer.EPOCH_MICROS + (startNanos - Tracer.EPOCH_NANOS) / 1000;
+    }
+
+    public boolean isSampled(){ return this != NOOP; }
+
+    public Span tag(String key, Object value){
+        if(this == NOOP) return this;
+        if(tags == null) tags = new LinkedHashMap<>(4);
+        tags.put(key, String.valueOf(value));
+        return this;
+    }
+
+    Map<String, String> tags(){ return tags == null ? Collections.emptyMap() : tags; }
+
+    /** W3C trace context header value for this span, or null when unsampled. */
+    public String traceparent(){
+        return this == NOOP ? null : "00-" + traceId + "-" + id + "-01";
+    }
+
+    /** Idempotent: only the first call records the span. */
+    public void end(){
+        if(this == NOOP || durationNanos != 0) return;
+        durationNanos = Math.max(1, System.nanoTime() - startNanos);
+        Tracer.finish(this);
+    }
+}
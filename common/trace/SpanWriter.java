@@ -0,0 +1,85 @@
+package common.trace;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ Writes finished spans on a daemon thread so request threads never touch the file.
+ The queue is bounded; when the writer falls behind new spans are dropped and
+ counted rather than slowing the traced code down.
+*/
+final class SpanWriter implements Runnable {
+    private static final int CAPACITY = 8192;
+    private final BlockingQueue<Span> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final String path;
+    private volatile long dropped;
+
+    SpanWriter(String path){
+        this.path = path;
+        Thread t = new Thread(this, "span-writer");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    void offer(Span s){
+        if(!queue.offer(s)) dropped++; // racy count is fine, it is only reported
+    }
+
+    @Override
+    public void run(){
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path, true), StandardCharsets.UTF_8))) {
+            List<Span> batch = new ArrayList<>(256);
+            long reported = 0;
+            while(true){
+                Span first = queue.poll(1, TimeUnit.SECONDS);
+                if(first == null){
+                    out.flush();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, 255);
+                for(Span s : batch) out.write(toJson(s) + "\n");
+                batch.clear();
+                if(dropped != reported){
+                    reported = dropped;
+                    System.out.println("[Tracer] span queue full, " + reported + " spans dropped so far");
+                }
+            }
+        } catch(IOException e){
+            System.out.println("[Tracer] cannot write spans to " + path + ": " + e.getMessage());
+        } catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Zipkin v2 span model
+    static String toJson(Span s){
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"traceId\":\"").append(s.traceId).append("\",\"id\":\"").append(s.id).append('"');
+        if(s.parentId != null) sb.append(",\"parentId\":\"").append(s.parentId).append('"');
+        sb.append(",\"name\":\"").append(escape(s.name)).append('"');
+        if(s.kind != null) sb.append(",\"kind\":\"").append(s.kind).append('"');
+        sb.append(",\"timestamp\":").append(s.startMicros)
+          .append(",\"duration\":").append(Math.max(1, s.durationNanos / 1000))
+          .append(",\"localEndpoint\":{\"serviceName\":\"").append(escape(s.service)).append("\"}");
+        Map<String, String> tags = s.tags();
+        if(!tags.isEmpty()){
+            sb.append(",\"tags\":{");
+            boolean first = true;
+            for(Map.Entry<String, String> t : tags.entrySet()){
+                if(!first) sb.append(',');
+                first = false;
+                sb.append('"').append(escape(t.getKey())).append("\":\"").append(escape(t.getValue())).append('"');
+            }
+            sb.append('}');
+        }
+        return sb.append('}').toString();
+    }
+
+    private static String escape(String v){
+        if(v == null) return "";
+        return v.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -0,0 +1,47 @@
+package common.trace;
+
+import com.sun.net.httpserver.*;
+import java.io.IOException;
+
+/*
+ HttpServer filter that opens the root span of each request around router
+ dispatch. It continues the caller's trace from the traceparent header and echoes
+ the context back on the response so clients can find the trace.
+*/
+public class TraceFilter extends Filter {
+    private final String service;
+
+    public TraceFilter(String service){ this.service = service; }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if(!Tracer.enabled()){
+            chain.doFilter(exchange);
+            return;
+        }
+        String route = exchange.getHttpContext().getPath();
+        Span span = Tracer.startServer(service, exchange.getRequestMethod() + " " + route,
+            exchange.getRequestHeaders().getFirst(Tracer.HEADER));
+        if(!span.isSampled()){
+            chain.doFilter(exchange);
+            return;
+        }
+        exchange.getResponseHeaders().set(Tracer.HEADER, span.traceparent());
+        span.tag("http.method", exchange.getRequestMethod()).tag("http.path", exchange.getRequestURI().getPath());
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            span.tag("http.status_code", exchange.getResponseCode());
+            span.end();
+        }
+    }
+
+    @Override
+    public String description(){ return "Opens a trace span per request"; }
+
+    /** Adds a TraceFilter to every context in contexts. */
+    public static void install(String service, HttpContext... contexts){
+        TraceFilter f = new TraceFilter(service);
+        for(HttpContext c : contexts) c.getFilters().add(f);
+    }
+}
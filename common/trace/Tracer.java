@@ -0,0 +1,112 @@
+package common.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ Lightweight in-process tracing shared by all services.
+   -Dnexus.trace.sample=<0..1>   fraction of incoming requests to trace (unset = tracing off)
+   -Dnexus.trace.file=<path>     span output, Zipkin v2 JSON, one span per line (default traces.jsonl)
+ Root spans are opened by TraceFilter around router dispatch; code on the request
+ thread opens child spans with
+     Span sp = Tracer.start("validate");
+     try { ... } finally { sp.end(); }
+ With tracing off every call returns Span.NOOP after one static final check, so
+ the instrumented hot paths pay next to nothing. Upstream decisions carried in a
+ traceparent header (W3C trace context) are honoured even at sample rate 0.
+*/
+public final class Tracer {
+    public static final String HEADER = "traceparent";
+    static final String PAYLOAD_MARKER = " traceparent=";
+
+    static final boolean ENABLED = System.getProperty("nexus.trace.sample") != null;
+    private static final double SAMPLE_RATE = ENABLED ? Double.parseDouble(System.getProperty("nexus.trace.sample")) : 0;
+    // wall clock anchor so span timestamps get nanoTime resolution
+    static final long EPOCH_NANOS = System.nanoTime();
+    static final long EPOCH_MICROS = System.currentTimeMillis() * 1000;
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static volatile SpanWriter writer;
+
+    private Tracer(){}
+
+    public static boolean enabled(){ return ENABLED; }
+
+    /** Child of the thread's current span; NOOP when the thread is not inside a sampled trace. */
+    public static Span start(String name){
+        if(!ENABLED) return Span.NOOP;
+        Span parent = CURRENT.get();
+        if(parent == null) return Span.NOOP;
+        return open(new Span(parent, parent.traceId, parent.id, name, null, parent.service));
+    }
+
+    /** Same as start(prefix + suffix), without building the name when nothing is traced. */
+    public static Span start(String prefix, String suffix){
+        if(!ENABLED || CURRENT.get() == null) return Span.NOOP;
+        return start(prefix + suffix);
+    }
+
+    /**
+     Entry span for work arriving from outside (an HTTP request, a delivered event).
+     traceparent is the caller's header value or null; a new trace is sampled at the
+     configured rate when there is none.
+    */
+    public static Span startServer(String service, String name, String traceparent){
+        if(!ENABLED) return Span.NOOP;
+        String traceId = null, parentId = null;
+        if(traceparent != null){
+            String[] parts = traceparent.trim().split("-");
+            if(parts.length == 4 && parts[1].length() == 32 && parts[2].length() == 16){
+                if(!parts[3].endsWith("1")) return Span.NOOP; // upstream decided not to sample
+                traceId = parts[1];
+                parentId = parts[2];
+            }
+        }
+        if(traceId == null){
+            if(SAMPLE_RATE <= 0 || ThreadLocalRandom.current().nextDouble() >= SAMPLE_RATE) return Span.NOOP;
+            traceId = newId() + newId();
+        }
+        return open(new Span(CURRENT.get(), traceId, parentId, name, "SERVER", service));
+    }
+
+    public static Span current(){
+        if(!ENABLED) return Span.NOOP;
+        Span s = CURRENT.get();
+        return s == null ? Span.NOOP : s;
+    }
+
+    /** Appends the current trace context to an event payload (unchanged when unsampled). */
+    public static String inject(String message){
+        if(!ENABLED) return message;
+        Span s = CURRENT.get();
+        return s == null ? message : message + PAYLOAD_MARKER + s.traceparent();
+    }
+
+    /** Index where an injected trace context starts in message, or -1. */
+    public static int payloadContextAt(String message){
+        return ENABLED ? message.lastIndexOf(PAYLOAD_MARKER) : -1;
+    }
+
+    public static String payloadContext(String message, int at){
+        return message.substring(at + PAYLOAD_MARKER.length());
+    }
+
+    private static Span open(Span s){
+        CURRENT.set(s);
+        return s;
+    }
+
+    static void finish(Span s){
+        if(CURRENT.get() == s) CURRENT.set(s.parent);
+        SpanWriter w = writer;
+        if(w == null){
+            synchronized(Tracer.class){
+                if(writer == null) writer = new SpanWriter(System.getProperty("nexus.trace.file", "traces.jsonl"));
+                w = writer;
+            }
+        }
+        w.offer(s);
+    }
+
+    static String newId(){
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+}
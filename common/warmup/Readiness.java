@@ -0,0 +1,49 @@
+package common.warmup;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ Readiness of one service, separate from liveness: the process is live once its
+ HttpServer answers, but ready only when every startup phase (data load, JIT
+ warm-up) has been marked done. Load balancers should route on readiness,
+ orchestrators restart on liveness.
+*/
+public final class Readiness {
+    public static final String DATA = "data";
+    public static final String WARMUP = "warmup";
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> details = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long readyAfterMillis = -1;
+
+    public Readiness(String... phases){ pending.addAll(Arrays.asList(phases)); }
+
+    public void done(String phase){
+        if(pending.remove(phase) && pending.isEmpty()){
+            readyAfterMillis = System.currentTimeMillis() - startedAt;
+            System.out.println("[Readiness] ready after " + readyAfterMillis + " ms");
+        }
+    }
+
+    /** A JSON value (object or literal) reported under the phase's name. */
+    public void detail(String phase, String json){ details.put(phase, json); }
+
+    public boolean isReady(){ return pending.isEmpty(); }
+
+    public String json(String service, int port){
+        StringBuilder json = new StringBuilder();
+        json.append("{\"status\":\"").append(isReady() ? "READY" : "NOT_READY").append("\",");
+        json.append("\"service\":\"").append(service).append("\",\"port\":").append(port).append(",");
+        json.append("\"pending\":[");
+        int i = 0;
+        for(String p : new TreeSet<>(pending)) json.append(i++ > 0 ? "," : "").append("\"").append(p).append("\"");
+        json.append("]");
+        if(readyAfterMillis >= 0) json.append(",\"readyAfterMillis\":").append(readyAfterMillis);
+        for(Map.Entry<String, String> d : new TreeMap<>(details).entrySet()){
+            json.append(",\"").append(d.getKey()).append("\":").append(d.getValue());
+        }
+        return json.append("}").toString();
+    }
+}
@@ -0,0 +1,94 @@
+package common.warmup;
+
+import common.log.Log;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/*
+ JIT warm-up before a service reports ready. A Workload drives the service's hot
+ paths (enrollment, rosters, grades, reports) against its own synthetic dataset,
+ round after round, until compilation settles: the JIT time added per round
+ (CompilationMXBean) has stayed under SETTLED_RATIO of the round's wall time for
+ SETTLED_ROUNDS rounds in a row. -Dnexus.warmup.max (seconds, default 30) caps
+ it for a JIT that never settles or cannot be measured; -Dnexus.warmup=off
+ skips it, and the service is ready as soon as its data is loaded.
+ The warm-up runs on its own thread once the server is bound, so liveness
+ answers throughout. Model code logs every operation through common.log.Log,
+ which the warm-up thread mutes for itself only.
+*/
+public final class WarmUp {
+    public static final String PROPERTY = "nexus.warmup";
+    public static final String MAX_PROPERTY = "nexus.warmup.max";
+    static final double SETTLED_RATIO = 0.02;
+    static final int SETTLED_ROUNDS = 3;
+    static final int MIN_ROUNDS = 10;
+
+    /** The hot paths of one service; built and run on the warm-up thread. */
+    public interface Workload {
+        void round(int round) throws Exception;
+        default void close(){}
+    }
+
+    private final String service;
+    private final Supplier<Workload> factory;
+    private final Readiness readiness;
+    private final long maxMillis;
+
+    private WarmUp(String service, Supplier<Workload> factory, Readiness readiness, long maxMillis){
+        this.service = service; this.factory = factory; this.readiness = readiness; this.maxMillis = maxMillis;
+    }
+
+    /** Starts the warm-up thread, or marks the phase done at once when warm-up is off. */
+    public static void start(String service, Supplier<Workload> workload, Readiness readiness){
+        String mode = System.getProperty(PROPERTY, "on");
+        if("off".equals(mode)){
+            readiness.detail(Readiness.WARMUP, "{\"state\":\"off\"}");
+            readiness.done(Readiness.WARMUP);
+            return;
+        }
+        if(!"on".equals(mode)) throw new IllegalArgumentException(PROPERTY + " must be on or off, got " + mode);
+        long max = Long.parseLong(System.getProperty(MAX_PROPERTY, "30")) * 1000;
+        readiness.detail(Readiness.WARMUP, "{\"state\":\"running\"}");
+        Thread t = new Thread(new WarmUp(service, workload, readiness, max)::run, service + "-warmup");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void run(){
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean measured = jit != null && jit.isCompilationTimeMonitoringSupported();
+        Log.mute(true);
+        long start = System.nanoTime();
+        long jitStart = measured ? jit.getTotalCompilationTime() : 0;
+        int rounds = 0, settled = 0;
+        String outcome;
+        Workload workload = null;
+        try {
+            workload = factory.get();
+            while(true){
+                long roundStart = System.nanoTime();
+                long jitBefore = measured ? jit.getTotalCompilationTime() : 0;
+                workload.round(rounds++);
+                long wallMillis = Math.max(1, (System.nanoTime() - roundStart) / 1_000_000);
+                long jitMillis = measured ? jit.getTotalCompilationTime() - jitBefore : wallMillis;
+                settled = jitMillis < wallMillis * SETTLED_RATIO ? settled + 1 : 0;
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                if(rounds >= MIN_ROUNDS && settled >= SETTLED_ROUNDS){ outcome = "settled"; break; }
+                if(elapsed >= maxMillis){ outcome = measured ? "time cap" : "time cap (JIT time not measurable)"; break; }
+                readiness.detail(Readiness.WARMUP, String.format("{\"state\":\"running\",\"rounds\":%d,\"elapsedMillis\":%d}", rounds, elapsed));
+            }
+        } catch(Exception | LinkageError e){
+            outcome = "failed: " + e; // a broken warm-up must not keep the service out of rotation
+        } finally {
+            if(workload != null) workload.close();
+            Log.mute(false);
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        long jitMillis = measured ? jit.getTotalCompilationTime() - jitStart : -1;
+        readiness.detail(Readiness.WARMUP, String.format("{\"state\":\"done\",\"outcome\":\"%s\",\"rounds\":%d,\"elapsedMillis\":%d,\"jitMillis\":%d}",
+            outcome.replace("\"", "'"), rounds, elapsed, jitMillis));
+        System.out.println("[WarmUp] " + service + ": " + outcome + " after " + rounds + " rounds, " + elapsed + " ms, JIT " + jitMillis + " ms");
+        readiness.done(Readiness.WARMUP);
+    }
+}
@@ -0,0 +1,166 @@
+package export;
+
+import common.export.ColumnarReader;
+import common.export.ColumnarWriter;
+import common.models.*;
+import common.store.TermArchive;
+import faculty.GradeStore;
+import faculty.TermExporter;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/*
+ Offline side of the columnar export (faculty.TermExporter, GET /terms/{term}/export).
+   archive <term.nxta> <out.nxcf> [--tables t1,t2]   export an archived term file directly
+   synthetic <students>:<courses> <out.nxcf> [--per-student 5] [--csv out.csv]
+                                                      build a graded synthetic term and export it;
+                                                      --csv also writes the same rows as CSV to compare
+   inspect <file.nxcf>                                tables, row groups and per-column statistics
+   csv <file.nxcf> <table>                            decode one table to CSV on stdout
+*/
+public class ExportTool {
+    public static void main(String[] args) throws Exception {
+        if(args.length < 2){
+            System.err.println("usage: ExportTool archive <term.nxta> <out.nxcf> [--tables t1,t2]");
+            System.err.println("       ExportTool synthetic <students>:<courses> <out.nxcf> [--per-student 5] [--csv out.csv]");
+            System.err.println("       ExportTool inspect <file.nxcf>");
+            System.err.println("       ExportTool csv <file.nxcf> <table>");
+            System.exit(2);
+        }
+        Map<String, String> opts = new HashMap<>();
+        for(int i = 0; i + 1 < args.length; i++){
+            if(args[i].startsWith("--")) opts.put(args[i].substring(2), args[++i]);
+        }
+        switch(args[0]){
+            case "archive": exportArchive(Paths.get(args[1]), Paths.get(args[2]), opts); break;
+            case "synthetic": exportSynthetic(args[1], Paths.get(args[2]), opts); break;
+            case "inspect": inspect(Paths.get(args[1])); break;
+            case "csv":
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16)) {
+                    writeCsv(Paths.get(args[1]), args[2], out);
+                }
+                break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+        }
+    }
+
+    private static void exportArchive(Path in, Path out, Map<String, String> opts) throws IOException {
+        TermArchive archive = TermArchive.open(in);
+        long start = System.nanoTime();
+        Map<String, Long> rows;
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16)) {
+            rows = TermExporter.exportArchive(archive, Collections.emptyMap(), TermExporter.parseTables(opts.get("tables")), os);
+        }
+        report(out, rows, start);
+    }
+
+    private static void exportSynthetic(String sizes, Path out, Map<String, String> opts) throws IOException {
+        String[] sc = sizes.split(":");
+        int studentCount = Integer.parseInt(sc[0]), courseCount = Integer.parseInt(sc[1]);
+        int perStudent = Integer.parseInt(opts.getOrDefault("per-student", "5"));
+        Map<String, Student> students = new HashMap<>();
+        Map<String, Course> courses = new HashMap<>();
+        SyntheticCatalog.populate(students, courses, studentCount, courseCount, SyntheticCatalog.DEFAULT_SEED);
+        GradeStore grades = new GradeStore();
+        Random rnd = new Random(SyntheticCatalog.DEFAULT_SEED);
+        String letters = "ABCDF";
+        for(int i = 0; i < studentCount; i++){
+            Student s = students.get(SyntheticCatalog.studentId(i));
+            for(int k = 0; k < perStudent; k++){
+                Course c = courses.get(SyntheticCatalog.courseId(rnd.nextInt(courseCount)));
+                if(s.getEnrollments().stream().anyMatch(e -> e.getCourse() == c)) continue;
+                Enrollment e = new Enrollment(s, c);
+                c.addEnrollment(e);
+                s.addEnrollment(e);
+                grades.submit(s.getId(), c.getCode(), String.valueOf(letters.charAt(rnd.nextInt(letters.length()))));
+                if(rnd.nextInt(10) != 0) grades.approve(s.getId(), c.getCode()); // a tenth stays Submitted
+            }
+        }
+        System.out.println("Synthetic term: " + studentCount + " students, " + courseCount + " courses, " + grades.size() + " grades");
+        long start = System.nanoTime();
+        Map<String, Long> rows;
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(out), 1 << 16)) {
+            rows = TermExporter.exportOpen("SYNTHETIC", courses, grades, TermExporter.parseTables(opts.get("tables")), os);
+        }
+        report(out, rows, start);
+        if(opts.containsKey("csv")){
+            Path csv = Paths.get(opts.get("csv"));
+            start = System.nanoTime();
+            try (Writer w = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+                for(String table : rows.keySet()) writeCsv(out, table, w);
+            }
+            System.out.printf("CSV of the same rows: %,d bytes in %d ms (columnar is %.1f%% of it)%n", Files.size(csv),
+                (System.nanoTime() - start) / 1_000_000, 100.0 * Files.size(out) / Files.size(csv));
+        }
+    }
+
+    private static void report(Path out, Map<String, Long> rows, long startNanos) throws IOException {
+        System.out.printf("Wrote %s: %s, %,d bytes in %d ms%n", out, rows, Files.size(out), (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private static void inspect(Path file) throws IOException {
+        try (ColumnarReader r = ColumnarReader.open(file)) {
+            System.out.printf("%s: %,d bytes, %d tables%n", file, Files.size(file), r.tables().size());
+            for(ColumnarReader.TableInfo t : r.tables()){
+                System.out.printf("%n%s: %,d rows in %d row groups%n", t.name, t.rows(), t.rowGroups());
+                System.out.printf("  %-12s %-6s %12s %12s %8s %9s  %s%n", "column", "type", "stored", "raw", "nulls", "distinct", "min .. max");
+                for(int c = 0; c < t.columns.size(); c++){
+                    long stored = 0, raw = 0, nulls = 0;
+                    int distinct = 0;
+                    Comparable<Object> min = null, max = null;
+                    for(ColumnarReader.ChunkInfo k : t.chunks(c)){
+                        stored += k.storedBytes;
+                        raw += k.rawBytes;
+                        nulls += k.nulls;
+                        distinct = Math.max(distinct, k.distinct); // per-chunk dictionaries: the largest one
+                        min = pick(min, k.min, -1);
+                        max = pick(max, k.max, 1);
+                    }
+                    ColumnarWriter.Column col = t.columns.get(c);
+                    System.out.printf("  %-12s %-6s %12s %12s %8d %9d  %s .. %s%n", col.name, col.type,
+                        String.format("%,d", stored), String.format("%,d", raw), nulls, distinct, min, max);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> pick(Comparable<Object> cur, Object candidate, int sign){
+        if(candidate == null) return cur;
+        if(cur == null || Integer.signum(((Comparable<Object>) candidate).compareTo(cur)) == sign) return (Comparable<Object>) candidate;
+        return cur;
+    }
+
+    private static void writeCsv(Path file, String table, Writer out) throws IOException {
+        try (ColumnarReader r = ColumnarReader.open(file)) {
+            ColumnarReader.TableInfo t = r.table(table);
+            if(t == null) throw new IllegalArgumentException("No table " + table + " in " + file);
+            int n = t.columns.size();
+            boolean[] strings = new boolean[n];
+            for(int c = 0; c < n; c++){
+                strings[c] = t.columns.get(c).type == ColumnarWriter.Type.STRING;
+                out.write(c == 0 ? "" : ",");
+                out.write(t.columns.get(c).name);
+            }
+            out.write('\n');
+            r.scan(table, row -> {
+                for(int c = 0; c < n; c++){
+                    if(c > 0) out.write(',');
+                    if(!strings[c]) out.write(Integer.toString(row.integer(c)));
+                    else if(!row.isNull(c)) out.write(csvField(row.string(c)));
+                }
+                out.write('\n');
+            });
+            out.flush();
+        }
+    }
+
+    private static String csvField(String s){
+        if(s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
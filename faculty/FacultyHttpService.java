@@ -3,33 +3,61 @@ package faculty;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import common.json.JsonFields;
 import common.models.*;
+import common.store.CompactModelStore;
+import common.store.TermArchive;
+import common.trace.TraceFilter;
+import common.warmup.Readiness;
+import common.warmup.WarmUp;
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.Map;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Set;
 
 /**
  * Faculty Service as a proper HTTP microservice
  * Endpoints:
  * GET /courses/{courseId}/roster - view course roster
  * POST /courses/{courseId}/grades - submit grades
- * GET /health - health check
+ * GET /courses/{courseId}/grades - list grades with the course grade version
+ * POST /courses/{courseId}/grades/approve - finalize all submitted grades of a course
+ * GET /courses/{courseId}/grades/summary - final grade histogram and mean
+ * POST /departments/{department}/grades/approve - finalize all submitted grades of a department
+ * GET /students/{studentId}/transcript - final grades of every term, cumulative GPA and completed credits
+ * GET /terms - the open term and the archived ones (TermManager)
+ * POST /terms/close - archive the open term and start the next one
+ *     Body: {"next":"2027-SPRING","force":false}
+ * GET /terms/{term}/export[?tables=courses,enrollments,grades] - columnar binary export of a term (TermExporter)
+ * GET /health - health check (always 200 once bound, with a ready flag)
+ * GET /health/live - liveness: 200 while the process serves requests
+ * GET /health/ready - readiness: 503 until data load and JIT warm-up (WarmUp) have finished
  */
 public class FacultyHttpService {
     private static final int PORT = 8082;
     private HttpServer server;
     
-    // In-memory data store for demo purposes
-    private final Map<String, Student> students = new ConcurrentHashMap<>();
-    private final Map<String, Course> courses = new ConcurrentHashMap<>();
-    private final Map<String, Grade> grades = new ConcurrentHashMap<>();
+    // In-memory data store for demo purposes (off-heap records with -Dnexus.store=offheap)
+    private final CompactModelStore store = CompactModelStore.fromProperty();
+    private final Map<String, Student> students = store != null ? store.students() : new ConcurrentHashMap<>();
+    private final Map<String, Course> courses = store != null ? store.courses() : new ConcurrentHashMap<>();
+    private final Readiness readiness = new Readiness(Readiness.DATA, Readiness.WARMUP);
+    private final TermManager terms = new TermManager(students, courses);
     
     public FacultyHttpService() {
         initializeSampleData();
+        SyntheticCatalog.populateFromProperty(students, courses);
+        if (store != null) System.out.println("Model store: " + store);
+        terms.restoreCompletions();
+
+        readiness.done(Readiness.DATA);
     }
     
     private void initializeSampleData() {
@@ -66,17 +94,27 @@ public class FacultyHttpService {
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
         
         // Define endpoints
-        server.createContext("/courses", new CourseHandler());
-        server.createContext("/health", new HealthHandler());
+        TraceFilter.install("faculty-service", server.createContext("/courses", new CourseHandler()));
+        TraceFilter.install("faculty-service", server.createContext("/departments", new DepartmentHandler()));
+        TraceFilter.install("faculty-service", server.createContext("/students", new TranscriptHandler()));
+        TraceFilter.install("faculty-service", server.createContext("/terms", new TermHandler()));
+        TraceFilter.install("faculty-service", server.createContext("/health", new HealthHandler()));
         
         server.setExecutor(Executors.newFixedThreadPool(10));
         server.start();
+        WarmUp.start("faculty", GradeWarmUp::new, readiness);
         
         System.out.println("Faculty Service started on port " + PORT);
         System.out.println("Available endpoints:");
         System.out.println("  GET /courses/{courseId}/roster - view course roster");
         System.out.println("  POST /courses/{courseId}/grades - submit grades");
-        System.out.println("  GET /health - health check");
+        System.out.println("  GET /courses/{courseId}/grades - list grades");
+        System.out.println("  POST /courses/{courseId}/grades/approve - finalize course grades");
+        System.out.println("  GET /courses/{courseId}/grades/summary - grade distribution");
+        System.out.println("  POST /departments/{department}/grades/approve - finalize department grades");
+        System.out.println("  GET /students/{studentId}/transcript - transcript and GPA");
+        System.out.println("  GET /terms, POST /terms/close - term partitions and archival");
+        System.out.println("  GET /health, /health/live, /health/ready - health, liveness and readiness");
     }
     
     public void stop() {
@@ -95,6 +133,12 @@ public class FacultyHttpService {
             try {
                 if ("GET".equals(method) && path.contains("/roster")) {
                     handleRosterView(exchange, path);
+                } else if ("GET".equals(method) && path.endsWith("/grades/summary")) {
+                    handleGradeSummary(exchange, path);
+                } else if ("GET".equals(method) && path.endsWith("/grades")) {
+                    handleGradeListing(exchange, path);
+                } else if ("POST".equals(method) && path.endsWith("/grades/approve")) {
+                    handleCourseApproval(exchange, path);
                 } else if ("POST".equals(method) && path.contains("/grades")) {
                     handleGradeSubmission(exchange, path);
                 } else {
@@ -122,22 +166,7 @@ public class FacultyHttpService {
                 return;
             }
             
-            StringBuilder rosterJson = new StringBuilder();
-            rosterJson.append("{\"courseId\":\"").append(courseId).append("\",");
-            rosterJson.append("\"courseName\":\"").append(course.getName()).append("\",");
-            rosterJson.append("\"students\":[");
-            
-            List<Enrollment> roster = course.getRoster();
-            for (int i = 0; i < roster.size(); i++) {
-                if (i > 0) rosterJson.append(",");
-                Student student = roster.get(i).getStudent();
-                rosterJson.append("{\"id\":\"").append(student.getId()).append("\",");
-                rosterJson.append("\"name\":\"").append(student.getName()).append("\"}");
-            }
-            
-            rosterJson.append("]}");
-            
-            sendResponse(exchange, 200, rosterJson.toString());
+            sendResponse(exchange, 200, rosterJson(course));
         }
         
         private void handleGradeSubmission(HttpExchange exchange, String path) throws IOException {
@@ -177,13 +206,14 @@ public class FacultyHttpService {
                     throw new RuntimeException("Invalid grade letter: " + gradeData.grade);
                 }
                 
-                // Create and submit grade
-                Grade grade = new Grade(student, course);
-                grade.setLetter(gradeData.grade);
-                grade.submit(); // Uses State pattern
-                
-                String gradeKey = student.getId() + "-" + course.getCode();
-                grades.put(gradeKey, grade);
+                // Submit grade through the open term's compact store (State pattern transition table)
+                if (!terms.write(g -> g.submit(student.getId(), course.getCode(), gradeData.grade))) {
+                    String response = String.format(
+                        "{\"success\":false,\"message\":\"Grade for student %s in course %s is already final\"}",
+                        gradeData.studentId, courseId);
+                    sendResponse(exchange, 409, response);
+                    return;
+                }
                 
                 String response = String.format(
                     "{\"success\":true,\"message\":\"Grade %s submitted for student %s in course %s\"}",
@@ -199,6 +229,95 @@ public class FacultyHttpService {
             }
         }
         
+        private void handleGradeListing(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /courses/{courseId}/grades
+            String[] parts = path.split("/");
+            String courseId = parts[2];
+            if (!courses.containsKey(courseId)) {
+                sendResponse(exchange, 404, "Course not found: " + courseId);
+                return;
+            }
+            
+            // Version first: a grade changed during the scan makes the snapshot stale, never silently newer
+            GradeStore grades = terms.grades();
+            int version = grades.courseVersion(courseId);
+            StringBuilder json = new StringBuilder();
+            json.append("{\"courseId\":\"").append(courseId).append("\",");
+            json.append("\"version\":").append(version).append(",");
+            json.append("\"grades\":[");
+            int[] count = {0};
+            grades.forEachInCourse(courseId, (studentId, cell) -> {
+                if (count[0]++ > 0) json.append(",");
+                json.append("{\"studentId\":\"").append(studentId).append("\",");
+                json.append("\"grade\":\"").append(GradeStore.letter(cell)).append("\",");
+                json.append("\"state\":\"").append(GradeStore.stateOf(cell).getName()).append("\"}");
+            });
+            json.append("]}");
+            
+            sendResponse(exchange, 200, json.toString());
+        }
+        
+        private void handleGradeSummary(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /courses/{courseId}/grades/summary
+            String[] parts = path.split("/");
+            String courseId = parts[2];
+            if (!courses.containsKey(courseId)) {
+                sendResponse(exchange, 404, "Course not found: " + courseId);
+                return;
+            }
+            
+            TranscriptAggregator transcripts = terms.transcripts();
+            TranscriptAggregator.CourseTotals totals = transcripts.course(courseId);
+            String letters = TranscriptAggregator.CourseTotals.letters();
+            StringBuilder json = new StringBuilder();
+            json.append("{\"courseId\":\"").append(courseId).append("\",");
+            json.append("\"term\":\"").append(transcripts.term()).append("\",");
+            json.append("\"finalGrades\":").append(totals == null ? 0 : totals.total()).append(",");
+            json.append("\"mean\":").append(String.format("%.2f", totals == null ? 0.0 : totals.getMean())).append(",");
+            json.append("\"histogram\":{");
+            for (int i = 0; i < letters.length(); i++) {
+                String letter = String.valueOf(letters.charAt(i));
+                if (i > 0) json.append(",");
+                json.append("\"").append(letter).append("\":").append(totals == null ? 0 : totals.count(letter));
+            }
+            json.append("}}");
+            
+            sendResponse(exchange, 200, json.toString());
+        }
+        
+        private void handleCourseApproval(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /courses/{courseId}/grades/approve
+            String[] parts = path.split("/");
+            String courseId = parts[2];
+            if (!courses.containsKey(courseId)) {
+                sendResponse(exchange, 404, "Course not found: " + courseId);
+                return;
+            }
+            
+            // Optional body {"expectedVersion":N} pins the approval to a snapshot from GET .../grades
+            Integer expected = JsonFields.integer(readRequestBody(exchange), "expectedVersion");
+            int expectedVersion = expected == null ? -1 : expected;
+            int[] version = new int[1]; // read from the same term's store as the approval
+            int approved = terms.write(grades -> {
+                int n = grades.approveAll(courseId, expectedVersion);
+                version[0] = grades.courseVersion(courseId);
+                return n;
+            });
+            
+            if (approved == GradeStore.CONFLICT) {
+                String response = String.format(
+                    "{\"success\":false,\"message\":\"Grades of %s changed during approval; reload and retry\",\"version\":%d}",
+                    courseId, version[0]);
+                sendResponse(exchange, 409, response);
+                return;
+            }
+            
+            String response = String.format(
+                "{\"success\":true,\"courseId\":\"%s\",\"approved\":%d,\"version\":%d}",
+                courseId, approved, version[0]);
+            sendResponse(exchange, 200, response);
+        }
+        
         private boolean isValidGradeLetter(String letter) {
             return letter != null && (letter.matches("[ABCDF]") || letter.equals("P"));
         }
@@ -207,8 +326,8 @@ public class FacultyHttpService {
             // Simple JSON parsing for studentId and grade
             if (requestBody == null) return null;
             
-            String studentId = extractJsonValue(requestBody, "studentId");
-            String grade = extractJsonValue(requestBody, "grade");
+            String studentId = JsonFields.string(requestBody, "studentId");
+            String grade = JsonFields.string(requestBody, "grade");
             
             if (studentId != null && grade != null) {
                 return new GradeSubmission(studentId, grade);
@@ -216,24 +335,136 @@ public class FacultyHttpService {
             
             return null;
         }
+    }
+    
+    class DepartmentHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            
+            try {
+                if ("POST".equals(method) && path.endsWith("/grades/approve")) {
+                    handleDepartmentApproval(exchange, path);
+                } else {
+                    sendResponse(exchange, 405, "Method not allowed");
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                sendResponse(exchange, 500, "Internal server error: " + e.getMessage());
+            }
+        }
         
-        private String extractJsonValue(String json, String key) {
-            String searchKey = "\"" + key + "\":";
-            int keyIndex = json.indexOf(searchKey);
-            if (keyIndex >= 0) {
-                int startIndex = keyIndex + searchKey.length();
-                String value = json.substring(startIndex).trim();
-                if (value.startsWith("\"")) {
-                    int endIndex = value.indexOf("\"", 1);
-                    if (endIndex > 0) {
-                        return value.substring(1, endIndex);
-                    }
+        private void handleDepartmentApproval(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /departments/{department}/grades/approve
+            String[] parts = path.split("/");
+            if (parts.length < 5) {
+                sendResponse(exchange, 400, "Invalid path format. Expected: /departments/{department}/grades/approve");
+                return;
+            }
+            String department = parts[2];
+            
+            // Each course is finalized atomically on its own; courses run in parallel
+            List<String> conflicts = new CopyOnWriteArrayList<>();
+            LongAdder approved = new LongAdder();
+            LongAdder courseCount = new LongAdder();
+            courses.values().parallelStream()
+                .filter(c -> c.getDepartment().equals(department))
+                .forEach(c -> {
+                    courseCount.increment();
+                    int n = terms.write(grades -> grades.approveAll(c.getCode(), -1));
+                    if (n == GradeStore.CONFLICT) conflicts.add(c.getCode());
+                    else approved.add(n);
+                });
+            
+            StringBuilder json = new StringBuilder();
+            json.append("{\"success\":").append(conflicts.isEmpty()).append(",");
+            json.append("\"department\":\"").append(department).append("\",");
+            json.append("\"courses\":").append(courseCount.sum()).append(",");
+            json.append("\"approved\":").append(approved.sum()).append(",");
+            json.append("\"conflicts\":[");
+            for (int i = 0; i < conflicts.size(); i++) {
+                if (i > 0) json.append(",");
+                json.append("\"").append(conflicts.get(i)).append("\"");
+            }
+            json.append("]}");
+            
+            sendResponse(exchange, conflicts.isEmpty() ? 200 : 409, json.toString());
+        }
+    }
+    
+    class TranscriptHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            
+            try {
+                if ("GET".equals(method) && path.endsWith("/transcript")) {
+                    handleTranscript(exchange, path);
+                } else {
+                    sendResponse(exchange, 405, "Method not allowed");
                 }
+            } catch (Exception e) {
+                e.printStackTrace();
+                sendResponse(exchange, 500, "Internal server error: " + e.getMessage());
             }
-            return null;
+        }
+        
+        private void handleTranscript(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /students/{studentId}/transcript
+            String[] parts = path.split("/");
+            if (parts.length < 4) {
+                sendResponse(exchange, 400, "Invalid path format. Expected: /students/{studentId}/transcript");
+                return;
+            }
+            String studentId = parts[2];
+            if (!students.containsKey(studentId)) {
+                sendResponse(exchange, 404, "Student not found: " + studentId);
+                return;
+            }
+            
+            TranscriptAggregator.StudentTotals totals = terms.transcript(studentId);
+            StringBuilder json = new StringBuilder();
+            json.append("{\"studentId\":\"").append(studentId).append("\",");
+            json.append("\"gpa\":").append(String.format("%.2f", totals == null ? 0.0 : totals.getGpa())).append(",");
+            json.append("\"gpaCredits\":").append(totals == null ? 0 : totals.getGpaCredits()).append(",");
+            json.append("\"completedCredits\":").append(totals == null ? 0 : totals.getCompletedCredits()).append(",");
+            json.append("\"courses\":[");
+            if (totals != null) {
+                List<String[]> entries = totals.getEntries();
+                for (int i = 0; i < entries.size(); i++) {
+                    if (i > 0) json.append(",");
+                    json.append("{\"courseId\":\"").append(entries.get(i)[0]).append("\",");
+                    json.append("\"grade\":\"").append(entries.get(i)[1]).append("\",");
+                    json.append("\"term\":\"").append(entries.get(i)[2]).append("\"}");
+                }
+            }
+            json.append("]}");
+            
+            sendResponse(exchange, 200, json.toString());
         }
     }
     
+    // Roster view body; static so the benchmark suite can exercise it without a server
+    public static String rosterJson(Course course) {
+        StringBuilder rosterJson = new StringBuilder();
+        rosterJson.append("{\"courseId\":\"").append(course.getCode()).append("\",");
+        rosterJson.append("\"courseName\":\"").append(course.getName()).append("\",");
+        rosterJson.append("\"students\":[");
+        
+        List<Enrollment> roster = course.getRoster();
+        for (int i = 0; i < roster.size(); i++) {
+            if (i > 0) rosterJson.append(",");
+            Student student = roster.get(i).getStudent();
+            rosterJson.append("{\"id\":\"").append(student.getId()).append("\",");
+            rosterJson.append("\"name\":\"").append(student.getName()).append("\"}");
+        }
+        
+        rosterJson.append("]}");
+        return rosterJson.toString();
+    }
+    
     static class GradeSubmission {
         final String studentId;
         final String grade;
@@ -244,11 +475,122 @@ public class FacultyHttpService {
         }
     }
     
+    class TermHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            
+            try {
+                if ("GET".equals(method) && "/terms".equals(path)) {
+                    handleTermListing(exchange);
+                } else if ("POST".equals(method) && "/terms/close".equals(path)) {
+                    handleTermClose(exchange);
+                } else if ("GET".equals(method) && path.startsWith("/terms/") && path.endsWith("/export")) {
+                    handleTermExport(exchange, path);
+                } else {
+                    sendResponse(exchange, 405, "Method not allowed");
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                sendResponse(exchange, 500, "Internal server error: " + e.getMessage());
+            }
+        }
+        
+        private void handleTermListing(HttpExchange exchange) throws IOException {
+            StringBuilder json = new StringBuilder();
+            json.append("{\"current\":\"").append(terms.current().term).append("\",");
+            json.append("\"archived\":[");
+            List<TermArchive> archives = terms.archives();
+            for (int i = 0; i < archives.size(); i++) {
+                if (i > 0) json.append(",");
+                json.append(archiveJson(archives.get(i)));
+            }
+            json.append("]}");
+            sendResponse(exchange, 200, json.toString());
+        }
+        
+        private void handleTermClose(HttpExchange exchange) throws IOException {
+            String body = readRequestBody(exchange);
+            String next = JsonFields.string(body, "next");
+            Boolean force = JsonFields.bool(body, "force");
+            if (next == null || next.isBlank()) {
+                sendResponse(exchange, 400, "Missing next term. Expected JSON: {\"next\":\"2027-SPRING\",\"force\":false}");
+                return;
+            }
+            String closing = terms.current().term;
+            TermManager.Closed closed;
+            try {
+                closed = terms.close(next, force != null && force);
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 409, "{\"success\":false,\"message\":\"" + e.getMessage() + "\"}");
+                return;
+            }
+            if (closed.archive == null) {
+                String response = String.format(
+                    "{\"success\":false,\"message\":\"Term %s has %d grades that are not final; approve them or pass force\"}",
+                    closing, closed.unfinalized);
+                sendResponse(exchange, 409, response);
+                return;
+            }
+            sendResponse(exchange, 200, "{\"success\":true,\"current\":\"" + next + "\",\"unfinalizedDropped\":"
+                + closed.unfinalized + ",\"archived\":" + archiveJson(closed.archive) + "}");
+        }
+        
+        private void handleTermExport(HttpExchange exchange, String path) throws IOException {
+            String[] parts = path.split("/");
+            if (parts.length != 4) {
+                sendResponse(exchange, 404, "Expected /terms/{term}/export");
+                return;
+            }
+            String term = parts[2];
+            TermManager.Partition open = terms.current();
+            TermArchive archive = term.equals(open.term) ? null : terms.archive(term);
+            if (archive == null && !term.equals(open.term)) {
+                sendResponse(exchange, 404, "Unknown term: " + term);
+                return;
+            }
+            Set<String> tables;
+            try {
+                tables = TermExporter.parseTables(queryParam(exchange, "tables"));
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, "{\"success\":false,\"message\":\"" + e.getMessage() + "\"}");
+                return;
+            }
+            long start = System.nanoTime();
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + term + ".nxcf\"");
+            // Length 0 = chunked transfer encoding: each row group goes out once it is compressed
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 1 << 16)) {
+                Map<String, Long> rows = archive != null
+                    ? TermExporter.exportArchive(archive, courses, tables, out)
+                    : TermExporter.exportOpen(term, courses, open.grades, tables, out);
+                System.out.println("[FacultyService] Exported " + term + " " + rows + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IOException e) {
+                // status already sent; the client sees a truncated body without the footer
+                System.out.println("[FacultyService] Export of " + term + " aborted: " + e.getMessage());
+            }
+        }
+        
+        private String archiveJson(TermArchive a) {
+            return String.format("{\"term\":\"%s\",\"closedAt\":\"%s\",\"students\":%d,\"grades\":%d,\"bytes\":%d}",
+                a.term(), Instant.ofEpochMilli(a.closedAtMillis()), a.studentCount(), a.recordCount(), a.sizeBytes());
+        }
+    }
+    
     class HealthHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String response = "{\"status\":\"healthy\",\"service\":\"faculty\",\"port\":" + PORT + "}";
-            sendResponse(exchange, 200, response);
+            String path = exchange.getRequestURI().getPath();
+            if ("/health/ready".equals(path)) {
+                sendResponse(exchange, readiness.isReady() ? 200 : 503, readiness.json("faculty", PORT));
+            } else if ("/health/live".equals(path)) {
+                sendResponse(exchange, 200, "{\"status\":\"UP\",\"service\":\"faculty\",\"port\":" + PORT + "}");
+            } else {
+                String response = "{\"status\":\"healthy\",\"service\":\"faculty\",\"port\":" + PORT + ",\"ready\":" + readiness.isReady() + "}";
+                sendResponse(exchange, 200, response);
+            }
         }
     }
     
@@ -263,6 +605,16 @@ public class FacultyHttpService {
         }
     }
     
+    private String queryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) return pair.substring(eq + 1);
+        }
+        return null;
+    }
+    
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.sendResponseHeaders(statusCode, response.length());
@@ -43,7 +43,9 @@ public class FacultyServiceMain {
                 if(!isValidLetter(g.getLetter())){
                     throw new RuntimeException("Invalid grade letter for " + g.getStudent().getId());
                 }
-                g.submit();
+                if(!g.submit()){
+                    System.out.println("Grade not submitted, already " + g.getState().getName() + ": " + g);
+                }
             } catch(Exception ex){
                 System.out.println("Error processing grade: " + ex.getMessage() + " -- instructor can correct and resubmit.");
             }
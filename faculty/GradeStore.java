@@ -0,0 +1,404 @@
+package faculty;
+
+import common.jfr.GradeTransitionEvent;
+import common.models.*;
+import common.store.IdInterner;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ObjIntConsumer;
+
+/*
+ Compact grade store: one packed int per (student, course) pair instead of a
+ Grade object plus a concatenated String key per entry.
+
+ Keys are interned student/course indexes combined into a long; each cell packs
+ letter (3 bits), state code (2 bits) and a version counter (25 bits).
+ Transitions use the GradeState transition table and are CAS loops on the cell,
+ so concurrent submit/approve races resolve without locks. Only inserting a new
+ pair or growing a segment takes that segment's monitor. Entries of one course
+ always land in the same segment.
+
+ Each course has a clock: its version in the high half of a long and the
+ number of writes in progress in the low half. A write announces itself before
+ its cell CAS and leaves with the same atomic add that bumps the version, so a
+ course whose clock shows no writer in progress has a version that matches its
+ cells.
+
+ Course-wide approval is optimistic: wait for a quiet clock, reserve each
+ Submitted cell by CAS (a reserved bit, never a course lock), then CAS the
+ clock from the value it started with to one with a write in progress and
+ commit them all to Final. If any cell or the clock moved in between,
+ reservations are released and the caller retries.
+
+ Listeners (Observer) are told about every grade that reaches Final, once,
+ after the transition has committed.
+
+ seal() makes the store read-only for a term close: writers register on their
+ segment before touching a cell and fail with SealedException once the store
+ is sealed, and seal() returns only after the registered ones have finished.
+*/
+public class GradeStore {
+    public static final int ABSENT = -1;
+    public static final int CONFLICT = -1;
+    private static final int APPROVE_ATTEMPTS = 5;
+    private static final String LETTERS = "ABCDFP";
+    private static final int LETTER_MASK = 0x7;
+    private static final int STATE_SHIFT = 3, STATE_MASK = 0x3;
+    private static final int VERSION_SHIFT = 5, VERSION_MASK = (1 << 25) - 1;
+    private static final int RESERVED = 1 << 30; // held by an in-flight course approval
+    private static final int MOVED = -1; // cell forwarded to a resized table
+    private static final long EMPTY = -1L;
+    private static final int SEGMENTS = 64;
+    private static final long VERSION_STEP = 1L << 32, WRITERS_MASK = VERSION_STEP - 1; // course clock halves
+
+    private final IdInterner studentIds = new IdInterner();
+    private final IdInterner courseIds = new IdInterner();
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final Map<String, AtomicLong> courseClocks = new ConcurrentHashMap<>();
+    private final List<FinalGradeListener> finalListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean sealed;
+
+    public interface FinalGradeListener {
+        void onFinal(String studentId, String courseId, String letter);
+    }
+
+    /** Thrown by writes to a sealed store; the term is being (or has been) closed. */
+    public static final class SealedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+        SealedException(){ super("Grade store is sealed for a term close"); }
+    }
+
+    public interface GradeVisitor {
+        void accept(String studentId, String courseId, int cell);
+    }
+
+    public GradeStore(){
+        for(int i = 0; i < SEGMENTS; i++) segments[i] = new Segment();
+    }
+
+    /** Records (or corrects) a letter and moves the grade to Submitted. False if already final. */
+    public boolean submit(String studentId, String courseId, String letter){
+        int letterCode = letter == null || letter.length() != 1 ? 0 : LETTERS.indexOf(letter) + 1;
+        if(letterCode == 0){
+            throw new IllegalArgumentException("Invalid grade letter: " + letter);
+        }
+        GradeTransitionEvent ev = new GradeTransitionEvent();
+        ev.begin();
+        long key = key(studentIds.intern(studentId), courseIds.intern(courseId));
+        Segment seg = segmentFor(key);
+        enter(seg);
+        AtomicLong clock = courseClock(courseId);
+        clock.incrementAndGet();
+        boolean changed = false;
+        try {
+            while(true){
+                Table t = seg.table;
+                int slot = t.find(key);
+                if(slot < 0){ seg.insert(key); continue; }
+                int cur = t.cells.get(slot);
+                if(cur == MOVED || (cur & RESERVED) != 0){ Thread.onSpinWait(); continue; }
+                GradeState next = stateOf(cur).afterSubmit();
+                if(next == null) return false;
+                if(t.cells.compareAndSet(slot, cur, pack(letterCode, next.code(), versionOf(cur) + 1))){
+                    clock.addAndGet(VERSION_STEP - 1); // bump and leave in one step
+                    changed = true;
+                    recordTransition(ev, studentId, courseId, cur, next, letter, false);
+                    return true;
+                }
+            }
+        } finally {
+            if(!changed) clock.decrementAndGet();
+            seg.writers.decrementAndGet();
+        }
+    }
+
+    /** Moves a Submitted grade to Final. False if absent or not in a state that can be approved. */
+    public boolean approve(String studentId, String courseId){
+        if(sealed) throw new SealedException();
+        int s = studentIds.indexOf(studentId), c = courseIds.indexOf(courseId);
+        if(s < 0 || c < 0) return false;
+        GradeTransitionEvent ev = new GradeTransitionEvent();
+        ev.begin();
+        long key = key(s, c);
+        Segment seg = segmentFor(key);
+        enter(seg);
+        AtomicLong clock = courseClock(courseId);
+        clock.incrementAndGet();
+        boolean changed = false;
+        try {
+            while(true){
+                Table t = seg.table;
+                int slot = t.find(key);
+                if(slot < 0) return false;
+                int cur = t.cells.get(slot);
+                if(cur == MOVED || (cur & RESERVED) != 0){ Thread.onSpinWait(); continue; }
+                GradeState next = stateOf(cur).afterApprove();
+                if(next == null) return false;
+                if(t.cells.compareAndSet(slot, cur, pack(letterOf(cur), next.code(), versionOf(cur) + 1))){
+                    clock.addAndGet(VERSION_STEP - 1);
+                    changed = true;
+                    recordTransition(ev, studentId, courseId, cur, next, letter(cur), false);
+                    if(next == FinalState.INSTANCE) fireFinal(studentId, courseId, letter(cur));
+                    return true;
+                }
+            }
+        } finally {
+            if(!changed) clock.decrementAndGet();
+            seg.writers.decrementAndGet();
+        }
+    }
+
+    /** Packed cell for the pair, or ABSENT. Decode with letter()/stateOf()/versionOf(). */
+    public int get(String studentId, String courseId){
+        int s = studentIds.indexOf(studentId), c = courseIds.indexOf(courseId);
+        if(s < 0 || c < 0) return ABSENT;
+        long key = key(s, c);
+        return read(segmentFor(key), key);
+    }
+
+    /** Bumped on every change to one of the course's grades; the snapshot token for approveAll. */
+    public int courseVersion(String courseId){ return (int) (courseClock(courseId).get() >>> 32); }
+
+    /** Visits (studentId, packed cell) for every grade of the course. Weakly consistent. */
+    public void forEachInCourse(String courseId, ObjIntConsumer<String> visitor){
+        int c = courseIds.indexOf(courseId);
+        if(c < 0) return;
+        Segment seg = segments[c & (SEGMENTS - 1)];
+        Table t = seg.table;
+        for(int i = 0; i < t.keys.length(); i++){
+            long k = t.keys.get(i);
+            if(k == EMPTY || (int) (k >>> 32) != c) continue;
+            int cell = t.cells.get(i);
+            if(cell == MOVED) cell = read(seg, k); // resized under us: take the forwarded value
+            visitor.accept(studentIds.nameOf((int) k), cell & ~RESERVED);
+        }
+    }
+
+    /**
+     * Visits every grade, one segment at a time and ordered by course within a segment
+     * (a course never spans segments). Only one segment's keys are copied at once. Weakly consistent.
+     */
+    public void forEach(GradeVisitor visitor){
+        for(Segment seg : segments){
+            Table t = seg.table;
+            long[] keys = new long[t.keys.length()];
+            int n = 0;
+            for(int i = 0; i < keys.length; i++){
+                long k = t.keys.get(i);
+                if(k != EMPTY) keys[n++] = k;
+            }
+            Arrays.sort(keys, 0, n);
+            for(int i = 0; i < n; i++){
+                int cell = read(seg, keys[i]);
+                if(cell != ABSENT) visitor.accept(studentIds.nameOf((int) keys[i]), courseIds.nameOf((int) (keys[i] >>> 32)), cell);
+            }
+        }
+    }
+
+    /**
+     * Atomically moves every Submitted grade of the course to Final.
+     * expectedVersion < 0 means "latest": retried internally on concurrent changes.
+     * Returns the number of grades finalized, or CONFLICT if the course changed
+     * after expectedVersion (or kept changing for every retry).
+     */
+    public int approveAll(String courseId, int expectedVersion){
+        if(sealed) throw new SealedException();
+        int c = courseIds.indexOf(courseId);
+        if(c < 0) return expectedVersion < 0 || expectedVersion == courseVersion(courseId) ? 0 : CONFLICT;
+        Segment seg = segments[c & (SEGMENTS - 1)];
+        enter(seg);
+        try {
+            return approveAll(seg, c, courseId, expectedVersion);
+        } finally {
+            seg.writers.decrementAndGet();
+        }
+    }
+
+    private int approveAll(Segment seg, int c, String courseId, int expectedVersion){
+        AtomicLong clock = courseClock(courseId);
+        for(int attempt = 0; attempt < APPROVE_ATTEMPTS; attempt++){
+            long c0;
+            while(((c0 = clock.get()) & WRITERS_MASK) != 0) Thread.onSpinWait(); // a write's cell and version are not both in yet
+            int v0 = (int) (c0 >>> 32);
+            if(expectedVersion >= 0 && v0 != expectedVersion) return CONFLICT;
+            Table t = seg.table;
+            int[] slots = new int[8], snapshot = new int[8];
+            int n = 0;
+            boolean clean = true;
+            for(int i = 0; i < t.keys.length() && clean; i++){
+                long k = t.keys.get(i);
+                if(k == EMPTY || (int) (k >>> 32) != c) continue;
+                int cell = t.cells.get(i);
+                if(cell == MOVED || (cell & RESERVED) != 0){ clean = false; break; }
+                if(stateOf(cell).afterApprove() == null) continue;
+                if(!t.cells.compareAndSet(i, cell, cell | RESERVED)){ clean = false; break; }
+                if(n == slots.length){ slots = Arrays.copyOf(slots, n * 2); snapshot = Arrays.copyOf(snapshot, n * 2); }
+                slots[n] = i; snapshot[n] = cell; n++;
+            }
+            if(clean && clock.compareAndSet(c0, c0 + 1)){
+                for(int j = 0; j < n; j++){
+                    int cell = snapshot[j];
+                    t.cells.set(slots[j], pack(letterOf(cell), stateOf(cell).afterApprove().code(), versionOf(cell) + 1));
+                }
+                clock.addAndGet(n > 0 ? VERSION_STEP - 1 : -1);
+                if(n > 0 && new GradeTransitionEvent().isEnabled()){
+                    for(int j = 0; j < n; j++){
+                        int cell = snapshot[j];
+                        GradeTransitionEvent ev = new GradeTransitionEvent();
+                        recordTransition(ev, studentIds.nameOf((int) t.keys.get(slots[j])), courseId,
+                            cell, stateOf(cell).afterApprove(), letter(cell), true);
+                    }
+                }
+                if(!finalListeners.isEmpty()){
+                    for(int j = 0; j < n; j++) fireFinal(studentIds.nameOf((int) t.keys.get(slots[j])), courseId, letter(snapshot[j]));
+                }
+                return n;
+            }
+            for(int j = 0; j < n; j++) t.cells.set(slots[j], snapshot[j]); // release reservations
+            // a writer that only started (version unchanged) is waited out on the next attempt
+            if(expectedVersion >= 0 && (!clean || (int) (clock.get() >>> 32) != v0)) return CONFLICT;
+            Thread.onSpinWait();
+        }
+        return CONFLICT;
+    }
+
+    private static void recordTransition(GradeTransitionEvent ev, String studentId, String courseId,
+                                         int from, GradeState to, String letter, boolean bulk){
+        ev.end();
+        if(!ev.shouldCommit()) return;
+        ev.student = studentId;
+        ev.course = courseId;
+        ev.from = stateOf(from).getName();
+        ev.to = to.getName();
+        ev.letter = letter;
+        ev.bulk = bulk;
+        ev.commit();
+    }
+
+    public void addFinalGradeListener(FinalGradeListener l){ finalListeners.add(l); }
+
+    /** Makes the store read-only and waits until writes already under way have finished. */
+    public void seal(){
+        sealed = true;
+        for(Segment seg : segments){
+            while(seg.writers.get() != 0) Thread.onSpinWait();
+        }
+    }
+
+    /** Accepts writes again, after a close that did not go through. */
+    public void unseal(){ sealed = false; }
+
+    public boolean isSealed(){ return sealed; }
+
+    // Register first, then check: a writer either sees the seal or is seen by seal()'s wait.
+    private void enter(Segment seg){
+        seg.writers.incrementAndGet();
+        if(sealed){
+            seg.writers.decrementAndGet();
+            throw new SealedException();
+        }
+    }
+
+    private void fireFinal(String studentId, String courseId, String letter){
+        for(FinalGradeListener l : finalListeners) l.onFinal(studentId, courseId, letter);
+    }
+
+    public int size(){
+        int n = 0;
+        for(Segment seg : segments){ synchronized(seg){ n += seg.size; } }
+        return n;
+    }
+
+    public static String letter(int cell){
+        int code = letterOf(cell);
+        return code == 0 ? null : String.valueOf(LETTERS.charAt(code - 1));
+    }
+    public static GradeState stateOf(int cell){ return GradeState.fromCode((cell >>> STATE_SHIFT) & STATE_MASK); }
+    public static int versionOf(int cell){ return (cell >>> VERSION_SHIFT) & VERSION_MASK; }
+
+    private static int read(Segment seg, long key){
+        while(true){
+            Table t = seg.table;
+            int slot = t.find(key);
+            if(slot < 0) return ABSENT;
+            int cur = t.cells.get(slot);
+            if(cur != MOVED) return cur & ~RESERVED;
+            Thread.onSpinWait();
+        }
+    }
+    private AtomicLong courseClock(String courseId){
+        return courseClocks.computeIfAbsent(courseId, k -> new AtomicLong());
+    }
+    private static int letterOf(int cell){ return cell & LETTER_MASK; }
+    private static int pack(int letterCode, int stateCode, int version){
+        return letterCode | (stateCode << STATE_SHIFT) | ((version & VERSION_MASK) << VERSION_SHIFT);
+    }
+    private static long key(int studentIdx, int courseIdx){ return ((long) courseIdx << 32) | studentIdx; }
+    private Segment segmentFor(long key){ return segments[(int) (key >>> 32) & (SEGMENTS - 1)]; }
+
+    // Open-addressed table; keys are published with volatile writes so lock-free readers see whole longs.
+    static final class Table {
+        final AtomicLongArray keys;
+        final AtomicIntegerArray cells; // 0 = Pending, no letter, version 0
+
+        Table(int capacity){
+            long[] k = new long[capacity];
+            Arrays.fill(k, EMPTY);
+            keys = new AtomicLongArray(k);
+            cells = new AtomicIntegerArray(capacity);
+        }
+        int mask(){ return keys.length() - 1; }
+        int find(long key){
+            for(int i = hash(key) & mask(); ; i = (i + 1) & mask()){
+                long k = keys.get(i);
+                if(k == key) return i;
+                if(k == EMPTY) return -1;
+            }
+        }
+        int claim(long key, int cell){
+            int i = hash(key) & mask();
+            while(keys.get(i) != EMPTY) i = (i + 1) & mask();
+            cells.set(i, cell);
+            keys.set(i, key);
+            return i;
+        }
+        static int hash(long key){
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    static final class Segment {
+        volatile Table table = new Table(16);
+        final AtomicInteger writers = new AtomicInteger(); // writes in progress, for seal()
+        int size; // guarded by this
+
+        synchronized void insert(long key){
+            if(table.find(key) >= 0) return;
+            if((size + 1) * 4 > table.keys.length() * 3) resize();
+            table.claim(key, 0);
+            size++;
+        }
+
+        // Forward every old cell (MOVED) before copying so no CAS can land on the old table.
+        // Reserved cells are waited out: their approval commits or releases without this lock.
+        private void resize(){
+            Table old = table, grown = new Table(old.keys.length() * 2);
+            for(int i = 0; i < old.keys.length(); i++){
+                int cell;
+                do {
+                    cell = old.cells.get(i);
+                    if((cell & RESERVED) != 0) Thread.onSpinWait();
+                } while((cell & RESERVED) != 0 || !old.cells.compareAndSet(i, cell, MOVED));
+                long k = old.keys.get(i);
+                if(k != EMPTY) grown.claim(k, cell);
+            }
+            table = grown;
+        }
+    }
+}
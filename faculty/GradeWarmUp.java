@@ -0,0 +1,72 @@
+package faculty;
+
+import common.json.JsonFields;
+import common.messagebus.MessageBroker;
+import common.models.*;
+import common.notification.NotificationService;
+import common.store.CompactModelStore;
+import common.warmup.WarmUp;
+import java.util.*;
+
+/*
+ Warm-up workload of the faculty service: roster serialization, grade submit,
+ single and course-wide approval with the transcript listener, course
+ summaries, grade listings and transcripts. Each round grades a fresh
+ term partition over the same synthetic rosters, so every round runs the
+ Pending -> Submitted -> Final transitions again. The rosters live in the same
+ kind of model store as the service's (-Dnexus.store); final-grade events go to
+ a broker of its own.
+*/
+final class GradeWarmUp implements WarmUp.Workload {
+    private static final int STUDENTS = 2000, COURSES = 200, COURSES_PER_STUDENT = 5;
+    private static final String LETTERS = "ABCDFP";
+
+    private final CompactModelStore store = CompactModelStore.fromProperty();
+    private final Map<String, Student> students = store != null ? store.students() : new HashMap<>();
+    private final Map<String, Course> courses = store != null ? store.courses() : new HashMap<>();
+    private final MessageBroker broker = new MessageBroker(NotificationService.isolated());
+    private final Random rnd = new Random(SyntheticCatalog.DEFAULT_SEED);
+    private final Course[] courseList;
+    private long checksum; // keeps the reads live
+
+    GradeWarmUp(){
+        SyntheticCatalog.populate(students, courses, STUDENTS, COURSES, SyntheticCatalog.DEFAULT_SEED);
+        courseList = courses.values().toArray(new Course[0]);
+        for(Student s : students.values().toArray(new Student[0])){
+            for(int k = 0; k < COURSES_PER_STUDENT; k++){
+                Course c = courseList[rnd.nextInt(courseList.length)];
+                if(s.getEnrollments().stream().anyMatch(e -> e.getCourse().getCode().equals(c.getCode()))) continue;
+                Enrollment e = new Enrollment(s, c);
+                c.addEnrollment(e);
+                s.addEnrollment(e);
+            }
+        }
+    }
+
+    @Override
+    public void round(int round){
+        TermManager.Partition term = new TermManager.Partition("WARMUP-" + round, students, courses, broker);
+        GradeStore grades = term.grades;
+        int[] sink = new int[1];
+        for(Course c : courseList){
+            FacultyHttpService.rosterJson(c);
+            List<Enrollment> roster = c.getRoster();
+            for(int i = 0; i < roster.size(); i++){
+                String body = "{\"studentId\":\"" + roster.get(i).getStudent().getId() + "\",\"grade\":\""
+                    + LETTERS.charAt(rnd.nextInt(LETTERS.length())) + "\"}";
+                String studentId = JsonFields.string(body, "studentId");
+                grades.submit(studentId, c.getCode(), JsonFields.string(body, "grade"));
+                if(i % 4 == 0) grades.approve(studentId, c.getCode());
+            }
+            grades.forEachInCourse(c.getCode(), (studentId, cell) -> sink[0] += GradeStore.versionOf(cell));
+            grades.approveAll(c.getCode(), rnd.nextInt(8) == 0 ? grades.courseVersion(c.getCode()) : -1);
+            TranscriptAggregator.CourseTotals totals = term.transcripts.course(c.getCode());
+            if(totals != null) sink[0] += totals.count("A") + (int) totals.getMean();
+            for(Enrollment e : roster){
+                TranscriptAggregator.StudentTotals t = term.transcripts.student(e.getStudent().getId());
+                if(t != null) sink[0] += t.getEntries().size() + (int) t.getGpa();
+            }
+        }
+        checksum += sink[0];
+    }
+}
@@ -0,0 +1,143 @@
+package faculty;
+
+import common.export.ColumnarWriter;
+import common.export.ColumnarWriter.Column;
+import common.models.*;
+import common.store.TermArchive;
+import java.io.*;
+import java.util.*;
+
+/*
+ Writes one term's data as a columnar export (common.export.ColumnarWriter):
+   courses      code, name, department, schedule, credits, capacity, enrolled, waitlisted
+   enrollments  term, studentId, courseId, status (ENROLLED | WAITLISTED), position
+   grades       term, studentId, courseId, letter, state, credits
+ The open term is read from the live rosters, course by course in code order,
+ and from the GradeStore segment by segment, so nothing is collected first.
+ An archived term only holds final grades: its enrollments are the graded
+ ones, its course counts come from them, and names, schedules and capacities
+ are taken from the live catalog when the course still exists.
+*/
+public final class TermExporter {
+    public static final List<String> TABLES = List.of("courses", "enrollments", "grades");
+
+    private static final Column[] COURSES = {
+        Column.string("code"), Column.string("name"), Column.string("department"), Column.string("schedule"),
+        Column.integer("credits"), Column.integer("capacity"), Column.integer("enrolled"), Column.integer("waitlisted")
+    };
+    private static final Column[] ENROLLMENTS = {
+        Column.string("term"), Column.string("studentId"), Column.string("courseId"), Column.string("status"), Column.integer("position")
+    };
+    private static final Column[] GRADES = {
+        Column.string("term"), Column.string("studentId"), Column.string("courseId"),
+        Column.string("letter"), Column.string("state"), Column.integer("credits")
+    };
+
+    private TermExporter(){}
+
+    /** Tables named in a comma-separated list (null or blank = all); IllegalArgumentException for unknown names. */
+    public static Set<String> parseTables(String list){
+        if(list == null || list.isBlank()) return new LinkedHashSet<>(TABLES);
+        Set<String> tables = new LinkedHashSet<>();
+        for(String t : list.split(",")){
+            if(!TABLES.contains(t.trim())) throw new IllegalArgumentException("Unknown table: " + t.trim() + " (expected " + String.join(",", TABLES) + ")");
+            tables.add(t.trim());
+        }
+        return tables;
+    }
+
+    /** Exports the open term; returns rows written per table. */
+    public static Map<String, Long> exportOpen(String term, Map<String, Course> courses, GradeStore grades,
+                                               Set<String> tables, OutputStream out) throws IOException {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        List<String> codes = new ArrayList<>(courses.keySet());
+        Collections.sort(codes);
+        ColumnarWriter w = new ColumnarWriter(out);
+        if(tables.contains("courses")){
+            ColumnarWriter.Table t = w.table("courses", COURSES);
+            for(String code : codes){
+                Course c = courses.get(code);
+                if(c != null) courseRow(t, code, c, c.getCredits(), c.getRoster().size(), c.getWaitlist().size());
+            }
+            rows.put("courses", t.rows());
+        }
+        if(tables.contains("enrollments")){
+            ColumnarWriter.Table t = w.table("enrollments", ENROLLMENTS);
+            for(String code : codes){
+                Course c = courses.get(code);
+                if(c == null) continue;
+                for(Enrollment e : c.getRoster()){
+                    t.set(0, term).set(1, e.getStudent().getId()).set(2, code).set(3, "ENROLLED").set(4, 0).endRow();
+                }
+                int position = 0;
+                for(String studentId : c.getWaitlist()){
+                    t.set(0, term).set(1, studentId).set(2, code).set(3, "WAITLISTED").set(4, ++position).endRow();
+                }
+            }
+            rows.put("enrollments", t.rows());
+        }
+        if(tables.contains("grades")){
+            ColumnarWriter.Table t = w.table("grades", GRADES);
+            IOException[] failed = new IOException[1];
+            grades.forEach((studentId, courseId, cell) -> {
+                if(failed[0] != null) return;
+                Course c = courses.get(courseId);
+                try {
+                    t.set(0, term).set(1, studentId).set(2, courseId).set(3, GradeStore.letter(cell))
+                     .set(4, GradeStore.stateOf(cell).getName()).set(5, c == null ? 0 : c.getCredits()).endRow();
+                } catch(IOException e){
+                    failed[0] = e;
+                }
+            });
+            if(failed[0] != null) throw failed[0];
+            rows.put("grades", t.rows());
+        }
+        w.finish();
+        return rows;
+    }
+
+    /** Exports an archived term; courses is the live catalog, used for metadata only. */
+    public static Map<String, Long> exportArchive(TermArchive archive, Map<String, Course> courses,
+                                                  Set<String> tables, OutputStream out) throws IOException {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        String term = archive.term();
+        ColumnarWriter w = new ColumnarWriter(out);
+        if(tables.contains("courses")){
+            TreeMap<String, int[]> graded = new TreeMap<>(); // code -> {credits, graded students}
+            archive.forEach((studentId, courseId, letter, credits) -> graded.computeIfAbsent(courseId, k -> new int[]{credits, 0})[1]++);
+            ColumnarWriter.Table t = w.table("courses", COURSES);
+            for(Map.Entry<String, int[]> e : graded.entrySet()){
+                courseRow(t, e.getKey(), courses.get(e.getKey()), e.getValue()[0], e.getValue()[1], 0);
+            }
+            rows.put("courses", t.rows());
+        }
+        for(String table : new String[]{"enrollments", "grades"}){
+            if(!tables.contains(table)) continue;
+            boolean grades = table.equals("grades");
+            ColumnarWriter.Table t = w.table(table, grades ? GRADES : ENROLLMENTS);
+            IOException[] failed = new IOException[1];
+            archive.forEach((studentId, courseId, letter, credits) -> {
+                if(failed[0] != null) return;
+                try {
+                    t.set(0, term).set(1, studentId).set(2, courseId);
+                    if(grades) t.set(3, letter).set(4, FinalState.INSTANCE.getName()).set(5, credits);
+                    else t.set(3, "ENROLLED").set(4, 0);
+                    t.endRow();
+                } catch(IOException e){
+                    failed[0] = e;
+                }
+            });
+            if(failed[0] != null) throw failed[0];
+            rows.put(table, t.rows());
+        }
+        w.finish();
+        return rows;
+    }
+
+    // c may be null (archived course no longer in the catalog): only code and credits are known
+    private static void courseRow(ColumnarWriter.Table t, String code, Course c, int credits, int enrolled, int waitlisted) throws IOException {
+        t.set(0, code);
+        if(c != null) t.set(1, c.getName()).set(2, c.getDepartment()).set(3, c.getSchedule()).set(5, c.getCapacity());
+        t.set(4, credits).set(6, enrolled).set(7, waitlisted).endRow();
+    }
+}
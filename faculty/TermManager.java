@@ -0,0 +1,219 @@
+package faculty;
+
+import common.messagebus.MessageBroker;
+import common.models.*;
+import common.store.TermArchive;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/*
+ Grades partitioned by academic term. Only the open term lives in mutable
+ on-heap structures (a GradeStore and its TranscriptAggregator). Closing the term
+ writes its final grades to a TermArchive file, maps it read-only and starts an
+ empty partition for the next term. The heap therefore holds one term, however
+ much history builds up.
+ Writes go through write(): close() seals the open term's store before it scans
+ it, so no grade can change between the scan and the swap, and a write that
+ meets the seal waits for the close and is applied to whichever term is open
+ afterwards.
+ Archives in the archive directory (-Dnexus.archive.dir, default "archive") are
+ mapped again at startup and transcripts read them lazily. Completions stay on
+ the students (a set of course codes each); restoreCompletions() puts the
+ archived ones back after a restart.
+*/
+public class TermManager {
+    public static final String DIR_PROPERTY = "nexus.archive.dir";
+    public static final String TERM_PROPERTY = "nexus.term";
+    private static final String SUFFIX = ".nxta";
+    private static final String CURRENT_FILE = "CURRENT"; // name of the open term, rewritten on close
+
+    private final Map<String, Student> students;
+    private final Map<String, Course> courses;
+    private final Path dir;
+    private final List<TermArchive> archives = new CopyOnWriteArrayList<>(); // oldest first
+    private final List<GradeStore.FinalGradeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Partition current;
+
+    /** The open term's mutable state. */
+    public static final class Partition {
+        public final String term;
+        public final GradeStore grades = new GradeStore();
+        public final TranscriptAggregator transcripts;
+
+        Partition(String term, Map<String, Student> students, Map<String, Course> courses){
+            this(term, students, courses, new MessageBroker());
+        }
+        Partition(String term, Map<String, Student> students, Map<String, Course> courses, MessageBroker broker){
+            this.term = term;
+            this.transcripts = new TranscriptAggregator(students, courses, term, broker);
+            grades.addFinalGradeListener(transcripts);
+        }
+    }
+
+    /** Outcome of close(): the archive written, or why nothing was. */
+    public static final class Closed {
+        public final TermArchive archive;
+        public final int unfinalized;
+        Closed(TermArchive archive, int unfinalized){ this.archive = archive; this.unfinalized = unfinalized; }
+    }
+
+    public TermManager(Map<String, Student> students, Map<String, Course> courses){
+        this.students = students;
+        this.courses = courses;
+        this.dir = Paths.get(System.getProperty(DIR_PROPERTY, "archive"));
+        loadArchives();
+        String term = System.getProperty(TERM_PROPERTY, savedTerm());
+        if(archive(term) != null) throw new IllegalStateException("Term " + term + " is already archived in " + dir);
+        this.current = new Partition(term, students, courses);
+    }
+
+    public Partition current(){ return current; }
+    public GradeStore grades(){ return current.grades; }
+    public TranscriptAggregator transcripts(){ return current.transcripts; }
+    public List<TermArchive> archives(){ return Collections.unmodifiableList(archives); }
+
+    /** Runs a grade write against the open term, retrying it on the next one if that term closes first. */
+    public <T> T write(Function<GradeStore, T> op){
+        while(true){
+            try {
+                return op.apply(current.grades);
+            } catch(GradeStore.SealedException e){
+                synchronized(this){} // close() holds the monitor until the next term is open
+            }
+        }
+    }
+
+    /** Listeners added here follow every partition, current and future. */
+    public synchronized void addFinalGradeListener(GradeStore.FinalGradeListener l){
+        listeners.add(l);
+        current.grades.addFinalGradeListener(l);
+    }
+
+    /**
+     Archives the open term's final grades and opens nextTerm. Submitted or pending
+     grades are not archived; unless force is set, their presence makes this a no-op
+     that reports how many there are. The term's rosters are cleared; its
+     completions stay on the students.
+    */
+    public synchronized Closed close(String nextTerm, boolean force) throws IOException {
+        Partition closing = current;
+        if(nextTerm.equals(closing.term) || archive(nextTerm) != null){
+            throw new IllegalArgumentException("Term already used: " + nextTerm);
+        }
+        closing.grades.seal(); // from here on the scan sees every grade the term will ever have
+        List<TermArchive.Record> finals = new ArrayList<>();
+        int[] unfinalized = new int[1];
+        for(Course c : courses.values()){
+            closing.grades.forEachInCourse(c.getCode(), (studentId, cell) -> {
+                if(GradeStore.stateOf(cell) == FinalState.INSTANCE){
+                    finals.add(new TermArchive.Record(studentId, c.getCode(), GradeStore.letter(cell), c.getCredits()));
+                } else {
+                    unfinalized[0]++;
+                }
+            });
+        }
+        if(unfinalized[0] > 0 && !force){
+            closing.grades.unseal();
+            return new Closed(null, unfinalized[0]);
+        }
+
+        TermArchive archive;
+        try {
+            Files.createDirectories(dir);
+            archive = TermArchive.write(dir.resolve(fileName(closing.term)), closing.term, finals);
+        } catch(IOException | RuntimeException e){
+            closing.grades.unseal(); // the term stays open
+            throw e;
+        }
+        archives.add(archive);
+        Partition next = new Partition(nextTerm, students, courses);
+        for(GradeStore.FinalGradeListener l : listeners) next.grades.addFinalGradeListener(l);
+        current = next;
+        Files.write(dir.resolve(CURRENT_FILE), nextTerm.getBytes(StandardCharsets.UTF_8));
+
+        // the closed term's enrollments end
+        for(Course c : courses.values()){
+            for(Enrollment e : c.clearRoster()) e.getStudent().removeEnrollment(e);
+        }
+        System.out.println("[TermManager] closed " + closing.term + " -> " + archive + ", now in " + nextTerm);
+        return new Closed(archive, unfinalized[0]);
+    }
+
+    /** Adds every passing archived grade (anything but F) to the student's completions; call once the students are loaded. */
+    public void restoreCompletions(){
+        int[] restored = new int[1];
+        for(TermArchive a : archives){
+            a.forEach((studentId, courseId, letter, credits) -> {
+                Student s = students.get(studentId);
+                if(s == null || "F".equals(letter) || s.hasCompleted(courseId)) return;
+                s.addCompletedCourse(courseId);
+                restored[0]++;
+            });
+        }
+        if(restored[0] > 0) System.out.println("[TermManager] restored " + restored[0] + " completions from archived terms");
+    }
+
+    /** Cumulative transcript across archived terms and the open one; null if the student has no final grades. */
+    public TranscriptAggregator.StudentTotals transcript(String studentId){
+        TranscriptAggregator.StudentTotals totals = new TranscriptAggregator.StudentTotals();
+        boolean any = false;
+        for(TermArchive a : archives){
+            String term = a.term();
+            any |= a.forStudent(studentId, (courseId, letter, credits) -> totals.add(term, courseId, letter, credits));
+        }
+        Partition p = current;
+        TranscriptAggregator.StudentTotals open = p.transcripts.student(studentId);
+        if(open != null){
+            for(String[] e : open.getEntries()){
+                Course c = courses.get(e[0]);
+                totals.add(e[2], e[0], e[1], c == null ? 0 : c.getCredits());
+            }
+            any = true;
+        }
+        return any ? totals : null;
+    }
+
+    /** The archive of a closed term, or null. */
+    public TermArchive archive(String term){
+        for(TermArchive a : archives) if(a.term().equals(term)) return a;
+        return null;
+    }
+
+    private void loadArchives(){
+        if(!Files.isDirectory(dir)) return;
+        List<TermArchive> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for(Path f : files){
+                try {
+                    found.add(TermArchive.open(f));
+                } catch(IOException | IllegalArgumentException e){
+                    System.out.println("[TermManager] skipping " + f + ": " + e.getMessage());
+                }
+            }
+        } catch(IOException e){
+            System.out.println("[TermManager] cannot list " + dir + ": " + e.getMessage());
+        }
+        found.sort(Comparator.comparingLong(TermArchive::closedAtMillis));
+        archives.addAll(found);
+        if(!found.isEmpty()) System.out.println("[TermManager] mapped " + found.size() + " archived terms from " + dir);
+    }
+
+    private static String fileName(String term){ return term.replaceAll("[^A-Za-z0-9_-]", "_") + SUFFIX; }
+
+    // the term open when the service last closed one, else e.g. 2026-FALL (terms start in January and August)
+    private String savedTerm(){
+        try {
+            Path saved = dir.resolve(CURRENT_FILE);
+            if(Files.exists(saved)) return new String(Files.readAllBytes(saved), StandardCharsets.UTF_8).trim();
+        } catch(IOException e){
+            System.out.println("[TermManager] cannot read " + CURRENT_FILE + ": " + e.getMessage());
+        }
+        LocalDate d = LocalDate.now();
+        return d.getYear() + (d.getMonthValue() >= 8 ? "-FALL" : "-SPRING");
+    }
+}
@@ -0,0 +1,96 @@
+package faculty;
+
+import common.models.*;
+import common.messagebus.MessageBroker;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Running transcript/GPA aggregates, maintained incrementally (Observer on
+ GradeStore): each grade reaching Final updates its student's and course's
+ totals in O(1), so queries never scan the grade store.
+ Letters: A=4, B=3, C=2, D=1, F=0 grade points; P earns credit but is not in GPA.
+*/
+public class TranscriptAggregator implements GradeStore.FinalGradeListener {
+    private static final String LETTERS = "ABCDFP";
+    private static final int[] POINTS = {4, 3, 2, 1, 0, -1}; // -1 = not GPA-bearing
+
+    private final Map<String, Student> students;
+    private final Map<String, Course> courses;
+    private final String term;
+    private final MessageBroker broker;
+    private final Map<String, StudentTotals> byStudent = new ConcurrentHashMap<>();
+    private final Map<String, CourseTotals> byCourse = new ConcurrentHashMap<>();
+
+    public TranscriptAggregator(Map<String, Student> students, Map<String, Course> courses, String term){
+        this(students, courses, term, new MessageBroker());
+    }
+    public TranscriptAggregator(Map<String, Student> students, Map<String, Course> courses, String term, MessageBroker broker){
+        this.students = students; this.courses = courses; this.term = term; this.broker = broker;
+    }
+
+    public void onFinal(String studentId, String courseId, String letter){
+        int idx = LETTERS.indexOf(letter);
+        if(idx < 0) return;
+        Course course = courses.get(courseId);
+        int credits = course == null ? 0 : course.getCredits();
+        byStudent.computeIfAbsent(studentId, k -> new StudentTotals()).add(term, courseId, letter, credits);
+        byCourse.computeIfAbsent(courseId, k -> new CourseTotals()).add(idx, POINTS[idx]);
+        // passing final grades count as completions for prerequisite checks right away
+        Student student = students.get(studentId);
+        if(student != null && !"F".equals(letter)) student.addCompletedCourse(courseId);
+        broker.publish("grade", "Final grade " + letter + " for " + studentId + " in " + courseId);
+    }
+
+    public String term(){ return term; }
+    public StudentTotals student(String studentId){ return byStudent.get(studentId); }
+    public CourseTotals course(String courseId){ return byCourse.get(courseId); }
+
+    public static final class StudentTotals {
+        private long qualityPoints; // sum(points * credits)
+        private int gpaCredits, completedCredits;
+        private final List<String[]> entries = new ArrayList<>(); // {courseId, letter, term}
+
+        synchronized void add(String term, String courseId, String letter, int credits){
+            int idx = LETTERS.indexOf(letter);
+            if(idx < 0) return;
+            int points = POINTS[idx];
+            if(points >= 0){
+                qualityPoints += (long) points * credits;
+                gpaCredits += credits;
+            }
+            if(!"F".equals(letter)) completedCredits += credits;
+            entries.add(new String[]{courseId, letter, term});
+        }
+
+        public synchronized double getGpa(){ return gpaCredits == 0 ? 0.0 : (double) qualityPoints / gpaCredits; }
+        public synchronized int getGpaCredits(){ return gpaCredits; }
+        public synchronized int getCompletedCredits(){ return completedCredits; }
+        public synchronized List<String[]> getEntries(){ return new ArrayList<>(entries); }
+    }
+
+    public static final class CourseTotals {
+        private final AtomicIntegerArray histogram = new AtomicIntegerArray(LETTERS.length());
+        private final AtomicLong pointSum = new AtomicLong(); // packed: points in high bits, GPA-bearing count in low 32
+
+        void add(int letterIdx, int points){
+            histogram.incrementAndGet(letterIdx);
+            if(points >= 0) pointSum.addAndGet(((long) points << 32) | 1);
+        }
+
+        public int count(String letter){ return histogram.get(LETTERS.indexOf(letter)); }
+        public int total(){
+            int n = 0;
+            for(int i = 0; i < histogram.length(); i++) n += histogram.get(i);
+            return n;
+        }
+        public double getMean(){
+            long packed = pointSum.get();
+            int n = (int) packed;
+            return n == 0 ? 0.0 : (double) (packed >>> 32) / n;
+        }
+        public static String letters(){ return LETTERS; }
+    }
+}
@@ -0,0 +1,324 @@
+package gateway;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import common.trace.Tracer;
+import common.trace.TraceFilter;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * API Gateway: one entry point in front of the three services
+ * Endpoints:
+ * /student/** - proxied to the Student Service with the prefix removed (e.g. /student/courses/search)
+ * /faculty/** - proxied to the Faculty Service with the prefix removed (e.g. /faculty/students/S001/transcript)
+ * /admin/** - proxied to the Admin Service unchanged
+ * GET /dashboard/students/{studentId} - enrollments with seat counts, transcript and registration window,
+ *     fetched in parallel and merged; a part that fails or times out is null and listed in "errors"
+ * GET /gateway/routes - routes with their timeouts, hedge delays and counters
+ * GET /health - health check
+ * Upstreams default to localhost:8081/8082/8083; override with -Dnexus.gateway.student=http://host:port
+ * (likewise nexus.gateway.faculty and nexus.gateway.admin).
+ */
+public class GatewayHttpService {
+    private static final int PORT = 8080;
+    // request headers passed upstream, and response headers passed back
+    private static final String[] REQUEST_HEADERS = {"Accept", "Content-Type", "If-None-Match", "Last-Event-ID"};
+    private static final String[] RESPONSE_HEADERS = {"Content-Type", "ETag", "Cache-Control", "Retry-After", "Location"};
+
+    private final UpstreamClient upstreams = new UpstreamClient(4);
+    private final ExecutorService workers = Executors.newFixedThreadPool(10); // handlers, and writing buffered replies
+    private final ExecutorService streams = Executors.newCachedThreadPool(); // one thread per relayed stream
+    private final UpstreamClient.Route studentRoute, facultyRoute;
+    private final List<UpstreamClient.Route> routes = new ArrayList<>(); // most specific prefix first
+    private HttpServer server;
+
+    public GatewayHttpService() {
+        String student = System.getProperty("nexus.gateway.student", "http://localhost:8081");
+        String faculty = System.getProperty("nexus.gateway.faculty", "http://localhost:8082");
+        String admin = System.getProperty("nexus.gateway.admin", "http://localhost:8083");
+        // seat streams stay open; only the wait for their headers is timed, and they are never hedged
+        routes.add(new UpstreamClient.Route("student-seats", "/student/courses/seats/stream", student, "/student", 5000, 0, true));
+        routes.add(studentRoute = new UpstreamClient.Route("student", "/student", student, "/student", 2000, 50, false));
+        routes.add(facultyRoute = new UpstreamClient.Route("faculty", "/faculty", faculty, "/faculty", 2000, 50, false));
+        // reports are expensive to run twice, so admin calls get a long deadline and no hedge
+        routes.add(new UpstreamClient.Route("admin", "/admin", admin, "", 15000, 0, false));
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+
+        ProxyHandler proxy = new ProxyHandler();
+        TraceFilter.install("gateway", server.createContext("/student", proxy));
+        TraceFilter.install("gateway", server.createContext("/faculty", proxy));
+        TraceFilter.install("gateway", server.createContext("/admin", proxy));
+        TraceFilter.install("gateway", server.createContext("/dashboard", new DashboardHandler()));
+        TraceFilter.install("gateway", server.createContext("/gateway", new RoutesHandler()));
+        TraceFilter.install("gateway", server.createContext("/health", new HealthHandler()));
+
+        // handlers only start upstream calls; responses are written on these threads when those complete,
+        // never on the upstream client's own threads, so a slow reader cannot stall other calls
+        server.setExecutor(workers);
+        server.start();
+
+        System.out.println("API Gateway started on port " + PORT);
+        System.out.println("Available endpoints:");
+        for (UpstreamClient.Route r : routes) {
+            System.out.println("  " + r.prefix + "/** -> " + r.upstream + (r.hedgeAfterMillis > 0 ? " (hedged after " + r.hedgeAfterMillis + " ms)" : ""));
+        }
+        System.out.println("  GET /dashboard/students/{studentId} - enrollments, transcript and registration window in one call");
+        System.out.println("  GET /gateway/routes - route counters");
+        System.out.println("  GET /health - health check");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            upstreams.shutdown();
+            workers.shutdown();
+            streams.shutdownNow();
+            System.out.println("API Gateway stopped");
+        }
+    }
+
+    class ProxyHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            UpstreamClient.Route route = route(path);
+            if (route == null) {
+                sendResponse(exchange, 404, "No route for " + path);
+                return;
+            }
+            String query = exchange.getRequestURI().getRawQuery();
+            String target = route.upstreamPath(path) + (query == null ? "" : "?" + query);
+            Map<String, String> headers = forwardedHeaders(exchange);
+            if (route.streaming) {
+                upstreams.stream(route, method, target, headers).whenCompleteAsync((response, e) -> {
+                    if (e != null) {
+                        failed(exchange, route, e);
+                    } else {
+                        streams.execute(() -> relay(exchange, response));
+                    }
+                }, workers);
+                return;
+            }
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readAllBytes();
+            }
+            upstreams.call(route, method, target, headers, body).whenCompleteAsync((reply, e) -> {
+                if (e != null) {
+                    failed(exchange, route, e);
+                    return;
+                }
+                if (reply.hedged) exchange.getResponseHeaders().set("X-Gateway-Hedged", "true");
+                if (reply.length < 0) {
+                    // chunked or large (exports, live reports): pass it on as it arrives
+                    streams.execute(() -> relay(exchange, reply.response));
+                    return;
+                }
+                try (InputStream in = reply.response.body()) {
+                    copyHeaders(reply.response, exchange);
+                    exchange.sendResponseHeaders(reply.response.statusCode(), reply.length == 0 ? -1 : reply.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        in.transferTo(os);
+                    }
+                } catch (IOException io) {
+                    exchange.close(); // client went away
+                }
+            }, workers);
+        }
+
+        private UpstreamClient.Route route(String path) {
+            for (UpstreamClient.Route r : routes) {
+                if (r.matches(path)) return r;
+            }
+            return null;
+        }
+
+        // runs on a stream thread until either side closes
+        private void relay(HttpExchange exchange, HttpResponse<InputStream> response) {
+            try (InputStream in = response.body()) {
+                copyHeaders(response, exchange);
+                exchange.sendResponseHeaders(response.statusCode(), 0);
+                OutputStream os = exchange.getResponseBody();
+                byte[] buf = new byte[8192];
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    os.write(buf, 0, n);
+                    os.flush();
+                }
+            } catch (IOException e) {
+                // client or upstream disconnected
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    class DashboardHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 405, "Method not allowed");
+                return;
+            }
+            // Parse path: /dashboard/students/{studentId}
+            String[] parts = path.split("/");
+            if (parts.length != 4 || !"students".equals(parts[2])) {
+                sendResponse(exchange, 400, "Invalid path format. Expected: /dashboard/students/{studentId}");
+                return;
+            }
+            String studentId = parts[3];
+            Map<String, String> headers = forwardedHeaders(exchange);
+            headers.remove("If-None-Match");
+            long start = System.nanoTime();
+
+            // all parts go out at once, so the page takes as long as its slowest part
+            Map<String, CompletableFuture<UpstreamClient.Reply>> calls = new LinkedHashMap<>();
+            calls.put("enrollments", upstreams.call(studentRoute, "GET", "/students/" + studentId + "/enrollments", headers, null));
+            calls.put("transcript", upstreams.call(facultyRoute, "GET", "/students/" + studentId + "/transcript", headers, null));
+            calls.put("registrationWindow", upstreams.call(studentRoute, "GET", "/students/" + studentId + "/registration-window", headers, null));
+
+            CompletableFuture.allOf(calls.values().stream()
+                    .map(f -> f.handle((r, e) -> null))
+                    .toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> {
+                    try {
+                        respondDashboard(exchange, studentId, calls, (System.nanoTime() - start) / 1_000_000);
+                    } catch (IOException e) {
+                        exchange.close();
+                    }
+                }, workers);
+        }
+
+        private void respondDashboard(HttpExchange exchange, String studentId,
+                                      Map<String, CompletableFuture<UpstreamClient.Reply>> calls, long tookMillis) throws IOException {
+            StringBuilder json = new StringBuilder("{\"studentId\":\"").append(studentId).append("\"");
+            StringBuilder errors = new StringBuilder();
+            int answered = 0;
+            for (Map.Entry<String, CompletableFuture<UpstreamClient.Reply>> part : calls.entrySet()) {
+                String error;
+                UpstreamClient.Reply reply = part.getValue().handle((r, e) -> r).join();
+                if (reply == null) {
+                    Throwable e = part.getValue().handle((r, x) -> x).join();
+                    error = UpstreamClient.isTimeout(e) ? "timed out" : "unavailable: " + UpstreamClient.cause(e).getMessage();
+                } else if (reply.response.statusCode() != 200) {
+                    reply.response.body().close();
+                    if (reply.response.statusCode() == 404 && "enrollments".equals(part.getKey())) {
+                        sendResponse(exchange, 404, "Student not found: " + studentId);
+                        return;
+                    }
+                    error = "HTTP " + reply.response.statusCode();
+                } else {
+                    json.append(",\"").append(part.getKey()).append("\":").append(new String(reply.body(), StandardCharsets.UTF_8));
+                    answered++;
+                    continue;
+                }
+                json.append(",\"").append(part.getKey()).append("\":null");
+                if (errors.length() > 0) errors.append(",");
+                errors.append("\"").append(part.getKey()).append("\":").append(quote(error));
+            }
+            if (answered == 0) {
+                sendResponse(exchange, 502, "No upstream answered for student " + studentId + ": {" + errors + "}");
+                return;
+            }
+            json.append(",\"partial\":").append(answered < calls.size())
+                .append(",\"errors\":{").append(errors).append("}")
+                .append(",\"tookMillis\":").append(tookMillis).append("}");
+            sendResponse(exchange, 200, json.toString());
+        }
+    }
+
+    class RoutesHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod()) || !"/gateway/routes".equals(exchange.getRequestURI().getPath())) {
+                sendResponse(exchange, 404, "Not found: " + exchange.getRequestURI().getPath());
+                return;
+            }
+            StringBuilder json = new StringBuilder("{\"hedgeBudget\":").append(UpstreamClient.HEDGE_BUDGET).append(",\"routes\":[");
+            for (int i = 0; i < routes.size(); i++) {
+                if (i > 0) json.append(",");
+                json.append(routes.get(i).statsJson());
+            }
+            sendResponse(exchange, 200, json.append("]}").toString());
+        }
+    }
+
+    class HealthHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String response = "{\"status\":\"UP\",\"service\":\"api-gateway\",\"port\":" + PORT + "}";
+            sendResponse(exchange, 200, response);
+        }
+    }
+
+    private Map<String, String> forwardedHeaders(HttpExchange exchange) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String h : REQUEST_HEADERS) {
+            String v = exchange.getRequestHeaders().getFirst(h);
+            if (v != null) headers.put(h, v);
+        }
+        // continue the gateway's span upstream, or pass the caller's context through untouched
+        String traceparent = Tracer.current().isSampled() ? Tracer.current().traceparent() : exchange.getRequestHeaders().getFirst(Tracer.HEADER);
+        if (traceparent != null) headers.put(Tracer.HEADER, traceparent);
+        return headers;
+    }
+
+    private static void copyHeaders(HttpResponse<?> from, HttpExchange to) {
+        for (String h : RESPONSE_HEADERS) {
+            from.headers().firstValue(h).ifPresent(v -> to.getResponseHeaders().set(h, v));
+        }
+    }
+
+    private void failed(HttpExchange exchange, UpstreamClient.Route route, Throwable e) {
+        try {
+            if (UpstreamClient.isTimeout(e)) {
+                sendResponse(exchange, 504, "Upstream " + route.name + " timed out after " + route.timeout.toMillis() + " ms");
+            } else {
+                sendResponse(exchange, 502, "Upstream " + route.name + " unavailable: " + UpstreamClient.cause(e).getMessage());
+            }
+        } catch (IOException io) {
+            exchange.close();
+        }
+    }
+
+    private static String quote(String s) {
+        return "\"" + String.valueOf(s).replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) {
+        GatewayHttpService service = new GatewayHttpService();
+        try {
+            service.start();
+            System.out.println("Press Enter to stop the service...");
+            System.in.read();
+            service.stop();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package gateway;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Startup class for API Gateway that can run as daemon
+ */
+public class GatewayServiceStarter {
+    private static GatewayHttpService service;
+    private static CountDownLatch shutdownLatch = new CountDownLatch(1);
+    
+    public static void main(String[] args) {
+        // Handle graceful shutdown
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("\nShutting down API Gateway...");
+            if (service != null) {
+                service.stop();
+            }
+            shutdownLatch.countDown();
+        }));
+        
+        try {
+            service = new GatewayHttpService();
+            service.start();
+            
+            // Keep the service running
+            shutdownLatch.await();
+            
+        } catch (Exception e) {
+            System.err.println("Failed to start API Gateway: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
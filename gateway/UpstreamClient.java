@@ -0,0 +1,180 @@
+package gateway;
+
+import common.timer.TimingWheel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Client side of the gateway. One java.net.http.HttpClient speaking HTTP/1.1 keeps
+ a pool of keep-alive connections per upstream, so a proxied call is a request on
+ a warm socket rather than a fresh TCP handshake.
+ Each call carries its route's deadline. Idempotent calls are also hedged: if the
+ first attempt has not answered within the route's hedge delay, a second attempt
+ goes out and whichever answers first wins ("The Tail at Scale", Dean & Barroso).
+ The loser is left to finish so its connection returns to the pool. Hedges are
+ capped at HEDGE_BUDGET of a route's calls, so a slow upstream is not handed
+ double load. Hedge delays are timed by a timing wheel, not a thread per call.
+ Small bodies with a Content-Length are buffered before the call completes; chunked
+ or large ones (term exports, live reports) complete at the headers and are read by
+ the caller as they arrive, so the gateway never holds a whole export in memory.
+ The deadline then covers only the wait for the headers, as on streaming routes.
+*/
+public class UpstreamClient {
+    public static final double HEDGE_BUDGET = 0.10;
+    static final long BUFFER_LIMIT = 256 * 1024; // largest body read whole before the call completes
+
+    // buffers bodies of known, small length; everything else is handed over as a stream
+    private static final HttpResponse.BodyHandler<InputStream> BODY = info -> {
+        long length = info.headers().firstValueAsLong("Content-Length").orElse(-1);
+        if(length < 0 || length > BUFFER_LIMIT) return HttpResponse.BodySubscribers.ofInputStream();
+        return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), ByteArrayInputStream::new);
+    };
+
+    private final HttpClient client;
+    private final TimingWheel wheel = new TimingWheel("gateway-hedges", 5, TimeUnit.MILLISECONDS);
+
+    /** A path prefix served by one upstream, with its deadline and hedge delay. */
+    public static final class Route {
+        public final String name, prefix, upstream;
+        final String strip;          // leading part of the path the upstream does not expect, "" for none
+        final Duration timeout;
+        final long hedgeAfterMillis; // 0 = never hedge
+        final boolean streaming;     // body is relayed as it arrives (SSE); only the headers are timed
+        final LongAdder calls = new LongAdder(), hedges = new LongAdder(), hedgeWins = new LongAdder();
+        final LongAdder timeouts = new LongAdder(), failures = new LongAdder();
+
+        public Route(String name, String prefix, String upstream, String strip, long timeoutMillis, long hedgeAfterMillis, boolean streaming){
+            this.name = name; this.prefix = prefix; this.upstream = upstream; this.strip = strip;
+            this.timeout = Duration.ofMillis(timeoutMillis); this.hedgeAfterMillis = hedgeAfterMillis; this.streaming = streaming;
+        }
+
+        /** True if the gateway path belongs to this route (whole segments only). */
+        public boolean matches(String path){
+            return path.equals(prefix) || path.startsWith(prefix.endsWith("/") ? prefix : prefix + "/");
+        }
+
+        /** The path to request upstream for a gateway path this route matches. */
+        public String upstreamPath(String path){
+            if(!path.startsWith(strip)) return path;
+            String rest = path.substring(strip.length());
+            return rest.isEmpty() ? "/" : rest;
+        }
+
+        public String statsJson(){
+            return String.format("{\"route\":\"%s\",\"prefix\":\"%s\",\"upstream\":\"%s\",\"timeoutMillis\":%d,\"hedgeAfterMillis\":%d,"
+                + "\"calls\":%d,\"hedges\":%d,\"hedgeWins\":%d,\"timeouts\":%d,\"failures\":%d}",
+                name, prefix, upstream, timeout.toMillis(), hedgeAfterMillis,
+                calls.sum(), hedges.sum(), hedgeWins.sum(), timeouts.sum(), failures.sum());
+        }
+    }
+
+    /** An upstream response and whether the hedged attempt produced it. The receiver closes the body. */
+    public static final class Reply {
+        public final HttpResponse<InputStream> response;
+        public final boolean hedged;
+        public final long length; // size of a buffered body, -1 if the body is still streaming in
+
+        Reply(HttpResponse<InputStream> response, boolean hedged){
+            this.response = response; this.hedged = hedged;
+            this.length = response.body() instanceof ByteArrayInputStream ? ((ByteArrayInputStream) response.body()).available() : -1;
+        }
+
+        /** The whole body; blocks until a streamed body has arrived. */
+        public byte[] body() throws IOException {
+            try(InputStream in = response.body()){ return in.readAllBytes(); }
+        }
+    }
+
+    public UpstreamClient(int threads){
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .executor(Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "gateway-upstream");
+                t.setDaemon(true);
+                return t;
+            }))
+            .build();
+    }
+
+    /**
+     Sends method path (upstream path plus raw query) to the route's upstream. Completes
+     with the first reply, or exceptionally with a TimeoutException once the route's
+     deadline passes. Only GET and HEAD are hedged.
+    */
+    public CompletableFuture<Reply> call(Route route, String method, String path, Map<String, String> headers, byte[] body){
+        HttpRequest request = request(route, method, path, headers, body);
+        route.calls.increment();
+        CompletableFuture<Reply> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        attempt(route, request, result, outstanding, false);
+        if(route.hedgeAfterMillis > 0 && ("GET".equals(method) || "HEAD".equals(method))){
+            TimingWheel.Timeout hedge = wheel.schedule(() -> {
+                if(result.isDone() || route.hedges.sum() >= route.calls.sum() * HEDGE_BUDGET) return;
+                if(outstanding.getAndIncrement() == 0) return; // the first attempt already failed and settled
+                route.hedges.increment();
+                attempt(route, request, result, outstanding, true);
+            }, route.hedgeAfterMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((r, e) -> hedge.cancel());
+        }
+        return result.orTimeout(route.timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((r, e) -> {
+            if(e == null) return;
+            if(isTimeout(e)) route.timeouts.increment();
+            else route.failures.increment();
+        });
+    }
+
+    /** For streaming routes: completes once the response headers arrive; the caller drains and closes the body. */
+    public CompletableFuture<HttpResponse<InputStream>> stream(Route route, String method, String path, Map<String, String> headers){
+        route.calls.increment();
+        return client.sendAsync(request(route, method, path, headers, null), HttpResponse.BodyHandlers.ofInputStream())
+            .whenComplete((r, e) -> {
+                if(e == null) return;
+                if(isTimeout(e)) route.timeouts.increment();
+                else route.failures.increment();
+            });
+    }
+
+    public void shutdown(){ wheel.stop(); }
+
+    /** The failure behind CompletionException wrappers. */
+    public static Throwable cause(Throwable e){
+        while(e instanceof CompletionException && e.getCause() != null) e = e.getCause();
+        return e;
+    }
+
+    public static boolean isTimeout(Throwable e){
+        e = cause(e);
+        return e instanceof TimeoutException || e instanceof HttpTimeoutException;
+    }
+
+    private void attempt(Route route, HttpRequest request, CompletableFuture<Reply> result, AtomicInteger outstanding, boolean hedged){
+        client.sendAsync(request, BODY).whenComplete((response, e) -> {
+            if(e == null){
+                if(result.complete(new Reply(response, hedged))){
+                    if(hedged) route.hedgeWins.increment();
+                } else {
+                    // lost the race or arrived after the deadline; a streamed body would otherwise pin its connection
+                    try{ response.body().close(); } catch(IOException ignored){}
+                }
+            } else if(outstanding.decrementAndGet() == 0){
+                result.completeExceptionally(e);
+            }
+        });
+    }
+
+    private static HttpRequest request(Route route, String method, String path, Map<String, String> headers, byte[] body){
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create(route.upstream + path)).timeout(route.timeout);
+        b.method(method, body == null || body.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        for(Map.Entry<String, String> h : headers.entrySet()) b.header(h.getKey(), h.getValue());
+        return b.build();
+    }
+}
@@ -0,0 +1,52 @@
+package loadgen;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ Lock-free log-linear latency histogram (HdrHistogram-style): values in
+ microseconds, 64 sub-buckets per power of two, so any recorded value is
+ reported within ~1.6% and memory is fixed no matter how many samples arrive.
+*/
+final class LatencyHistogram {
+    private static final int SUB_BITS = 6, SUB_COUNT = 1 << SUB_BITS;
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_COUNT);
+
+    void record(long micros){
+        counts.incrementAndGet(index(Math.max(0, micros)));
+    }
+
+    long count(){
+        long n = 0;
+        for(int i = 0; i < counts.length(); i++) n += counts.get(i);
+        return n;
+    }
+
+    /** Upper bound (micros) of the bucket holding the q-quantile, 0 if empty. */
+    long percentile(double q){
+        long total = count();
+        if(total == 0) return 0;
+        long rank = (long) Math.ceil(q * total), seen = 0;
+        for(int i = 0; i < counts.length(); i++){
+            seen += counts.get(i);
+            if(seen >= Math.max(1, rank)) return upperBound(i);
+        }
+        return upperBound(counts.length() - 1);
+    }
+
+    void add(LatencyHistogram other){
+        for(int i = 0; i < counts.length(); i++) counts.addAndGet(i, other.counts.get(i));
+    }
+
+    // values < 64 map 1:1; above that, (exp + 1) * 64 + the 6 bits below the leading one
+    private static int index(long v){
+        if(v < SUB_COUNT) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (exp + 1) * SUB_COUNT + (int) ((v >>> exp) - SUB_COUNT);
+    }
+
+    private static long upperBound(int index){
+        if(index < SUB_COUNT) return index;
+        int exp = index / SUB_COUNT - 1, sub = index % SUB_COUNT;
+        return ((long) (SUB_COUNT + sub) << exp) + (1L << exp) - 1;
+    }
+}
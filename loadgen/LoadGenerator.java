@@ -0,0 +1,214 @@
+package loadgen;
+
+import java.net.URI;
+import java.net.http.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ Open-loop load generator for the three services.
+   java -cp out loadgen.LoadGenerator synthetic --rate 500 --duration 60 --students 5000 --courses 400 [--zipf 1.1]
+   java -cp out loadgen.LoadGenerator replay <log.jsonl> [--rate 200 | --speed 2.0] [--loop --duration 60]
+ Options: --student-url/--faculty-url/--admin-url, --timeout-ms, --max-inflight, --json <summary file>.
+
+ Requests are sent on a fixed schedule regardless of how fast responses come
+ back (open loop). Latency is measured from each request's intended send time,
+ not from when it actually went out, which corrects for coordinated omission:
+ a stalled server is charged for the queue it built up. A request due while
+ --max-inflight requests are outstanding is not sent; it has no latency, so it
+ is counted in its own "saturated" series and the report warns about it.
+ Synthetic runs need the
+ services started with -Dnexus.seed=<students>:<courses> using the same counts.
+*/
+public class LoadGenerator {
+    private final Map<String, String> baseUrls = new HashMap<>();
+    private final Map<String, EndpointStats> stats = new ConcurrentSkipListMap<>();
+    private final HttpClient client;
+    private final Duration timeout;
+    private final int maxInflight;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    static final class EndpointStats {
+        final LatencyHistogram corrected = new LatencyHistogram(); // from intended send time
+        final LatencyHistogram service = new LatencyHistogram();   // from actual send time
+        final LongAdder ok = new LongAdder(), clientErrors = new LongAdder(), serverErrors = new LongAdder(), failed = new LongAdder();
+        final LongAdder saturated = new LongAdder(); // due but never sent: the client was at --max-inflight
+    }
+
+    LoadGenerator(Map<String, String> opts){
+        baseUrls.put("student", opts.getOrDefault("student-url", "http://localhost:8081"));
+        baseUrls.put("faculty", opts.getOrDefault("faculty-url", "http://localhost:8082"));
+        baseUrls.put("admin", opts.getOrDefault("admin-url", "http://localhost:8083"));
+        timeout = Duration.ofMillis(Long.parseLong(opts.getOrDefault("timeout-ms", "5000")));
+        maxInflight = Integer.parseInt(opts.getOrDefault("max-inflight", "20000"));
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        if(args.length == 0){
+            System.err.println("Usage: LoadGenerator synthetic|replay [<log.jsonl>] [--rate N] [--duration S] ...");
+            System.exit(2);
+        }
+        String mode = args[0];
+        int first = "replay".equals(mode) ? 2 : 1;
+        Map<String, String> opts = parseArgs(Arrays.copyOfRange(args, Math.min(first, args.length), args.length));
+        Workload workload;
+        if("replay".equals(mode)){
+            if(args.length < 2) throw new IllegalArgumentException("replay needs a request log file");
+            workload = new Workload.Replay(Paths.get(args[1]), opts.containsKey("loop"));
+        } else if("synthetic".equals(mode)){
+            workload = new Workload.Synthetic(
+                Integer.parseInt(opts.getOrDefault("students", "5000")),
+                Integer.parseInt(opts.getOrDefault("courses", "400")),
+                Double.parseDouble(opts.getOrDefault("zipf", "1.1")),
+                Long.parseLong(opts.getOrDefault("seed", "7")));
+        } else {
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        double rate = Double.parseDouble(opts.getOrDefault("rate", "100"));
+        double speed = Double.parseDouble(opts.getOrDefault("speed", "1.0"));
+        long durationNanos = opts.containsKey("duration")
+            ? (long) (Double.parseDouble(opts.get("duration")) * 1e9)
+            : ("synthetic".equals(mode) ? 30_000_000_000L : Long.MAX_VALUE);
+
+        LoadGenerator gen = new LoadGenerator(opts);
+        long elapsed = gen.run(workload, rate, speed, durationNanos);
+        String report = gen.report(elapsed);
+        System.out.println(report);
+        if(opts.containsKey("json")){
+            Files.write(Paths.get(opts.get("json")), gen.toJson(elapsed).getBytes(StandardCharsets.UTF_8));
+        }
+        System.exit(0); // HttpClient selector threads are not daemons
+    }
+
+    // Dispatch loop: one thread walks the schedule; responses complete asynchronously.
+    long run(Workload workload, double rate, double speed, long durationNanos) throws InterruptedException {
+        long interval = (long) (1e9 / rate);
+        long start = System.nanoTime();
+        long sent = 0;
+        Workload.Request r;
+        while((r = workload.next()) != null){
+            long offset = r.offsetNanos >= 0 ? (long) (r.offsetNanos / speed) : sent * interval;
+            if(offset > durationNanos) break;
+            long intended = start + offset;
+            long wait = intended - System.nanoTime();
+            if(wait > 0) LockSupport.parkNanos(wait);
+            send(r, intended);
+            sent++;
+        }
+        long drainDeadline = System.nanoTime() + timeout.toNanos() + 1_000_000_000L;
+        while(inflight.get() > 0 && System.nanoTime() < drainDeadline) Thread.sleep(10);
+        return System.nanoTime() - start;
+    }
+
+    private void send(Workload.Request r, long intended){
+        String url = r.service == null ? r.target : baseUrls.get(r.service) + r.target;
+        EndpointStats s = stats.computeIfAbsent(r.method + " " + endpoint(url), k -> new EndpointStats());
+        if(inflight.get() >= maxInflight){
+            s.saturated.increment(); // never silently delayed; reported next to, not inside, the histograms
+            return;
+        }
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(url)).timeout(timeout);
+        req.method(r.method, r.body == null ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(r.body));
+        if(r.body != null) req.header("Content-Type", "application/json");
+        inflight.incrementAndGet();
+        long actual = System.nanoTime();
+        client.sendAsync(req.build(), HttpResponse.BodyHandlers.discarding()).whenComplete((resp, err) -> {
+            long now = System.nanoTime();
+            inflight.decrementAndGet();
+            s.corrected.record((now - intended) / 1000);
+            s.service.record((now - actual) / 1000);
+            if(err != null) s.failed.increment();
+            else if(resp.statusCode() >= 500) s.serverErrors.increment();
+            else if(resp.statusCode() >= 400) s.clientErrors.increment();
+            else s.ok.increment();
+        });
+    }
+
+    // /students/S00042/enrollments/CS1003 -> /students/{id}/enrollments/{id}
+    static String endpoint(String url){
+        String path = URI.create(url).getPath();
+        StringBuilder sb = new StringBuilder();
+        for(String seg : path.split("/")){
+            if(seg.isEmpty()) continue;
+            sb.append('/').append(seg.chars().anyMatch(Character::isDigit) ? "{id}" : seg);
+        }
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    String report(long elapsedNanos){
+        double secs = elapsedNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-48s %8s %9s %6s %6s %6s %6s %9s %9s %9s %11s%n",
+            "endpoint", "count", "req/s", "2xx", "4xx", "fail", "sat", "p50 ms", "p99 ms", "p999 ms", "p99 svc ms"));
+        LatencyHistogram all = new LatencyHistogram();
+        long total = 0, saturated = 0;
+        for(Map.Entry<String, EndpointStats> en : stats.entrySet()){
+            EndpointStats s = en.getValue();
+            long n = s.corrected.count();
+            total += n;
+            saturated += s.saturated.sum();
+            all.add(s.corrected);
+            sb.append(String.format("%-48s %8d %9.1f %6d %6d %6d %6d %9.2f %9.2f %9.2f %11.2f%n", en.getKey(), n, n / secs,
+                s.ok.sum(), s.clientErrors.sum(), s.failed.sum() + s.serverErrors.sum(), s.saturated.sum(),
+                s.corrected.percentile(0.5) / 1000.0, s.corrected.percentile(0.99) / 1000.0,
+                s.corrected.percentile(0.999) / 1000.0, s.service.percentile(0.99) / 1000.0));
+        }
+        sb.append(String.format("%-48s %8d %9.1f %6s %6s %6s %6d %9.2f %9.2f %9.2f%n", "TOTAL", total, total / secs, "", "", "", saturated,
+            all.percentile(0.5) / 1000.0, all.percentile(0.99) / 1000.0, all.percentile(0.999) / 1000.0));
+        sb.append("Latencies are corrected for coordinated omission (measured from intended send time); "
+            + "'p99 svc' is the uncorrected service time.");
+        if(saturated > 0){
+            sb.append(String.format("%nWARNING: %d requests were due while %d were in flight and were not sent ('sat'); "
+                + "they are not in the latency columns, so the percentiles understate the delay they saw. "
+                + "Raise --max-inflight or lower --rate.", saturated, maxInflight));
+        }
+        return sb.toString();
+    }
+
+    String toJson(long elapsedNanos){
+        double secs = elapsedNanos / 1e9;
+        StringBuilder json = new StringBuilder("{\"durationSeconds\":").append(String.format(Locale.ROOT, "%.3f", secs));
+        json.append(",\"endpoints\":[");
+        int i = 0;
+        for(Map.Entry<String, EndpointStats> en : stats.entrySet()){
+            EndpointStats s = en.getValue();
+            long n = s.corrected.count();
+            if(i++ > 0) json.append(",");
+            json.append("{\"endpoint\":\"").append(en.getKey()).append("\",");
+            json.append("\"count\":").append(n).append(",");
+            json.append("\"throughput\":").append(String.format(Locale.ROOT, "%.2f", n / secs)).append(",");
+            json.append("\"ok\":").append(s.ok.sum()).append(",");
+            json.append("\"clientErrors\":").append(s.clientErrors.sum()).append(",");
+            json.append("\"serverErrors\":").append(s.serverErrors.sum()).append(",");
+            json.append("\"failed\":").append(s.failed.sum()).append(",");
+            json.append("\"saturated\":").append(s.saturated.sum()).append(",");
+            json.append("\"p50Micros\":").append(s.corrected.percentile(0.5)).append(",");
+            json.append("\"p99Micros\":").append(s.corrected.percentile(0.99)).append(",");
+            json.append("\"p999Micros\":").append(s.corrected.percentile(0.999)).append(",");
+            json.append("\"serviceP99Micros\":").append(s.service.percentile(0.99)).append("}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static Map<String, String> parseArgs(String[] args){
+        Map<String, String> opts = new HashMap<>();
+        for(int i = 0; i < args.length; i++){
+            if(!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            String key = args[i].substring(2);
+            boolean flag = key.equals("loop");
+            opts.put(key, !flag && i + 1 < args.length ? args[++i] : "true");
+        }
+        return opts;
+    }
+}
@@ -0,0 +1,108 @@
+package loadgen;
+
+import common.json.JsonFields;
+import common.models.SyntheticCatalog;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/*
+ Request sources for the load generator.
+  - Replay: a JSON Lines request log, one request per line:
+      {"service":"student","method":"POST","path":"/students/S001/enrollments","body":"{\"courseId\":\"CS201\"}","offsetMs":0}
+    "url" may replace service+path (captured traffic); "offsetMs" is optional and
+    keeps the recorded pacing, otherwise requests are spread at the target rate.
+  - Synthetic: a registration-open mix over the SyntheticCatalog ids, with
+    Zipf-skewed course popularity so a few hot courses take most of the traffic.
+*/
+interface Workload {
+    /** Next request, or null when the workload is exhausted. */
+    Request next();
+
+    final class Request {
+        final String service; // student | faculty | admin, or null when url is absolute
+        final String method, target, body;
+        final long offsetNanos; // recorded send time relative to start, -1 = paced by rate
+
+        Request(String service, String method, String target, String body, long offsetNanos){
+            this.service = service; this.method = method; this.target = target; this.body = body; this.offsetNanos = offsetNanos;
+        }
+    }
+
+    final class Replay implements Workload {
+        private final List<Request> requests = new ArrayList<>();
+        private final boolean loop;
+        private int next;
+        private long loopShift, lastOffset;
+
+        Replay(Path log, boolean loop) throws IOException {
+            this.loop = loop;
+            int lineNo = 0;
+            for(String line : Files.readAllLines(log, StandardCharsets.UTF_8)){
+                lineNo++;
+                if(line.isBlank()) continue;
+                String url = JsonFields.string(line, "url");
+                String service = JsonFields.string(line, "service"), path = JsonFields.string(line, "path");
+                String method = Optional.ofNullable(JsonFields.string(line, "method")).orElse("GET");
+                Integer offsetMs = JsonFields.integer(line, "offsetMs");
+                if(url == null && (service == null || path == null)){
+                    throw new IllegalArgumentException(log + ":" + lineNo + " needs \"url\" or \"service\"+\"path\"");
+                }
+                requests.add(new Request(url == null ? service : null, method, url == null ? path : url,
+                    JsonFields.string(line, "body"), offsetMs == null ? -1 : offsetMs * 1_000_000L));
+            }
+            if(requests.isEmpty()) throw new IllegalArgumentException("Empty request log: " + log);
+        }
+
+        public Request next(){
+            if(next == requests.size()){
+                if(!loop) return null;
+                next = 0;
+                loopShift = lastOffset + 1_000_000L; // replay again right after the last recorded request
+            }
+            Request r = requests.get(next++);
+            if(r.offsetNanos < 0) return r;
+            lastOffset = loopShift + r.offsetNanos;
+            return new Request(r.service, r.method, r.target, r.body, lastOffset);
+        }
+    }
+
+    final class Synthetic implements Workload {
+        private final int students;
+        private final double[] courseCdf;
+        private final Random rnd;
+        private final ArrayDeque<String[]> enrolled = new ArrayDeque<>(); // {studentId, courseId} to drop later
+
+        Synthetic(int students, int courses, double zipf, long seed){
+            this.students = students;
+            this.rnd = new Random(seed);
+            courseCdf = new double[courses];
+            double sum = 0;
+            for(int i = 0; i < courses; i++) courseCdf[i] = sum += 1.0 / Math.pow(i + 1, zipf);
+            for(int i = 0; i < courses; i++) courseCdf[i] /= sum;
+        }
+
+        // mix: 60% enroll, 25% drop, 10% roster view, 5% report
+        public Request next(){
+            int dice = rnd.nextInt(100);
+            if(dice < 60 || (dice < 85 && enrolled.isEmpty())){
+                String student = SyntheticCatalog.studentId(rnd.nextInt(students)), course = hotCourse();
+                if(enrolled.size() < 100_000) enrolled.addLast(new String[]{student, course});
+                return new Request("student", "POST", "/students/" + student + "/enrollments",
+                    "{\"courseId\":\"" + course + "\"}", -1);
+            }
+            if(dice < 85){
+                String[] e = enrolled.pollFirst();
+                return new Request("student", "DELETE", "/students/" + e[0] + "/enrollments/" + e[1], null, -1);
+            }
+            if(dice < 95) return new Request("faculty", "GET", "/courses/" + hotCourse() + "/roster", null, -1);
+            return new Request("admin", "GET", "/admin/reports/enrollments", null, -1);
+        }
+
+        private String hotCourse(){
+            int i = Arrays.binarySearch(courseCdf, rnd.nextDouble());
+            return SyntheticCatalog.courseId(Math.min(i < 0 ? -i - 1 : i, courseCdf.length - 1));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+#!/bin/bash
+# Build and run the hot-path benchmark suite (see bench/BenchMain.java)
+# Usage: ./run_benchmarks.sh [--filter <regex>] [--quick] [--out <file>]
+#        ./run_benchmarks.sh compare <baseline.jsonl> <candidate.jsonl> [thresholdPercent]
+set -e
+cd "$(dirname "$0")"
+mkdir -p out
+find . -name "*.java" > sources.txt
+javac -d out @sources.txt
+if [ "$1" == "compare" ]; then
+    shift
+    java -cp out bench.BenchCompare "$@"
+else
+    java -cp out bench.BenchMain "$@"
+fi
@@ -0,0 +1,13 @@
+#!/bin/bash
+# Build and run the columnar export tool (see export/ExportTool.java)
+# Examples:
+#   ./run_export.sh archive archive/2026-FALL.nxta 2026-FALL.nxcf
+#   ./run_export.sh synthetic 200000:4000 synthetic.nxcf --csv synthetic.csv
+#   ./run_export.sh inspect 2026-FALL.nxcf
+#   ./run_export.sh csv 2026-FALL.nxcf grades > grades.csv
+set -e
+cd "$(dirname "$0")"
+mkdir -p out
+find . -name "*.java" > sources.txt
+javac -d out @sources.txt
+java -cp out export.ExportTool "$@"
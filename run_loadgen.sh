@@ -0,0 +1,13 @@
+#!/bin/bash
+# Build and run the open-loop load generator (see loadgen/LoadGenerator.java)
+# Examples:
+#   ./run_loadgen.sh synthetic --rate 500 --duration 60 --students 5000 --courses 400
+#   ./run_loadgen.sh replay loadgen/sample-requests.jsonl --loop --duration 30 --json summary.json
+# Synthetic runs expect the services to be started with the same catalog, e.g.
+#   JAVA_OPTS="-Dnexus.seed=5000:400" ./start_all_services.sh
+set -e
+cd "$(dirname "$0")"
+mkdir -p out
+find . -name "*.java" > sources.txt
+javac -d out @sources.txt
+java -cp out loadgen.LoadGenerator "$@"
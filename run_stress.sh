@@ -0,0 +1,12 @@
+#!/bin/bash
+# Build and run the concurrency stress harness (see stress/StressHarness.java)
+# Examples:
+#   ./run_stress.sh --runs 50 --threads 16 --ops 2000
+#   ./run_stress.sh --seed 1026550335566 --threads 16 --ops 2000   # replay a failing schedule
+# Exits non-zero if any run breaks an invariant.
+set -e
+cd "$(dirname "$0")"
+mkdir -p out
+find . -name "*.java" > sources.txt
+javac -d out @sources.txt
+java -cp out stress.StressHarness "$@"
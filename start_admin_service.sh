@@ -2,4 +2,4 @@
 # Start Admin HTTP Service on port 8083
 cd "$(dirname "$0")"
 echo "Starting Admin Service on port 8083..."
-java -cp out admin.AdminServiceStarter
\ No newline at end of file
+java $JAVA_OPTS -cp out admin.AdminServiceStarter
\ No newline at end of file
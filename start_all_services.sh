@@ -9,6 +9,7 @@ echo "====================================="
 chmod +x start_student_service.sh
 chmod +x start_faculty_service.sh
 chmod +x start_admin_service.sh
+chmod +x start_gateway_service.sh
 
 # Start services in background
 echo "Starting Student Service (port 8081)..."
@@ -29,17 +30,25 @@ ADMIN_PID=$!
 
 sleep 2
 
+echo "Starting API Gateway (port 8080)..."
+./start_gateway_service.sh &
+GATEWAY_PID=$!
+
+sleep 2
+
 echo ""
 echo "All services started!"
 echo "====================================="
 echo "Student Service: http://localhost:8081"
 echo "Faculty Service: http://localhost:8082"
 echo "Admin Service:   http://localhost:8083"
+echo "API Gateway:     http://localhost:8080 (/student, /faculty, /admin, /dashboard)"
 echo ""
 echo "Health checks:"
 echo "curl http://localhost:8081/health"
 echo "curl http://localhost:8082/health"  
 echo "curl http://localhost:8083/health"
+echo "curl http://localhost:8080/health"
 echo ""
 echo "Press Ctrl+C to stop all services"
 
@@ -47,7 +56,7 @@ echo "Press Ctrl+C to stop all services"
 cleanup() {
     echo ""
     echo "Stopping all services..."
-    kill $STUDENT_PID $FACULTY_PID $ADMIN_PID 2>/dev/null
+    kill $STUDENT_PID $FACULTY_PID $ADMIN_PID $GATEWAY_PID 2>/dev/null
     exit 0
 }
 
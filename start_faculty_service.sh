@@ -2,4 +2,4 @@
 # Start Faculty HTTP Service on port 8082
 cd "$(dirname "$0")"
 echo "Starting Faculty Service on port 8082..."
-java -cp out faculty.FacultyServiceStarter
\ No newline at end of file
+java $JAVA_OPTS -cp out faculty.FacultyServiceStarter
\ No newline at end of file
@@ -0,0 +1,5 @@
+#!/bin/bash
+# Start the API Gateway on port 8080 (in front of ports 8081-8083)
+cd "$(dirname "$0")"
+echo "Starting API Gateway on port 8080..."
+java $JAVA_OPTS -cp out gateway.GatewayServiceStarter
\ No newline at end of file
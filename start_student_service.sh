@@ -2,4 +2,4 @@
 # Start Student HTTP Service on port 8081
 cd "$(dirname "$0")"
 echo "Starting Student Service on port 8081..."
-java -cp out student.StudentServiceStarter
\ No newline at end of file
+java $JAVA_OPTS -cp out student.StudentServiceStarter
\ No newline at end of file
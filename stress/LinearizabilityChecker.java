@@ -0,0 +1,95 @@
+package stress;
+
+import java.util.*;
+
+/*
+ Wing & Gong style linearizability check for the history of one (student, course) pair.
+ The sequential specification is a single "enrolled" flag:
+   enroll   ok -> requires !enrolled, sets it;  failed -> always allowed (other validators may reject)
+   confirm, swapIn: as enroll (confirming a hold, or a swap seen from its target)
+   swapOut  ok -> requires enrolled, clears it; failed -> always allowed (the target may have refused)
+   forceAdd ok -> requires !enrolled, sets it;  failed -> requires enrolled (already on the roster)
+   drop     ok -> requires enrolled, clears it; failed -> requires !enrolled
+ A history is linearizable if some order respecting real time (an op invoked after
+ another returned must follow it) satisfies the spec and ends in the observed state.
+ The history is cut into segments at instants where nothing is in flight; each
+ segment is searched exhaustively from every state the previous one could end in,
+ memoizing (linearized set, state).
+*/
+final class LinearizabilityChecker {
+    static final int MAX_SEGMENT = 20; // longer concurrent segments are skipped, not searched
+
+    static final class Op {
+        final String key, kind;
+        final boolean ok;
+        final long invoked, returned;
+        Op(String key, String kind, boolean ok, long invoked, long returned){
+            this.key = key; this.kind = kind; this.ok = ok; this.invoked = invoked; this.returned = returned;
+        }
+    }
+
+    private LinearizabilityChecker(){}
+
+    static boolean linearizable(List<Op> ops, boolean finalEnrolled){
+        List<Op> sorted = new ArrayList<>(ops);
+        sorted.sort(Comparator.comparingLong(o -> o.invoked));
+        Set<Boolean> states = Collections.singleton(Boolean.FALSE);
+        int from = 0;
+        long lastReturn = Long.MIN_VALUE;
+        for(int i = 0; i <= sorted.size(); i++){
+            if(i > from && (i == sorted.size() || sorted.get(i).invoked > lastReturn)){
+                states = segment(sorted.subList(from, i), states);
+                if(states.isEmpty()) return false;
+                from = i;
+            }
+            if(i < sorted.size()) lastReturn = Math.max(lastReturn, sorted.get(i).returned);
+        }
+        return states.contains(finalEnrolled);
+    }
+
+    private static Set<Boolean> segment(List<Op> ops, Set<Boolean> starts){
+        if(ops.size() > MAX_SEGMENT) return new HashSet<>(Arrays.asList(Boolean.FALSE, Boolean.TRUE));
+        Set<Boolean> ends = new HashSet<>();
+        Set<Long> visited = new HashSet<>();
+        for(boolean start : starts) search(ops, 0, start, ends, visited);
+        return ends;
+    }
+
+    private static void search(List<Op> ops, int done, boolean enrolled, Set<Boolean> ends, Set<Long> visited){
+        int n = ops.size();
+        if(done == (1 << n) - 1){ ends.add(enrolled); return; }
+        if(!visited.add(((long) done << 1) | (enrolled ? 1 : 0))) return;
+        // the earliest return among pending ops bounds which ops may go next
+        long horizon = Long.MAX_VALUE;
+        for(int i = 0; i < n; i++) if((done & (1 << i)) == 0) horizon = Math.min(horizon, ops.get(i).returned);
+        for(int i = 0; i < n; i++){
+            if((done & (1 << i)) != 0) continue;
+            Op op = ops.get(i);
+            if(op.invoked > horizon) break; // sorted by invocation: the rest start later still
+            Boolean next = apply(op, enrolled);
+            if(next != null) search(ops, done | (1 << i), next, ends, visited);
+        }
+    }
+
+    /** Returns the state after op, or null if op's outcome is impossible from this state. */
+    private static Boolean apply(Op op, boolean enrolled){
+        switch(op.kind){
+            case "enroll":
+            case "confirm":
+            case "swapIn":
+                if(!op.ok) return enrolled;
+                return enrolled ? null : Boolean.TRUE;
+            case "forceAdd":
+                if(op.ok) return enrolled ? null : Boolean.TRUE;
+                return enrolled ? Boolean.TRUE : null;
+            case "swapOut":
+                if(!op.ok) return enrolled;
+                return enrolled ? Boolean.FALSE : null;
+            case "drop":
+                if(op.ok) return enrolled ? Boolean.FALSE : null;
+                return enrolled ? null : Boolean.FALSE;
+            default:
+                throw new IllegalArgumentException("Unknown op " + op.kind);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package stress;
+
+import admin.ServicesFacade;
+import common.models.*;
+import common.store.CompactModelStore;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import student.EnrollmentManager;
+import student.SeatHoldManager;
+
+/*
+ Concurrency stress harness for the in-process enrollment model.
+   java -cp out stress.StressHarness [--runs 50] [--threads 16] [--ops 2000] [--seed N] [--store offheap]
+ Each run builds a small, deliberately contended catalog and lets worker threads
+ fire a randomized mix of EnrollmentManager.enroll/drop, SeatHoldManager
+ hold/confirm/release/enroll/swap and ServicesFacade force-add, bulk force-add,
+ capacity raises and section cancellations at the same time. Holds outlive the
+ run, so none expire under it. Once quiescent it checks:
+   - roster and student enrollment lists mirror each other exactly
+   - nobody is enrolled twice in a course
+   - every course's held-seat count equals the holds still outstanding on it
+   - enrolled plus held seats never exceed capacity in courses no admin override touched
+   - no time conflicts for students no admin override touched
+   - every (student, course) history is linearizable (see LinearizabilityChecker);
+     a swap counts as a drop-like step on its source and an enroll-like one on its target
+ With --store offheap the catalog lives in a CompactModelStore and the workers
+ use its views, whose Enrollments are rebuilt on every read, so the mirror check
+ compares (student, course) pairs instead of Enrollment identity.
+ Operation schedules derive only from the seed; a failing run prints the
+ command that replays its schedule. Thread interleaving is up to the OS, so a
+ replay re-runs the same schedule rather than the exact same race. On machines
+ with only a core or two races surface only at timeslice boundaries; raise
+ --ops there (with locking removed from EnrollmentManager, ~50000 ops per thread
+ finds the lost-update on a single core within a few runs).
+*/
+public class StressHarness {
+    private static final int STUDENTS = 48, COURSES = 8;
+    private static final String[] SLOTS = {"Mon9-11", "Tue10-12", "Wed9-11", "Thu13-15"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for(int i = 0; i + 1 < args.length; i += 2) opts.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        int threads = Integer.parseInt(opts.getOrDefault("threads", "16"));
+        int ops = Integer.parseInt(opts.getOrDefault("ops", "2000"));
+        boolean single = opts.containsKey("seed");
+        int runs = single ? 1 : Integer.parseInt(opts.getOrDefault("runs", "50"));
+        long seed = single ? Long.parseLong(opts.get("seed")) : System.nanoTime();
+        boolean offHeap = "offheap".equals(opts.get("store"));
+
+        PrintStream stdout = System.out;
+        int failed = 0;
+        for(int r = 0; r < runs; r++){
+            long runSeed = seed + r;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream())); // model code logs every operation
+            List<String> violations;
+            try {
+                violations = new StressHarness(offHeap).run(runSeed, threads, ops);
+            } finally {
+                System.setOut(stdout);
+            }
+            if(violations.isEmpty()){
+                System.out.println("run " + r + " seed=" + runSeed + ": OK");
+            } else {
+                failed++;
+                System.out.println("run " + r + " seed=" + runSeed + ": " + violations.size() + " violation(s)");
+                violations.stream().limit(20).forEach(v -> System.out.println("  - " + v));
+                System.out.println("  replay: java -cp out stress.StressHarness --seed " + runSeed
+                    + " --threads " + threads + " --ops " + ops + (offHeap ? " --store offheap" : ""));
+            }
+        }
+        System.out.println(failed == 0 ? "All " + runs + " runs passed." : failed + " of " + runs + " runs failed.");
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    private final EnrollmentManager manager = new EnrollmentManager();
+    private final SeatHoldManager holds = new SeatHoldManager(manager);
+    private final ServicesFacade facade = new ServicesFacade();
+    private final List<Student> students = new ArrayList<>();
+    private final List<Course> courses = new ArrayList<>();
+    private final Set<String> overriddenCourses = ConcurrentHashMap.newKeySet();
+    private final Set<String> overriddenStudents = ConcurrentHashMap.newKeySet();
+    private final Set<String> uncheckedKeys = ConcurrentHashMap.newKeySet(); // touched by multi-key bulk ops
+    private final ConcurrentLinkedQueue<LinearizabilityChecker.Op> history = new ConcurrentLinkedQueue<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final CompactModelStore store;
+
+    StressHarness(boolean offHeap){ store = offHeap ? new CompactModelStore() : null; }
+
+    List<String> run(long seed, int threads, int opsPerThread) throws Exception {
+        Random setup = new Random(seed);
+        for(int i = 0; i < COURSES; i++){
+            Course c = new Course("ST" + (100 + i), "Stress " + i, 2 + setup.nextInt(5), SLOTS[i % SLOTS.length]);
+            if(i % 3 == 2) c.addPrerequisite("ST" + (100 + i - 1));
+            if(store != null){
+                store.courses().put(c.getCode(), c);
+                c = store.courses().get(c.getCode());
+            }
+            courses.add(c);
+        }
+        for(int i = 0; i < STUDENTS; i++){
+            Student s = new Student("SS" + i, "Stress " + i);
+            if(setup.nextBoolean()) s.addCompletedCourse("ST" + (100 + setup.nextInt(COURSES)));
+            if(store != null){
+                store.students().put(s.getId(), s);
+                s = store.students().get(s.getId());
+            }
+            students.add(s);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<?>> done = new ArrayList<>();
+        for(int t = 0; t < threads; t++){
+            Random rnd = new Random(seed * 31 + t); // per-thread schedule, reproducible from the seed
+            done.add(pool.submit(() -> {
+                start.await();
+                for(int i = 0; i < opsPerThread; i++) step(rnd);
+                return null;
+            }));
+        }
+        try {
+            for(Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            return check();
+        } finally {
+            holds.shutdown();
+        }
+    }
+
+    private void step(Random rnd){
+        Student s = students.get(rnd.nextInt(STUDENTS));
+        Course c = courses.get(rnd.nextInt(COURSES));
+        int dice = rnd.nextInt(1000);
+        if(dice < 200){
+            record("enroll", s, c, () -> manager.enroll(s, c));
+        } else if(dice < 380){
+            record("enroll", s, c, () -> holds.enroll(s, c)); // confirms the student's hold if there is one
+        } else if(dice < 700){
+            record("drop", s, c, () -> manager.drop(s, c));
+        } else if(dice < 790){
+            holds.hold(s, c, SeatHoldManager.MAX_TTL_SECONDS);
+        } else if(dice < 830){
+            SeatHoldManager.Hold h = holds.holdOn(s, c);
+            if(h != null) record("confirm", s, c, () -> holds.confirm(s.getId(), h.id) == SeatHoldManager.Outcome.CONFIRMED);
+        } else if(dice < 860){
+            SeatHoldManager.Hold h = holds.holdOn(s, c);
+            if(h != null) holds.release(s.getId(), h.id);
+        } else if(dice < 920){
+            Course to = courses.get((courses.indexOf(c) + 1 + rnd.nextInt(COURSES - 1)) % COURSES);
+            long invoked = clock.incrementAndGet();
+            boolean ok = holds.swap(s, c, to);
+            long returned = clock.incrementAndGet();
+            history.add(new LinearizabilityChecker.Op(key(s, c), "swapOut", ok, invoked, returned));
+            history.add(new LinearizabilityChecker.Op(key(s, to), "swapIn", ok, invoked, returned));
+        } else if(dice < 960){
+            overriddenCourses.add(c.getCode());
+            overriddenStudents.add(s.getId());
+            record("forceAdd", s, c, () -> facade.forceAddStudentToCourse(s, c));
+        } else if(dice < 980){
+            List<Student> cohort = new ArrayList<>();
+            for(int i = 0; i < 4; i++) cohort.add(students.get(rnd.nextInt(STUDENTS)));
+            overriddenCourses.add(c.getCode());
+            for(Student x : cohort){ overriddenStudents.add(x.getId()); uncheckedKeys.add(key(x, c)); }
+            facade.bulkForceAdd(c, cohort);
+        } else if(dice < 995){
+            // raises only, so the capacity invariant stays meaningful
+            facade.bulkSetCapacity(Collections.singletonMap(c, c.getCapacity() + 1));
+        } else {
+            Course target = courses.get((courses.indexOf(c) + 1) % COURSES);
+            overriddenCourses.add(c.getCode());
+            overriddenCourses.add(target.getCode());
+            for(Student x : students){ uncheckedKeys.add(key(x, c)); uncheckedKeys.add(key(x, target)); }
+            for(Enrollment e : c.getRoster()) overriddenStudents.add(e.getStudent().getId());
+            facade.cancelSection(c, target);
+        }
+    }
+
+    private interface Call { boolean run(); }
+
+    private void record(String kind, Student s, Course c, Call call){
+        long invoked = clock.incrementAndGet();
+        boolean ok = call.run();
+        history.add(new LinearizabilityChecker.Op(key(s, c), kind, ok, invoked, clock.incrementAndGet()));
+    }
+
+    private List<String> check(){
+        List<String> violations = new ArrayList<>();
+        Map<Object, Integer> seen = new HashMap<>(); // Enrollments compare by identity
+        Map<String, Integer> finalState = new HashMap<>();
+        for(Course c : courses){
+            Set<String> ids = new HashSet<>();
+            for(Enrollment e : c.getRoster()){
+                seen.merge(mirrorKey(e), 1, Integer::sum);
+                if(e.getCourse() != c) violations.add("roster of " + c.getCode() + " holds " + e);
+                if(!ids.add(e.getStudent().getId())) violations.add("double enrollment: " + e);
+                finalState.merge(key(e.getStudent(), c), 1, Integer::sum);
+            }
+            int outstanding = 0;
+            for(Student s : students) if(holds.holdOn(s, c) != null) outstanding++;
+            if(c.getHeld() != outstanding){
+                violations.add("held seats of " + c.getCode() + ": counter " + c.getHeld() + ", outstanding holds " + outstanding);
+            }
+            if(!overriddenCourses.contains(c.getCode()) && c.getRoster().size() + c.getHeld() > c.getCapacity()){
+                violations.add("overbooked " + c.getCode() + ": " + c.getRoster().size() + " enrolled + " + c.getHeld() + " held / " + c.getCapacity());
+            }
+        }
+        for(Student s : students){
+            Set<String> slots = new HashSet<>();
+            for(Enrollment e : s.getEnrollments()){
+                if(seen.merge(mirrorKey(e), -1, Integer::sum) != 0) violations.add("student list and roster disagree on " + e);
+                if(!overriddenStudents.contains(s.getId()) && !slots.add(e.getCourse().getSchedule())){
+                    violations.add("time conflict for " + s.getId() + " in slot " + e.getCourse().getSchedule());
+                }
+            }
+        }
+        seen.forEach((e, n) -> { if(n != 0) violations.add("roster and student list disagree on " + e); });
+
+        Map<String, List<LinearizabilityChecker.Op>> byKey = new HashMap<>();
+        for(LinearizabilityChecker.Op op : history){
+            if(!uncheckedKeys.contains(op.key)) byKey.computeIfAbsent(op.key, k -> new ArrayList<>()).add(op);
+        }
+        for(Map.Entry<String, List<LinearizabilityChecker.Op>> en : byKey.entrySet()){
+            int enrolled = finalState.getOrDefault(en.getKey(), 0);
+            if(!LinearizabilityChecker.linearizable(en.getValue(), enrolled == 1)){
+                violations.add("non-linearizable history for " + en.getKey() + " (" + en.getValue().size() + " ops)");
+            }
+        }
+        return violations;
+    }
+
+    private static String key(Student s, Course c){ return s.getId() + "@" + c.getCode(); }
+
+    private Object mirrorKey(Enrollment e){ return store == null ? e : key(e.getStudent(), e.getCourse()); }
+}
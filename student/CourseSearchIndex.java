@@ -0,0 +1,254 @@
+package student;
+
+import common.models.*;
+import common.notification.NotificationListener;
+import common.store.IdInterner;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ Inverted index over the course catalog for GET /courses/search.
+ Every course gets a dense doc id (IdInterner); terms map to BitSet posting lists:
+   name tokens and course codes (lower-cased, prefix-searchable), schedule slots,
+   departments and prerequisites.
+ Structural postings are copy-on-write: add/remove clone only the posting lists
+ they touch and publish a new Snapshot, so queries never lock. Seat availability
+ changes on every enrollment, so it lives in a separate lock-free bitmap updated
+ from broker events (Observer). Prerequisite checks are bit tests against the
+ student's completed courses, run only for candidates that have prerequisites.
+*/
+public class CourseSearchIndex implements NotificationListener {
+    public static final int DEFAULT_LIMIT = 50;
+    private static final Set<String> SEAT_TOPICS = new HashSet<>(Arrays.asList("enrollment", "drop", "forceadd", "capacity", "waitlist", "hold"));
+
+    private final IdInterner ids = new IdInterner();
+    private volatile Snapshot snapshot = new Snapshot();
+    private volatile AtomicLongArray open = new AtomicLongArray(1); // doc id -> has a free seat
+
+    // Immutable once published; writers copy the parts they change.
+    private static final class Snapshot {
+        Course[] docs = new Course[0];
+        int[][] prerequisiteIds = new int[0][]; // by doc: ids of the course's prerequisites
+        BitSet live = new BitSet();
+        BitSet hasPrerequisites = new BitSet();
+        TreeMap<String, BitSet> words = new TreeMap<>(); // name tokens and codes
+        Map<String, BitSet> slots = new HashMap<>();
+        Map<String, BitSet> departments = new HashMap<>();
+        Map<String, BitSet> prerequisites = new HashMap<>();
+
+        Snapshot copy(){
+            Snapshot s = new Snapshot();
+            s.docs = docs; s.prerequisiteIds = prerequisiteIds; s.live = live; s.hasPrerequisites = hasPrerequisites;
+            s.words = new TreeMap<>(words);
+            s.slots = new HashMap<>(slots);
+            s.departments = new HashMap<>(departments);
+            s.prerequisites = new HashMap<>(prerequisites);
+            return s;
+        }
+    }
+
+    /** Search criteria; every filter that is set must hold. */
+    public static final class Query {
+        String text, slot, department, prerequisite;
+        boolean openOnly, noConflict, prerequisitesSatisfied;
+        Student student;
+        int limit = DEFAULT_LIMIT;
+
+        /** Whitespace-separated terms; each must prefix-match a word of the name or the code. */
+        public Query text(String t){ this.text = t; return this; }
+        public Query slot(String s){ this.slot = s; return this; }
+        public Query department(String d){ this.department = d; return this; }
+        /** Courses that require the given course. */
+        public Query prerequisite(String p){ this.prerequisite = p; return this; }
+        public Query openOnly(boolean b){ this.openOnly = b; return this; }
+        /** Student the conflict and prerequisite filters are evaluated for. */
+        public Query student(Student s){ this.student = s; return this; }
+        public Query noConflict(boolean b){ this.noConflict = b; return this; }
+        public Query prerequisitesSatisfied(boolean b){ this.prerequisitesSatisfied = b; return this; }
+        public Query limit(int n){ this.limit = n; return this; }
+    }
+
+    public static final class Result {
+        public final int total;
+        public final List<Course> courses;
+        Result(int total, List<Course> courses){ this.total = total; this.courses = courses; }
+    }
+
+    /** Indexes all courses in code order, so doc ids follow the catalog order. */
+    public synchronized void addAll(Collection<Course> courses){
+        List<Course> sorted = new ArrayList<>(courses);
+        sorted.sort(Comparator.comparing(Course::getCode));
+        Edit e = new Edit();
+        for(Course c : sorted) e.index(c);
+        e.publish();
+    }
+
+    /** Adds or re-indexes a course. */
+    public synchronized void add(Course c){
+        Edit e = new Edit();
+        e.index(c);
+        e.publish();
+    }
+
+    public synchronized void remove(String code){
+        int doc = ids.indexOf(code);
+        if(doc < 0) return;
+        Edit e = new Edit();
+        e.unindex(doc);
+        e.publish();
+    }
+
+    // One copy-on-write change set: each posting list touched is cloned once, then edited in place.
+    private final class Edit {
+        final Snapshot s = snapshot.copy();
+        final Set<BitSet> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<String> touched = new ArrayList<>();
+
+        Edit(){
+            s.docs = s.docs.clone();
+            s.prerequisiteIds = s.prerequisiteIds.clone();
+        }
+
+        void index(Course c){
+            int doc = ids.intern(c.getCode());
+            if(doc < s.docs.length && s.docs[doc] != null) unindex(doc);
+            if(doc >= s.docs.length){
+                s.docs = Arrays.copyOf(s.docs, Math.max(16, doc * 2));
+                s.prerequisiteIds = Arrays.copyOf(s.prerequisiteIds, s.docs.length);
+            }
+            s.docs[doc] = c;
+            // prerequisites get ids too (even ones not in the catalog) so checks are bit tests
+            int[] prerequisites = c.getPrerequisites().stream().mapToInt(ids::intern).toArray();
+            s.prerequisiteIds[doc] = prerequisites;
+            s.live = own(s.live);
+            s.live.set(doc);
+            for(String w : words(c)) post(s.words, w, doc, true);
+            post(s.slots, c.getSchedule(), doc, true);
+            post(s.departments, c.getDepartment(), doc, true);
+            for(int p : prerequisites) post(s.prerequisites, ids.nameOf(p), doc, true);
+            s.hasPrerequisites = own(s.hasPrerequisites);
+            s.hasPrerequisites.set(doc, prerequisites.length > 0);
+            touched.add(c.getCode());
+        }
+
+        void unindex(int doc){
+            Course c = s.docs[doc];
+            if(c == null) return;
+            // the course's prerequisites may have changed since it was indexed; unpost what was posted
+            for(int p : s.prerequisiteIds[doc]) post(s.prerequisites, ids.nameOf(p), doc, false);
+            s.docs[doc] = null;
+            s.prerequisiteIds[doc] = null;
+            s.live = own(s.live);
+            s.live.clear(doc);
+            for(String w : words(c)) post(s.words, w, doc, false);
+            post(s.slots, c.getSchedule(), doc, false);
+            post(s.departments, c.getDepartment(), doc, false);
+            s.hasPrerequisites = own(s.hasPrerequisites);
+            s.hasPrerequisites.clear(doc);
+        }
+
+        void publish(){
+            snapshot = s;
+            if(open.length() * 64 < s.docs.length){
+                // every bit is recomputed below; refreshSeats() redoes writes that still hit the old array
+                open = new AtomicLongArray(s.docs.length / 64 + 1);
+                for(Course c : s.docs) if(c != null) refreshSeats(c.getCode());
+            } else {
+                for(String code : touched) refreshSeats(code);
+            }
+        }
+
+        private BitSet own(BitSet b){
+            BitSet mine = b == null ? new BitSet() : owned.contains(b) ? b : (BitSet) b.clone();
+            owned.add(mine);
+            return mine;
+        }
+
+        private void post(Map<String, BitSet> postings, String term, int doc, boolean on){
+            if(term == null) return;
+            BitSet bits = own(postings.get(term));
+            bits.set(doc, on);
+            if(bits.isEmpty()) postings.remove(term);
+            else postings.put(term, bits);
+        }
+    }
+
+    /** Recomputes the open-seat bit of one course. */
+    public void refreshSeats(String code){
+        int doc = ids.indexOf(code);
+        int w = doc >>> 6;
+        long mask = 1L << doc;
+        while(true){
+            Course[] docs = snapshot.docs;
+            AtomicLongArray bits = open;
+            // not published yet, or the bitmap is being grown: publish() refreshes it
+            if(doc < 0 || doc >= docs.length || docs[doc] == null || w >= bits.length()) return;
+            Course c = docs[doc];
+            boolean full = c.isFull();
+            if(full) bits.getAndAccumulate(w, mask, (a, m) -> a & ~m);
+            else bits.getAndAccumulate(w, mask, (a, m) -> a | m);
+            // a write into a bitmap replaced meanwhile, or racing a newer seat change, is redone
+            if(open == bits && c.isFull() == full) return;
+        }
+    }
+
+    public void onNotify(String topic, String message){
+        if(!SEAT_TOPICS.contains(topic) || message == null) return;
+        for(String code : NotificationListener.courseCodes(message)) refreshSeats(code);
+    }
+
+    public Result search(Query q){
+        Snapshot s = snapshot;
+        BitSet hits = (BitSet) s.live.clone();
+        if(q.text != null){
+            for(String term : q.text.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")){
+                if(term.isEmpty()) continue;
+                BitSet any = new BitSet();
+                for(BitSet posting : s.words.subMap(term, true, term + Character.MAX_VALUE, false).values()) any.or(posting);
+                hits.and(any);
+            }
+        }
+        if(q.slot != null) hits.and(s.slots.getOrDefault(q.slot, new BitSet()));
+        if(q.department != null) hits.and(s.departments.getOrDefault(q.department.toUpperCase(Locale.ROOT), new BitSet()));
+        if(q.prerequisite != null) hits.and(s.prerequisites.getOrDefault(q.prerequisite, new BitSet()));
+        if(q.student != null && q.noConflict){
+            for(Enrollment e : q.student.getEnrollments()){
+                BitSet taken = s.slots.get(e.getCourse().getSchedule());
+                if(taken != null) hits.andNot(taken);
+            }
+        }
+        if(q.openOnly){
+            AtomicLongArray seats = open;
+            long[] words = new long[seats.length()];
+            for(int i = 0; i < words.length; i++) words[i] = seats.get(i);
+            hits.and(BitSet.valueOf(words));
+        }
+        if(q.student != null && q.prerequisitesSatisfied){
+            BitSet completed = new BitSet();
+            for(String code : q.student.getCompletedCourses()){
+                int id = ids.indexOf(code);
+                if(id >= 0) completed.set(id);
+            }
+            // only courses that have prerequisites need a per-course check
+            BitSet gated = (BitSet) hits.clone();
+            gated.and(s.hasPrerequisites);
+            for(int d = gated.nextSetBit(0); d >= 0; d = gated.nextSetBit(d + 1)){
+                for(int p : s.prerequisiteIds[d]){
+                    if(!completed.get(p)){ hits.clear(d); break; }
+                }
+            }
+        }
+        List<Course> page = new ArrayList<>(Math.min(q.limit, 64));
+        for(int d = hits.nextSetBit(0); d >= 0 && page.size() < q.limit; d = hits.nextSetBit(d + 1)) page.add(s.docs[d]);
+        return new Result(hits.cardinality(), page);
+    }
+
+    private static Set<String> words(Course c){
+        Set<String> out = new HashSet<>();
+        out.add(c.getCode().toLowerCase(Locale.ROOT));
+        for(String t : c.getName().toLowerCase(Locale.ROOT).split("[^a-z0-9]+")){
+            if(!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+}
@@ -3,10 +3,16 @@ package student;
 import java.util.*;
 import common.models.*;
 import student.validation.*;
+import common.jfr.EnrollmentEvent;
+import common.log.Log;
 import common.messagebus.MessageBroker;
+import common.trace.Span;
+import common.trace.Tracer;
 
 /*
  Core business logic for enrollment operations.
+ Operations lock the student, then the course(s) involved in course-code order,
+ so work on unrelated students and courses runs in parallel.
  Demonstrates:
   - Factory Method: EnrollmentValidatorFactory
   - Strategy: each EnrollmentValidator implements the validation strategy
@@ -14,53 +20,274 @@ import common.messagebus.MessageBroker;
   - Transactional behavior simulated: either all succeed or rollback
 */
 public class EnrollmentManager {
-    private final MessageBroker broker = new MessageBroker();
+    private final MessageBroker broker;
 
     public EnrollmentManager(){
+        this(new MessageBroker());
+    }
+    public EnrollmentManager(MessageBroker broker){
+        this.broker = broker;
+    }
+
+    public boolean enroll(Student s, Course c){
+        Log.println("Attempting to enroll " + s + " into " + c);
+        EnrollmentEvent ev = new EnrollmentEvent();
+        ev.begin();
+        long waitStart = ev.isEnabled() ? System.nanoTime() : 0;
+        Span lock = Tracer.start("acquire locks");
+        boolean ok;
+        // student then course(s), courses in code order: the student lock covers checks against the
+        // student's other enrollments, the course lock keeps admin force-adds (ServicesFacade) out
+        // of the check-then-add window
+        synchronized(s){
+            synchronized(c){
+                lock.end();
+                if(waitStart != 0) ev.lockWait = System.nanoTime() - waitStart;
+                ok = enrollLocked(s, c, ev);
+            }
+        }
+        commit(ev, "enroll", s, c);
+        return ok;
     }
 
-    public synchronized boolean enroll(Student s, Course c){
-        System.out.println("Attempting to enroll " + s + " into " + c);
+    private boolean enrollLocked(Student s, Course c, EnrollmentEvent ev){
         List<EnrollmentValidator> validators = EnrollmentValidatorFactory.createValidators();
         for(EnrollmentValidator v : validators){
-            if(!v.validate(s, c)){
-                System.out.println("Validation failed: " + v.reason());
+            Span check = Tracer.start("validate ", v.getClass().getSimpleName());
+            boolean ok;
+            try {
+                ok = v.validate(s, c);
+            } finally {
+                check.end();
+            }
+            if(!ok){
+                Log.println("Validation failed: " + v.reason());
+                ev.outcome = "rejected";
+                ev.rejectedBy = v.getClass().getSimpleName();
+                // a full course keeps the student in line for the next opened seat
+                if(v instanceof CapacityValidator) c.addToWaitlist(s.getId());
                 return false;
             }
         }
         // Simulate transaction: update multiple objects
         Enrollment e = new Enrollment(s, c);
+        Span commit = Tracer.start("commit");
         try {
             c.addEnrollment(e);
             s.addEnrollment(e);
-            System.out.println("Enrollment successful: " + e);
+            c.removeFromWaitlist(s.getId());
+            commit.end();
+            Log.println("Enrollment successful: " + e);
             // Publish event to message broker
             broker.publish("enrollment", "Student " + s.getId() + " enrolled in " + c.getCode());
+            ev.outcome = "enrolled";
             return true;
         } catch(Exception ex){
+            commit.end();
             // rollback simplistic
             c.removeEnrollment(new Enrollment(s,c));
             s.removeEnrollment(new Enrollment(s,c));
-            System.out.println("Enrollment failed, rolled back");
+            Log.println("Enrollment failed, rolled back");
+            ev.outcome = "rolled-back";
             return false;
         }
     }
 
+    /**
+     Reserves a seat in c for s without enrolling. Runs the same validators as
+     enroll, so a confirmed hold rarely fails; the seat counts as taken until
+     confirmHold or releaseHold.
+    */
+    public boolean hold(Student s, Course c){
+        EnrollmentEvent ev = new EnrollmentEvent();
+        ev.begin();
+        long waitStart = ev.isEnabled() ? System.nanoTime() : 0;
+        Span lock = Tracer.start("acquire locks");
+        boolean ok = true;
+        synchronized(s){
+            synchronized(c){
+                lock.end();
+                if(waitStart != 0) ev.lockWait = System.nanoTime() - waitStart;
+                for(EnrollmentValidator v : EnrollmentValidatorFactory.createValidators()){
+                    if(!v.validate(s, c)){
+                        Log.println("Hold rejected: " + v.reason());
+                        ev.outcome = "rejected";
+                        ev.rejectedBy = v.getClass().getSimpleName();
+                        if(v instanceof CapacityValidator) c.addToWaitlist(s.getId());
+                        ok = false;
+                        break;
+                    }
+                }
+                if(ok){
+                    c.addHold();
+                    ev.outcome = "held";
+                    broker.publish("hold", "Student " + s.getId() + " holds a seat in " + c.getCode());
+                }
+            }
+        }
+        commit(ev, "hold", s, c);
+        return ok;
+    }
+
+    /** Turns a hold placed with hold() into an enrollment; the held seat is freed if validation now fails. */
+    public boolean confirmHold(Student s, Course c){
+        EnrollmentEvent ev = new EnrollmentEvent();
+        ev.begin();
+        long waitStart = ev.isEnabled() ? System.nanoTime() : 0;
+        Span lock = Tracer.start("acquire locks");
+        boolean ok;
+        synchronized(s){
+            synchronized(c){
+                lock.end();
+                if(waitStart != 0) ev.lockWait = System.nanoTime() - waitStart;
+                // the held seat is handed to this enrollment, so capacity sees it as free
+                c.releaseHold();
+                ok = enrollLocked(s, c, ev);
+                if(!ok) broker.publish("waitlist", "Seat opened in " + c.getCode());
+            }
+        }
+        commit(ev, "confirm", s, c);
+        return ok;
+    }
+
+    /** Gives a held seat back (expiry or cancel) and tells the waitlist. */
+    public void releaseHold(Student s, Course c){
+        synchronized(c){
+            c.releaseHold();
+            Log.println("Released hold of " + s + " on " + c);
+            broker.publish("waitlist", "Seat opened in " + c.getCode());
+        }
+    }
+
+    /**
+     Moves s from one course to another in one step. The target is validated as if
+     the seat and time slot in from were already given up; either both changes
+     happen or neither does, so a failed swap keeps the original seat.
+    */
+    public boolean swap(Student s, Course from, Course to){
+        return swap(s, from, to, false);
+    }
+
+    /**
+     swap() for a student who holds a seat in to (settled by the caller): the held
+     seat is the one the student moves into. If the swap fails the hold's seat is
+     put back, so the caller can keep the hold.
+    */
+    public boolean swapIntoHold(Student s, Course from, Course to){
+        return swap(s, from, to, true);
+    }
+
+    private boolean swap(Student s, Course from, Course to, boolean holding){
+        if(from == to) return false;
+        Log.println("Attempting to swap " + s + " from " + from + " to " + to);
+        EnrollmentEvent ev = new EnrollmentEvent();
+        ev.begin();
+        long waitStart = ev.isEnabled() ? System.nanoTime() : 0;
+        Span lock = Tracer.start("acquire locks");
+        Course first = from.getCode().compareTo(to.getCode()) < 0 ? from : to;
+        Course second = first == from ? to : from;
+        boolean ok;
+        synchronized(s){
+            synchronized(first){
+                synchronized(second){
+                    lock.end();
+                    if(waitStart != 0) ev.lockWait = System.nanoTime() - waitStart;
+                    if(holding) to.releaseHold(); // capacity sees the student's own seat as free
+                    ok = swapLocked(s, from, to, ev);
+                    if(holding && !ok) to.addHold();
+                }
+            }
+        }
+        commit(ev, "swap", s, to);
+        return ok;
+    }
+
+    private boolean swapLocked(Student s, Course from, Course to, EnrollmentEvent ev){
+        Enrollment old = find(s, from);
+        if(old == null){
+            Log.println("Student not enrolled in course");
+            ev.outcome = "not-enrolled";
+            return false;
+        }
+        for(EnrollmentValidator v : EnrollmentValidatorFactory.createValidators()){
+            Span check = Tracer.start("validate ", v.getClass().getSimpleName());
+            boolean ok;
+            try {
+                ok = v.validate(s, to, from);
+            } finally {
+                check.end();
+            }
+            if(!ok){
+                Log.println("Swap validation failed: " + v.reason());
+                ev.outcome = "rejected";
+                ev.rejectedBy = v.getClass().getSimpleName();
+                if(v instanceof CapacityValidator) to.addToWaitlist(s.getId());
+                return false;
+            }
+        }
+        Enrollment e = new Enrollment(s, to);
+        Span commit = Tracer.start("commit");
+        s.removeEnrollment(old);
+        from.removeEnrollment(old);
+        to.addEnrollment(e);
+        s.addEnrollment(e);
+        to.removeFromWaitlist(s.getId());
+        commit.end();
+        Log.println("Swap successful: " + old + " -> " + e);
+        broker.publish("drop", "Student " + s.getId() + " dropped " + from.getCode());
+        broker.publish("waitlist", "Seat opened in " + from.getCode());
+        broker.publish("enrollment", "Student " + s.getId() + " enrolled in " + to.getCode());
+        ev.outcome = "swapped";
+        return true;
+    }
+
     // drop
-    public synchronized boolean drop(Student s, Course c){
-        System.out.println("Dropping " + s + " from " + c);
-        Enrollment found = null;
-        for(Enrollment e : s.getEnrollments()){
-            if(e.getCourse().getCode().equals(c.getCode())){
-                found = e; break;
+    public boolean drop(Student s, Course c){
+        Log.println("Dropping " + s + " from " + c);
+        EnrollmentEvent ev = new EnrollmentEvent();
+        ev.begin();
+        long waitStart = ev.isEnabled() ? System.nanoTime() : 0;
+        Span lock = Tracer.start("acquire locks");
+        boolean ok;
+        synchronized(s){
+            synchronized(c){
+                lock.end();
+                if(waitStart != 0) ev.lockWait = System.nanoTime() - waitStart;
+                ok = dropLocked(s, c);
             }
         }
+        ev.outcome = ok ? "dropped" : "not-enrolled";
+        commit(ev, "drop", s, c);
+        return ok;
+    }
+
+    // ids are only copied in when the event passed its threshold
+    private static void commit(EnrollmentEvent ev, String operation, Student s, Course c){
+        ev.end();
+        if(!ev.shouldCommit()) return;
+        ev.operation = operation;
+        ev.student = s.getId();
+        ev.course = c.getCode();
+        ev.commit();
+    }
+
+    private static Enrollment find(Student s, Course c){
+        for(Enrollment e : s.getEnrollments()){
+            if(e.getCourse().getCode().equals(c.getCode())) return e;
+        }
+        return null;
+    }
+
+    private boolean dropLocked(Student s, Course c){
+        Enrollment found = find(s, c);
         if(found == null){
-            System.out.println("Student not enrolled in course");
+            Log.println("Student not enrolled in course");
             return false;
         }
+        Span commit = Tracer.start("commit");
         s.removeEnrollment(found);
         c.removeEnrollment(found);
+        commit.end();
         broker.publish("drop", "Student " + s.getId() + " dropped " + c.getCode());
         // notify waitlist in real world
         broker.publish("waitlist", "Seat opened in " + c.getCode());
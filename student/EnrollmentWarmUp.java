@@ -0,0 +1,67 @@
+package student;
+
+import common.json.JsonFields;
+import common.messagebus.MessageBroker;
+import common.models.*;
+import common.notification.NotificationService;
+import common.store.CompactModelStore;
+import common.warmup.WarmUp;
+import java.util.*;
+
+/*
+ Warm-up workload of the student service: enroll, drop, swap and seat holds
+ through a private EnrollmentManager (all validators included), catalog search
+ and request parsing. The synthetic catalog lives in the same kind of model
+ store as the service's (-Dnexus.store), so the JIT profiles the receiver types
+ real requests will use. Drops balance enrollments, so every round sees a
+ similar mix of accepted and rejected attempts. Events go to a broker of its
+ own, with the search index as its only listener.
+*/
+final class EnrollmentWarmUp implements WarmUp.Workload {
+    private static final int STUDENTS = 2000, COURSES = 200, OPS_PER_ROUND = 2000;
+
+    private final CompactModelStore store = CompactModelStore.fromProperty();
+    private final Map<String, Student> students = store != null ? store.students() : new HashMap<>();
+    private final Map<String, Course> courses = store != null ? store.courses() : new HashMap<>();
+    private final NotificationService events = NotificationService.isolated();
+    private final EnrollmentManager manager = new EnrollmentManager(new MessageBroker(events));
+    private final CourseSearchIndex search = new CourseSearchIndex();
+    private final Random rnd = new Random(SyntheticCatalog.DEFAULT_SEED);
+    private final Student[] studentList;
+    private final Course[] courseList;
+
+    EnrollmentWarmUp(){
+        SyntheticCatalog.populate(students, courses, STUDENTS, COURSES, SyntheticCatalog.DEFAULT_SEED);
+        studentList = students.values().toArray(new Student[0]);
+        courseList = courses.values().toArray(new Course[0]);
+        search.addAll(courses.values());
+        events.register(search);
+    }
+
+    @Override
+    public void round(int round){
+        for(int i = 0; i < OPS_PER_ROUND; i++){
+            Student s = studentList[rnd.nextInt(studentList.length)];
+            Course c = courseList[rnd.nextInt(courseList.length)];
+            String body = "{\"courseId\":\"" + c.getCode() + "\"}";
+            c = courses.get(JsonFields.string(body, "courseId"));
+            int op = rnd.nextInt(10);
+            if(op < 5){
+                manager.enroll(s, c);
+            } else if(op < 8){
+                List<Enrollment> enrolled = s.getEnrollments();
+                if(!enrolled.isEmpty()) manager.drop(s, enrolled.get(rnd.nextInt(enrolled.size())).getCourse());
+            } else if(op < 9){
+                List<Enrollment> enrolled = s.getEnrollments();
+                if(!enrolled.isEmpty()) manager.swap(s, enrolled.get(0).getCourse(), c);
+            } else if(manager.hold(s, c)){
+                if(rnd.nextBoolean()) manager.confirmHold(s, c);
+                else manager.releaseHold(s, c);
+            }
+            if(i % 10 == 0){
+                search.search(new CourseSearchIndex.Query().text("synthetic " + (i % 100)).openOnly(true).student(s).noConflict(true));
+                search.search(new CourseSearchIndex.Query().department(c.getDepartment()).prerequisitesSatisfied(true).student(s));
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package student;
+
+import common.models.*;
+import common.store.IdInterner;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ Prerequisite DAG over the catalog for advising queries.
+ Courses (and prerequisite codes that are not offered) get dense ids. For each
+ course the graph keeps its direct prerequisites, its direct dependents and the
+ transitive closure of its prerequisites as BitSets. Edges that would close a
+ cycle are rejected, so the closure is always well defined. Adding a prerequisite
+ pushes the new closure to that course and its dependents only; removing one
+ recomputes the closure of the same courses, in topological order, from their
+ direct prerequisites.
+*/
+public class PrerequisiteGraph {
+    private final IdInterner ids = new IdInterner();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Course> courses;
+    private BitSet[] direct = new BitSet[0];     // id -> direct prerequisites
+    private BitSet[] dependents = new BitSet[0]; // id -> courses that list it directly
+    private BitSet[] closure = new BitSet[0];    // id -> all transitive prerequisites
+    private final List<String> rejected = new ArrayList<>();
+
+    /** Builds the graph from the courses' current prerequisites; cycle-closing edges are skipped and reported. */
+    public PrerequisiteGraph(Map<String, Course> courses){
+        this.courses = courses;
+        lock.writeLock().lock();
+        try {
+            List<String> codes = new ArrayList<>(courses.keySet());
+            Collections.sort(codes);
+            for(String code : codes) ids.intern(code);
+            grow();
+            for(String code : codes) for(String p : courses.get(code).getPrerequisites()){
+                if(!addEdge(code, p)) rejected.add(code + "->" + p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if(!rejected.isEmpty()) System.out.println("[PrerequisiteGraph] skipped cyclic prerequisites: " + rejected);
+    }
+
+    /**
+     Adds prerequisite p to course c, in the graph and on the Course.
+     Throws IllegalArgumentException if c is (transitively) a prerequisite of p.
+    */
+    public void addPrerequisite(Course c, String p){
+        lock.writeLock().lock();
+        try {
+            if(!addEdge(c.getCode(), p)){
+                throw new IllegalArgumentException("Cycle: " + p + " already requires " + c.getCode());
+            }
+            c.addPrerequisite(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes prerequisite p from course c, in the graph and on the Course. False if c did not require p. */
+    public boolean removePrerequisite(Course c, String p){
+        lock.writeLock().lock();
+        try {
+            removeEdge(c.getCode(), p);
+            return c.removePrerequisite(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Edges skipped at build time as "course->prerequisite". */
+    public List<String> rejectedEdges(){
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(rejected);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Every prerequisite of the course, direct or not. */
+    public Set<String> allPrerequisites(String code){
+        lock.readLock().lock();
+        try {
+            int c = ids.indexOf(code);
+            return c < 0 || c >= closure.length ? Collections.emptySet() : names(closure[c]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Offered courses the student can take: not completed, not currently enrolled,
+     and every direct prerequisite completed. With nextTerm, current enrollments
+     count as completed ("what can I take next term").
+    */
+    public List<String> eligibleCourses(Student s, boolean nextTerm){
+        lock.readLock().lock();
+        try {
+            BitSet done = completed(s);
+            BitSet enrolled = new BitSet();
+            for(Enrollment e : s.getEnrollments()){
+                int id = ids.indexOf(e.getCourse().getCode());
+                if(id >= 0) enrolled.set(id);
+            }
+            if(nextTerm) done.or(enrolled);
+            int n = ids.size();
+            int[] satisfied = new int[n];
+            for(int p = done.nextSetBit(0); p >= 0; p = done.nextSetBit(p + 1)){
+                if(p >= n) break;
+                for(int d = dependents[p].nextSetBit(0); d >= 0; d = dependents[p].nextSetBit(d + 1)) satisfied[d]++;
+            }
+            List<String> out = new ArrayList<>();
+            for(int c = 0; c < n; c++){
+                if(done.get(c) || enrolled.get(c) || satisfied[c] != direct[c].cardinality()) continue;
+                String code = ids.nameOf(c);
+                if(courses.containsKey(code)) out.add(code);
+            }
+            Collections.sort(out);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     Fastest route to the target: every missing prerequisite (transitively), grouped
+     into terms so each course comes after all of its prerequisites. The last term
+     holds the target itself. Empty if the target is already completed.
+    */
+    public List<List<String>> pathTo(String target, Student s){
+        lock.readLock().lock();
+        try {
+            int t = ids.indexOf(target);
+            if(t < 0 || t >= closure.length) return Collections.singletonList(Collections.singletonList(target));
+            BitSet done = completed(s);
+            if(done.get(t)) return Collections.emptyList();
+            BitSet missing = (BitSet) closure[t].clone();
+            missing.set(t);
+            missing.andNot(done);
+            // term of a course = 1 + latest term among its missing prerequisites
+            Map<Integer, Integer> term = new HashMap<>();
+            List<List<String>> terms = new ArrayList<>();
+            for(int c : topological(missing)){
+                int k = 0;
+                for(int p = direct[c].nextSetBit(0); p >= 0; p = direct[c].nextSetBit(p + 1)){
+                    Integer tp = term.get(p);
+                    if(tp != null) k = Math.max(k, tp + 1);
+                }
+                term.put(c, k);
+                while(terms.size() <= k) terms.add(new ArrayList<>());
+                terms.get(k).add(ids.nameOf(c));
+            }
+            for(List<String> l : terms) Collections.sort(l);
+            return terms;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Students not yet past the course whose completed courses cover its direct prerequisites. */
+    public List<String> eligibleStudents(String code, Collection<Student> students){
+        lock.readLock().lock();
+        try {
+            int c = ids.indexOf(code);
+            BitSet required = c < 0 || c >= direct.length ? new BitSet() : direct[c];
+            int need = required.cardinality();
+            List<String> out = new ArrayList<>();
+            for(Student s : students){
+                BitSet done = completed(s);
+                if(c >= 0 ? done.get(c) : s.hasCompleted(code)) continue;
+                done.and(required);
+                if(done.cardinality() == need) out.add(s.getId());
+            }
+            Collections.sort(out);
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     What finalizing the course's grades would unlock: for each student on its roster,
+     the dependent courses whose only missing prerequisite is this course.
+    */
+    public Map<String, List<String>> unlockedBy(Course course){
+        lock.readLock().lock();
+        try {
+            Map<String, List<String>> out = new TreeMap<>();
+            int c = ids.indexOf(course.getCode());
+            if(c < 0 || c >= dependents.length) return out;
+            for(Enrollment e : course.getRoster()){
+                Student s = e.getStudent();
+                BitSet done = completed(s);
+                done.set(c);
+                List<String> unlocked = new ArrayList<>();
+                for(int d = dependents[c].nextSetBit(0); d >= 0; d = dependents[c].nextSetBit(d + 1)){
+                    if(done.get(d)) continue;
+                    BitSet need = (BitSet) direct[d].clone();
+                    need.andNot(done);
+                    if(need.isEmpty()) unlocked.add(ids.nameOf(d));
+                }
+                if(!unlocked.isEmpty()){
+                    Collections.sort(unlocked);
+                    out.put(s.getId(), unlocked);
+                }
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // write lock held; false if the edge would close a cycle
+    private boolean addEdge(String code, String prerequisite){
+        int c = ids.intern(code), p = ids.intern(prerequisite);
+        grow();
+        if(c == p || closure[p].get(c)) return false;
+        if(direct[c].get(p)) return true;
+        direct[c].set(p);
+        dependents[p].set(c);
+        // c and everything that depends on c gain p's closure
+        BitSet gained = (BitSet) closure[p].clone();
+        gained.set(p);
+        Deque<Integer> work = new ArrayDeque<>();
+        work.add(c);
+        BitSet seen = new BitSet();
+        while(!work.isEmpty()){
+            int x = work.poll();
+            if(seen.get(x)) continue;
+            seen.set(x);
+            closure[x].or(gained);
+            for(int d = dependents[x].nextSetBit(0); d >= 0; d = dependents[x].nextSetBit(d + 1)) work.add(d);
+        }
+        return true;
+    }
+
+    // write lock held
+    private void removeEdge(String code, String prerequisite){
+        int c = ids.indexOf(code), p = ids.indexOf(prerequisite);
+        if(c < 0 || p < 0 || c >= direct.length || !direct[c].get(p)) return;
+        direct[c].clear(p);
+        dependents[p].clear(c);
+        // c and everything that depends on c may have reached p only through this edge
+        BitSet affected = new BitSet();
+        Deque<Integer> work = new ArrayDeque<>();
+        work.add(c);
+        while(!work.isEmpty()){
+            int x = work.poll();
+            if(affected.get(x)) continue;
+            affected.set(x);
+            for(int d = dependents[x].nextSetBit(0); d >= 0; d = dependents[x].nextSetBit(d + 1)) work.add(d);
+        }
+        for(int x : topological(affected)){
+            BitSet all = new BitSet();
+            for(int q = direct[x].nextSetBit(0); q >= 0; q = direct[x].nextSetBit(q + 1)){
+                all.or(closure[q]);
+                all.set(q);
+            }
+            closure[x] = all;
+        }
+    }
+
+    private void grow(){
+        int n = ids.size();
+        if(n <= direct.length) return;
+        int cap = Math.max(n, direct.length * 2);
+        int old = direct.length;
+        direct = Arrays.copyOf(direct, cap);
+        dependents = Arrays.copyOf(dependents, cap);
+        closure = Arrays.copyOf(closure, cap);
+        for(int i = old; i < cap; i++){
+            direct[i] = new BitSet();
+            dependents[i] = new BitSet();
+            closure[i] = new BitSet();
+        }
+    }
+
+    // Kahn's algorithm restricted to the given nodes (the graph is acyclic by construction)
+    private List<Integer> topological(BitSet nodes){
+        Map<Integer, Integer> indegree = new HashMap<>();
+        Deque<Integer> ready = new ArrayDeque<>();
+        for(int c = nodes.nextSetBit(0); c >= 0; c = nodes.nextSetBit(c + 1)){
+            BitSet in = (BitSet) direct[c].clone();
+            in.and(nodes);
+            indegree.put(c, in.cardinality());
+            if(in.isEmpty()) ready.add(c);
+        }
+        List<Integer> order = new ArrayList<>(indegree.size());
+        while(!ready.isEmpty()){
+            int c = ready.poll();
+            order.add(c);
+            for(int d = dependents[c].nextSetBit(0); d >= 0; d = dependents[c].nextSetBit(d + 1)){
+                Integer k = indegree.get(d);
+                if(k != null && indegree.put(d, k - 1) == 1) ready.add(d);
+            }
+        }
+        return order;
+    }
+
+    private BitSet completed(Student s){
+        BitSet done = new BitSet();
+        for(String code : s.getCompletedCourses()){
+            int id = ids.indexOf(code);
+            if(id >= 0) done.set(id);
+        }
+        return done;
+    }
+
+    private Set<String> names(BitSet bits){
+        Set<String> out = new TreeSet<>();
+        for(int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) out.add(ids.nameOf(i));
+        return out;
+    }
+}
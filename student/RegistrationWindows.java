@@ -0,0 +1,125 @@
+package student;
+
+import common.messagebus.MessageBroker;
+import common.store.IdInterner;
+import common.timer.TimingWheel;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Registration appointments: students are assigned to cohorts, each cohort opens
+ at its own time, and enrollment attempts before a student's window are turned
+ away at the door. Staggering cohorts meters registration into a steady rate
+ instead of one thundering herd.
+ The check is O(1): a student's dense id (IdInterner) indexes a short[] of cohort
+ numbers, and the cohort carries a volatile open flag. Cohorts are opened by the
+ single thread of a timing wheel at their appointment time, which also publishes
+ a "registration" event. Students without an appointment are not restricted.
+*/
+public class RegistrationWindows {
+    private static final int MAX_COHORTS = Short.MAX_VALUE;
+
+    private final IdInterner ids = new IdInterner();
+    private final TimingWheel wheel = new TimingWheel("registration-windows", 10, TimeUnit.MILLISECONDS);
+    private final MessageBroker broker = new MessageBroker();
+    private final Map<String, Cohort> byName = new LinkedHashMap<>(); // guarded by this
+    private volatile Cohort[] cohorts = new Cohort[1];                  // index 0 = no appointment
+    private volatile short[] cohortOf = new short[0];                   // student id -> cohort index
+
+    public static final class Cohort {
+        public final String name;
+        final int index;
+        volatile long opensAtMillis;
+        volatile boolean open;
+        volatile int size;
+        TimingWheel.Timeout opening; // guarded by RegistrationWindows.this
+        int generation;              // guarded by RegistrationWindows.this; stale openings are ignored
+
+        Cohort(String name, int index){ this.name = name; this.index = index; }
+
+        public long getOpensAtMillis(){ return opensAtMillis; }
+        public boolean isOpen(){ return open; }
+        public int getSize(){ return size; }
+    }
+
+    /**
+     Puts the students in the named cohort (created if needed) and sets when it opens.
+     Students move out of any earlier cohort. An appointment in the past opens at once.
+    */
+    public synchronized Cohort assign(String name, Collection<String> studentIds, long opensAtMillis){
+        Cohort c = byName.get(name);
+        if(c == null){
+            if(cohorts.length > MAX_COHORTS) throw new IllegalArgumentException("Too many cohorts (max " + MAX_COHORTS + ")");
+            c = new Cohort(name, cohorts.length);
+            Cohort[] grown = Arrays.copyOf(cohorts, cohorts.length + 1);
+            grown[c.index] = c;
+            cohorts = grown;
+            byName.put(name, c);
+        }
+        for(String id : studentIds) ids.intern(id);
+        short[] table = Arrays.copyOf(cohortOf, Math.max(cohortOf.length, ids.size()));
+        for(String id : studentIds){
+            int i = ids.indexOf(id);
+            Cohort previous = cohorts[table[i]];
+            if(previous == c) continue;
+            if(previous != null) previous.size--;
+            table[i] = (short) c.index;
+            c.size++;
+        }
+        cohortOf = table;
+        reschedule(c, opensAtMillis);
+        return c;
+    }
+
+    /**
+     Splits students, highest priority first, into cohorts of perWindow that open
+     intervalMillis apart starting at firstOpensAtMillis. Returns the cohorts created.
+    */
+    public synchronized List<Cohort> stagger(String prefix, List<String> byPriority, int perWindow, long firstOpensAtMillis, long intervalMillis){
+        if(perWindow <= 0) throw new IllegalArgumentException("perWindow must be positive");
+        List<Cohort> out = new ArrayList<>();
+        for(int from = 0, k = 1; from < byPriority.size(); from += perWindow, k++){
+            List<String> batch = byPriority.subList(from, Math.min(from + perWindow, byPriority.size()));
+            out.add(assign(prefix + "-" + k, batch, firstOpensAtMillis + (k - 1) * intervalMillis));
+        }
+        return out;
+    }
+
+    /** The student's cohort, or null if the student has no appointment. */
+    public Cohort cohortOf(String studentId){
+        int i = ids.indexOf(studentId);
+        short[] table = cohortOf;
+        return i < 0 || i >= table.length ? null : cohorts[table[i]];
+    }
+
+    /** O(1): true unless the student has an appointment that has not opened yet. */
+    public boolean isOpen(String studentId){
+        Cohort c = cohortOf(studentId);
+        return c == null || c.open;
+    }
+
+    public synchronized List<Cohort> cohorts(){ return new ArrayList<>(byName.values()); }
+
+    public void shutdown(){ wheel.stop(); }
+
+    // guarded by this
+    private void reschedule(Cohort c, long opensAtMillis){
+        if(c.opening != null) c.opening.cancel();
+        int generation = ++c.generation;
+        c.opensAtMillis = opensAtMillis;
+        long delay = opensAtMillis - System.currentTimeMillis();
+        if(delay <= 0){
+            open(c, generation);
+            return;
+        }
+        c.open = false;
+        c.opening = wheel.schedule(() -> open(c, generation), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void open(Cohort c, int generation){
+        if(c.open || c.generation != generation) return;
+        c.open = true;
+        System.out.println("[RegistrationWindows] cohort " + c.name + " open (" + c.size + " students)");
+        broker.publish("registration", "Registration window opened for cohort " + c.name);
+    }
+}
@@ -0,0 +1,195 @@
+package student;
+
+import common.models.*;
+import java.util.*;
+
+/*
+ Read-only schedule search for a student's wish list, so students can try
+ combinations without enroll/drop round trips.
+ The input is a list of requirements, each a list of alternative courses in order
+ of preference. Alternatives the validators would reject anyway (full, missing
+ prerequisites, already completed or enrolled, clashing with a current enrollment)
+ are filtered out up front. The remaining choices are searched depth-first,
+ most-constrained requirement first. Time slots are bits of a long mask, so a
+ clash is a single AND. Branches that cannot beat the worst schedule already kept
+ are pruned. The search stops when the time budget runs out and returns the best
+ schedules found so far.
+ Ranking: more requirements met, then more-preferred alternatives, then more credits.
+*/
+public class ScheduleBuilder {
+    public static final int DEFAULT_RESULTS = 5;
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+    private static final int CHECK_EVERY = 1024; // nodes between clock reads
+
+    private final Map<String, Course> courses;
+
+    public ScheduleBuilder(Map<String, Course> courses){ this.courses = courses; }
+
+    public static final class Schedule {
+        public final List<Course> courses;
+        public final int satisfied, penalty, credits;
+        Schedule(List<Course> courses, int satisfied, int penalty, int credits){
+            this.courses = courses; this.satisfied = satisfied; this.penalty = penalty; this.credits = credits;
+        }
+    }
+
+    public static final class Result {
+        public final List<Schedule> schedules;
+        public final Map<String, String> unavailable; // course -> reason it was left out
+        public final long explored;
+        public final boolean complete;                // false if the time budget cut the search short
+        Result(List<Schedule> schedules, Map<String, String> unavailable, long explored, boolean complete){
+            this.schedules = schedules; this.unavailable = unavailable; this.explored = explored; this.complete = complete;
+        }
+    }
+
+    // per-request search state
+    private static final class Search {
+        int[][] options;     // requirement -> candidate indexes, preferred first
+        Course[] candidates;
+        long[] slotBit;      // candidate -> slot mask
+        int[] rank;          // candidate -> position among its requirement's alternatives
+        int[] requirementAt; // search depth -> requirement index in the request
+        int maxResults;
+        long deadline, nodes;
+        boolean timedOut;
+        final PriorityQueue<Schedule> best = new PriorityQueue<>(ORDER.reversed()); // worst kept on top
+        final int[] chosen;
+
+        Search(int requirements){ chosen = new int[requirements]; }
+    }
+
+    // better schedules sort first
+    private static final Comparator<Schedule> ORDER = Comparator
+        .comparingInt((Schedule s) -> -s.satisfied)
+        .thenComparingInt(s -> s.penalty)
+        .thenComparingInt(s -> -s.credits);
+
+    /**
+     Throws IllegalArgumentException if a course is unknown or the candidates use
+     more than 64 distinct time slots.
+    */
+    public Result build(Student student, List<List<String>> requirements, int maxResults, long budgetMillis){
+        Map<String, String> unavailable = new LinkedHashMap<>();
+        Map<String, Integer> slotIndex = new HashMap<>();
+        long busy = 0;
+        Set<String> enrolled = new HashSet<>();
+        for(Enrollment e : student.getEnrollments()){
+            enrolled.add(e.getCourse().getCode());
+            busy |= slot(slotIndex, e.getCourse().getSchedule());
+        }
+
+        List<Course> candidates = new ArrayList<>();
+        List<Long> masks = new ArrayList<>();
+        List<Integer> ranks = new ArrayList<>();
+        List<int[]> options = new ArrayList<>();
+        for(List<String> alternatives : requirements){
+            List<Integer> usable = new ArrayList<>();
+            for(int r = 0; r < alternatives.size(); r++){
+                String code = alternatives.get(r);
+                Course c = courses.get(code);
+                if(c == null) throw new IllegalArgumentException("Course not found: " + code);
+                String reason = unavailableReason(student, c, enrolled);
+                long bit = slot(slotIndex, c.getSchedule());
+                if(reason == null && (busy & bit) != 0) reason = "conflicts with a current enrollment";
+                if(reason != null){
+                    unavailable.put(code, reason);
+                    continue;
+                }
+                usable.add(candidates.size());
+                candidates.add(c);
+                masks.add(bit);
+                ranks.add(r);
+            }
+            options.add(usable.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        Search s = new Search(requirements.size());
+        s.candidates = candidates.toArray(new Course[0]);
+        s.slotBit = masks.stream().mapToLong(Long::longValue).toArray();
+        s.rank = ranks.stream().mapToInt(Integer::intValue).toArray();
+        s.maxResults = Math.max(1, maxResults);
+        s.deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        // most constrained requirement first: fewer alternatives -> earlier failure
+        Integer[] order = new Integer[options.size()];
+        for(int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> options.get(i).length));
+        s.options = new int[order.length][];
+        s.requirementAt = new int[order.length];
+        for(int i = 0; i < order.length; i++){
+            s.options[i] = options.get(order[i]);
+            s.requirementAt[i] = order[i];
+        }
+        Arrays.fill(s.chosen, -1);
+
+        search(s, 0, 0L, 0, 0, 0);
+
+        List<Schedule> ranked = new ArrayList<>(s.best);
+        ranked.sort(ORDER);
+        return new Result(ranked, unavailable, s.nodes, !s.timedOut);
+    }
+
+    private void search(Search s, int depth, long mask, int satisfied, int penalty, int credits){
+        if(s.timedOut) return;
+        if(++s.nodes % CHECK_EVERY == 0 && System.nanoTime() > s.deadline){
+            s.timedOut = true;
+            return;
+        }
+        int remaining = s.options.length - depth;
+        if(s.best.size() == s.maxResults){
+            Schedule worst = s.best.peek();
+            // even meeting every remaining requirement cannot beat the worst kept schedule
+            // (penalty only grows, so a tie on requirements needs a penalty no worse than its)
+            int bound = satisfied + remaining;
+            if(bound < worst.satisfied || (bound == worst.satisfied && penalty > worst.penalty)) return;
+        }
+        if(depth == s.options.length){
+            offer(s, satisfied, penalty, credits);
+            return;
+        }
+        for(int cand : s.options[depth]){
+            if((mask & s.slotBit[cand]) != 0) continue;
+            s.chosen[depth] = cand;
+            search(s, depth + 1, mask | s.slotBit[cand], satisfied + 1, penalty + s.rank[cand],
+                credits + s.candidates[cand].getCredits());
+        }
+        // leaving the requirement unmet is also a (lower ranked) option
+        s.chosen[depth] = -1;
+        search(s, depth + 1, mask, satisfied, penalty, credits);
+    }
+
+    private void offer(Search s, int satisfied, int penalty, int credits){
+        if(satisfied == 0) return;
+        // report courses in the order the requirements were given
+        Course[] byRequirement = new Course[s.chosen.length];
+        for(int d = 0; d < s.chosen.length; d++) if(s.chosen[d] >= 0) byRequirement[s.requirementAt[d]] = s.candidates[s.chosen[d]];
+        List<Course> picked = new ArrayList<>(satisfied);
+        for(Course c : byRequirement) if(c != null) picked.add(c);
+        Schedule sched = new Schedule(picked, satisfied, penalty, credits);
+        if(s.best.size() < s.maxResults){
+            s.best.add(sched);
+        } else if(ORDER.compare(sched, s.best.peek()) < 0){
+            s.best.poll();
+            s.best.add(sched);
+        }
+    }
+
+    // Same rules the enrollment validators apply, evaluated without side effects.
+    private static String unavailableReason(Student s, Course c, Set<String> enrolled){
+        if(s.hasCompleted(c.getCode())) return "already completed";
+        if(enrolled.contains(c.getCode())) return "already enrolled";
+        for(String p : c.getPrerequisites()) if(!s.hasCompleted(p)) return "missing prerequisites";
+        if(c.isFull()) return "full";
+        return null;
+    }
+
+    private static long slot(Map<String, Integer> index, String schedule){
+        Integer i = index.get(schedule);
+        if(i == null){
+            if(index.size() == 64) throw new IllegalArgumentException("Too many distinct time slots in one request (max 64)");
+            i = index.size();
+            index.put(schedule, i);
+        }
+        return 1L << i;
+    }
+}
@@ -0,0 +1,250 @@
+package student;
+
+import com.sun.net.httpserver.HttpExchange;
+import common.models.Course;
+import common.notification.NotificationListener;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ Server-Sent Events hub for seat availability (GET /courses/seats/stream?courses=CS201,BUS101).
+ Broker events (Observer) that change a course's seats become one "seats" frame,
+ serialized once and handed to the subscribers of that course only. Frames are
+ queued per subscriber, and handler threads return right after subscribing.
+ HttpExchange streams only block, so each subscriber with frames to send is
+ drained by a writer thread of its own (an elastic pool, at most one thread per
+ subscriber): a client that stops reading blocks its own writer, never another
+ client's or the publisher. Such a client is cut off either way: once
+ MAX_PENDING frames pile up, or when one write has been stuck for
+ WRITE_TIMEOUT_SECONDS (the writer is interrupted, which closes the socket).
+ It resumes with Last-Event-ID.
+ Recent frames are kept in a ring buffer for resume; a client whose last id has
+ already been overwritten gets a fresh snapshot of its courses instead.
+ Comment-line heartbeats keep idle connections (and proxies) alive.
+*/
+public class SeatAvailabilityStream implements NotificationListener {
+    private static final Set<String> TOPICS = new HashSet<>(Arrays.asList("enrollment", "drop", "forceadd", "capacity", "waitlist", "hold"));
+    private static final int HISTORY = 4096;
+    private static final int MAX_PENDING = 256; // frames queued for one subscriber before it is dropped
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final long WRITE_TIMEOUT_SECONDS = 15; // checked on every heartbeat tick
+    private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<String, Course> courses;
+    private final Map<String, Set<Subscriber>> byCourse = new HashMap<>(); // guarded by this; sets tolerate removal mid-fan-out
+    private final Set<Subscriber> all = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet(); // a writer is in the subscriber's I/O
+    private final Map<String, String> lastState = new HashMap<>();      // guarded by this; suppresses no-op frames
+    private final Frame[] history = new Frame[HISTORY];                  // guarded by this
+    private long nextId = 1;                                             // guarded by this
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeat;
+
+    private static final class Frame {
+        final long id;
+        final String course;
+        final byte[] bytes;
+        Frame(long id, String course, byte[] bytes){ this.id = id; this.course = course; this.bytes = bytes; }
+    }
+
+    public SeatAvailabilityStream(Map<String, Course> courses){
+        this.courses = courses;
+        this.writers = Executors.newCachedThreadPool(daemon("sse-writer"));
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("sse-heartbeat"));
+        heartbeat.scheduleAtFixedRate(() -> {
+            long stuckSince = System.nanoTime() - TimeUnit.SECONDS.toNanos(WRITE_TIMEOUT_SECONDS);
+            for(Subscriber s : writing) s.abortIfStuck(stuckSince);
+            for(Subscriber s : all) s.offer(HEARTBEAT);
+        }, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void onNotify(String topic, String message){
+        if(!TOPICS.contains(topic) || message == null) return;
+        for(String code : NotificationListener.courseCodes(message)){
+            Course c = courses.get(code);
+            if(c != null) publish(c);
+        }
+    }
+
+    /** Pushes the course's current seat state to its subscribers, unless nothing changed. */
+    public synchronized void publish(Course c){
+        String data = seatJson(c);
+        if(data.equals(lastState.put(c.getCode(), data))) return;
+        Frame f = frame(c.getCode(), data);
+        Set<Subscriber> subs = byCourse.get(c.getCode());
+        if(subs != null) for(Subscriber s : subs) s.offer(f.bytes);
+    }
+
+    /**
+     Takes over the exchange as a long-lived event stream; returns immediately.
+     lastEventId is the client's Last-Event-ID header (null on first connect).
+    */
+    public void subscribe(HttpExchange exchange, Set<String> codes, String lastEventId) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        Subscriber sub = new Subscriber(exchange, codes);
+        sub.offer("retry: 3000\n\n".getBytes(StandardCharsets.UTF_8));
+        long last = parseId(lastEventId);
+        all.add(sub);
+        synchronized(this){
+            if(last >= 0 && last + HISTORY >= nextId - 1 && last < nextId){
+                // resume: replay what the client missed, in order
+                for(long id = last + 1; id < nextId; id++){
+                    Frame f = history[(int) (id % HISTORY)];
+                    if(codes.contains(f.course)) sub.offer(f.bytes);
+                }
+            } else {
+                // first connect, or the gap is no longer in history: start from a snapshot,
+                // stamped with the latest id so a reconnect resumes from here
+                for(String code : codes){
+                    Course c = courses.get(code);
+                    if(c != null) sub.offer(encode(nextId - 1, seatJson(c)));
+                }
+            }
+            for(String code : codes) byCourse.computeIfAbsent(code, k -> ConcurrentHashMap.newKeySet()).add(sub);
+        }
+        System.out.println("[SeatStream] subscriber for " + codes + " (" + all.size() + " connected)");
+    }
+
+    public int subscriberCount(){ return all.size(); }
+
+    public void shutdown(){
+        heartbeat.shutdownNow();
+        for(Subscriber s : all) s.close();
+        writers.shutdown();
+    }
+
+    // guarded by this
+    private Frame frame(String code, String data){
+        long id = nextId++;
+        Frame f = new Frame(id, code, encode(id, data));
+        history[(int) (id % HISTORY)] = f;
+        return f;
+    }
+
+    private static byte[] encode(long id, String data){
+        return ("id: " + id + "\nevent: seats\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private synchronized void unsubscribe(Subscriber sub){
+        for(String code : sub.courses){
+            Set<Subscriber> subs = byCourse.get(code);
+            if(subs != null && subs.remove(sub) && subs.isEmpty()) byCourse.remove(code);
+        }
+    }
+
+    private static String seatJson(Course c){
+        int enrolled = c.getRoster().size();
+        int held = c.getHeld();
+        return String.format("{\"course\":\"%s\",\"enrolled\":%d,\"held\":%d,\"capacity\":%d,\"available\":%d,\"waitlisted\":%d}",
+            c.getCode(), enrolled, held, c.getCapacity(), Math.max(0, c.getCapacity() - enrolled - held), c.getWaitlist().size());
+    }
+
+    private static long parseId(String id){
+        if(id == null) return -1;
+        try {
+            return Long.parseLong(id.trim());
+        } catch(NumberFormatException e){
+            return -1;
+        }
+    }
+
+    private static ThreadFactory daemon(String name){
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // Frames for one client; at most one writer drains a subscriber at a time, and only
+    // that writer touches the exchange, including closing it.
+    private final class Subscriber implements Runnable {
+        final HttpExchange exchange;
+        final OutputStream out;
+        final Set<String> courses;
+        final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean released = new AtomicBoolean(); // exchange closed
+        volatile boolean closed;
+        private Thread writer;              // guarded by this: set while a writer is in run()
+        private volatile long writeStarted; // of the write in progress
+
+        Subscriber(HttpExchange exchange, Set<String> courses){
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+            this.courses = courses;
+        }
+
+        void offer(byte[] frame){
+            if(closed) return;
+            if(queued.incrementAndGet() > MAX_PENDING){
+                System.out.println("[SeatStream] dropping slow subscriber for " + courses);
+                close();
+                return;
+            }
+            pending.add(frame);
+            schedule();
+        }
+
+        private void schedule(){
+            if(scheduled.compareAndSet(false, true)){
+                try {
+                    writers.execute(this);
+                } catch(RejectedExecutionException e){
+                    closed = true;
+                    if(released.compareAndSet(false, true)) exchange.close(); // shut down: nothing left to write
+                }
+            }
+        }
+
+        public void run(){
+            synchronized(this){ writer = Thread.currentThread(); }
+            writing.add(this);
+            try {
+                byte[] f;
+                while(!closed && (f = pending.poll()) != null){
+                    queued.decrementAndGet();
+                    writeStarted = System.nanoTime();
+                    out.write(f);
+                }
+                writeStarted = System.nanoTime();
+                if(!closed) out.flush();
+            } catch(IOException e){
+                close(); // client went away, or a stuck write was interrupted
+            } finally {
+                if(closed && released.compareAndSet(false, true)) exchange.close();
+                writing.remove(this);
+                synchronized(this){ writer = null; }
+                Thread.interrupted(); // an abort that raced the end of the write must not reach the next task
+                scheduled.set(false);
+            }
+            // frames offered meanwhile, or a close() that found this writer busy
+            if(closed ? !released.get() : !pending.isEmpty()) schedule();
+        }
+
+        // the interrupt closes the socket channel under a blocked write, which then fails
+        synchronized void abortIfStuck(long stuckSince){
+            if(writer != null && writeStarted - stuckSince < 0){
+                System.out.println("[SeatStream] write to subscriber for " + courses + " stuck, disconnecting");
+                writer.interrupt();
+            }
+        }
+
+        // never blocks: the writer thread releases the exchange
+        void close(){
+            if(closed) return;
+            closed = true;
+            all.remove(this);
+            unsubscribe(this);
+            pending.clear();
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package student;
+
+import common.log.Log;
+import common.models.*;
+import common.timer.TimingWheel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Time-limited seat holds. A hold reserves a seat in a course for a short TTL
+ without creating an Enrollment, so a student can decide without enrolling
+ "just in case" and dropping later. Confirming turns the hold into an enrollment.
+ If the hold is not confirmed it expires, and the seat goes back with the same
+ waitlist event a drop publishes.
+ Expiry deadlines sit in a hierarchical timing wheel, so hundreds of thousands of
+ holds cost one list node each and no per-hold timer or periodic scan. Exactly one
+ of confirm, release and expiry settles a hold.
+*/
+public class SeatHoldManager {
+    public static final long DEFAULT_TTL_SECONDS = 120;
+    public static final long MAX_TTL_SECONDS = 900;
+
+    private final EnrollmentManager enrollments;
+    private final TimingWheel wheel = new TimingWheel("seat-hold-expiry", 10, TimeUnit.MILLISECONDS);
+    private final Map<String, Hold> byId = new ConcurrentHashMap<>();
+    private final Map<String, Hold> byStudentCourse = new ConcurrentHashMap<>(); // one hold per student and course
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    public static final class Hold {
+        public final String id;
+        public final Student student;
+        public final Course course;
+        public final long expiresAtMillis;
+        final AtomicBoolean settled = new AtomicBoolean();
+        final CountDownLatch placed = new CountDownLatch(1); // counted down once the seat is held or refused
+        volatile boolean valid;
+        volatile TimingWheel.Timeout timeout;
+
+        Hold(String id, Student student, Course course, long expiresAtMillis){
+            this.id = id; this.student = student; this.course = course; this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    public enum Outcome { CONFIRMED, REJECTED, NOT_FOUND }
+
+    public SeatHoldManager(EnrollmentManager enrollments){ this.enrollments = enrollments; }
+
+    /**
+     Places a hold, or returns the student's existing hold on the course unchanged.
+     Returns null if the seat cannot be held (full, prerequisites, conflicts...).
+     A hold still being placed by another request is waited for, and only
+     returned once its seat is actually held and it has not been settled.
+    */
+    public Hold hold(Student s, Course c, long ttlSeconds){
+        long ttl = Math.max(1, Math.min(ttlSeconds, MAX_TTL_SECONDS));
+        Hold h = new Hold("H" + nextId.incrementAndGet(), s, c, System.currentTimeMillis() + ttl * 1000);
+        while(true){
+            Hold existing = byStudentCourse.putIfAbsent(key(s, c), h);
+            if(existing == null) break;
+            awaitPlaced(existing);
+            if(existing.valid && !existing.settled.get()) return existing;
+            byStudentCourse.remove(key(s, c), existing); // refused or already settled: place a new one
+        }
+        try {
+            if(!enrollments.hold(s, c)){
+                byStudentCourse.remove(key(s, c), h);
+                return null;
+            }
+            byId.put(h.id, h);
+            h.timeout = wheel.schedule(() -> expire(h), ttl, TimeUnit.SECONDS);
+            h.valid = true;
+            return h;
+        } finally {
+            h.placed.countDown();
+        }
+    }
+
+    /** The student's hold on the course, once placed and while unsettled; null otherwise. */
+    public Hold holdOn(Student s, Course c){
+        Hold h = byStudentCourse.get(key(s, c));
+        if(h == null) return null;
+        awaitPlaced(h);
+        return h.valid && !h.settled.get() ? h : null;
+    }
+
+    /**
+     Enrolls s in c. A student who holds a seat in c enrolls into that seat (the
+     hold is confirmed) instead of taking a second one or being waitlisted.
+    */
+    public boolean enroll(Student s, Course c){
+        Hold h = holdOn(s, c);
+        if(h != null){
+            switch(confirm(s.getId(), h.id)){
+                case CONFIRMED: return true;
+                case REJECTED: return false;
+                default: break; // settled meanwhile (expired or released): the seat went back
+            }
+        }
+        return enrollments.enroll(s, c);
+    }
+
+    /** Swaps s from one course to another; a hold of s on the target is the seat s moves into. */
+    public boolean swap(Student s, Course from, Course to){
+        Hold h = holdOn(s, to);
+        if(h == null || !settle(h)) return enrollments.swap(s, from, to);
+        if(enrollments.swapIntoHold(s, from, to)) return true;
+        restore(h); // the swap was refused: the student keeps the hold for its remaining time
+        return false;
+    }
+
+    /** Holds are looked up by id and must belong to the given student. */
+    public Hold find(String studentId, String holdId){
+        Hold h = byId.get(holdId);
+        return h != null && h.student.getId().equals(studentId) ? h : null;
+    }
+
+    public Outcome confirm(String studentId, String holdId){
+        Hold h = find(studentId, holdId);
+        if(h == null || !settle(h)) return Outcome.NOT_FOUND;
+        return enrollments.confirmHold(h.student, h.course) ? Outcome.CONFIRMED : Outcome.REJECTED;
+    }
+
+    /** Gives the seat back early; false if the hold was not found or already settled. */
+    public boolean release(String studentId, String holdId){
+        Hold h = find(studentId, holdId);
+        if(h == null || !settle(h)) return false;
+        enrollments.releaseHold(h.student, h.course);
+        return true;
+    }
+
+    public int active(){ return byId.size(); }
+
+    public long expiredCount(){ return expired.get(); }
+
+    public void shutdown(){ wheel.stop(); }
+
+    // runs on the wheel thread, which stays quiet: a burst of expiries is counted, not logged line by line
+    private void expire(Hold h){
+        if(!h.settled.compareAndSet(false, true)) return;
+        Log.mute(true);
+        forget(h);
+        expired.incrementAndGet();
+        enrollments.releaseHold(h.student, h.course);
+    }
+
+    // Re-registers a hold settled by a swap that did not go through; its seat was never given up.
+    private void restore(Hold settled){
+        Hold h = new Hold(settled.id, settled.student, settled.course, settled.expiresAtMillis);
+        h.valid = true;
+        h.placed.countDown();
+        if(byStudentCourse.putIfAbsent(key(h.student, h.course), h) != null){
+            enrollments.releaseHold(h.student, h.course); // a new hold was placed meanwhile and has its own seat
+            return;
+        }
+        byId.put(h.id, h);
+        long left = Math.max(1, h.expiresAtMillis - System.currentTimeMillis());
+        h.timeout = wheel.schedule(() -> expire(h), left, TimeUnit.MILLISECONDS);
+    }
+
+    // the other request is only validating the seat, so this wait is short and not cut off by interrupts
+    private static void awaitPlaced(Hold h){
+        boolean interrupted = false;
+        while(true){
+            try {
+                h.placed.await();
+                break;
+            } catch(InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+
+    private boolean settle(Hold h){
+        if(!h.settled.compareAndSet(false, true)) return false;
+        TimingWheel.Timeout t = h.timeout;
+        if(t != null) t.cancel();
+        forget(h);
+        return true;
+    }
+
+    private void forget(Hold h){
+        byId.remove(h.id);
+        byStudentCourse.remove(key(h.student, h.course), h);
+    }
+
+    private static String key(Student s, Course c){ return s.getId() + '|' + c.getCode(); }
+}
@@ -3,31 +3,84 @@ package student;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import common.json.JsonFields;
 import common.models.*;
 import common.messagebus.MessageBroker;
 import common.notification.NotificationListener;
+import common.store.CompactModelStore;
+import common.trace.TraceFilter;
+import common.warmup.Readiness;
+import common.warmup.WarmUp;
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Student Service as a proper HTTP microservice
  * Endpoints:
  * POST /students/{studentId}/enrollments - enroll in course
+ * GET /students/{studentId}/enrollments - enrolled courses with their seat counts, and waitlist positions
  * DELETE /students/{studentId}/enrollments/{courseId} - drop course
- * GET /health - health check
+ * POST /students/{studentId}/enrollments/swap - drop one course and enroll in another atomically
+ *     Body: {"from":"CS201","to":"CS202"}
+ * GET /courses/search?q=&slot=&department=&prerequisite=&open=&studentId=&noConflict=&prerequisitesSatisfied=&limit=
+ *     - catalog search (CourseSearchIndex)
+ * GET /students/{studentId}/eligible[?nextTerm=true] - courses the student can take (PrerequisiteGraph)
+ * GET /students/{studentId}/path/{courseId} - missing prerequisites grouped into terms
+ * GET /courses/{courseId}/eligible-students - students whose completed courses satisfy its prerequisites
+ * GET /courses/{courseId}/unlocks - per rostered student, courses unlocked once this course is completed
+ * GET /courses/{courseId}/prerequisites - direct and transitive prerequisites
+ * POST /courses/{courseId}/prerequisites - add a prerequisite (409 if it would close a cycle)
+ *     Body: {"courseId":"CS101"}
+ * DELETE /courses/{courseId}/prerequisites/{prerequisiteId} - remove a prerequisite
+ * POST /students/{studentId}/holds - hold a seat without enrolling (SeatHoldManager)
+ *     Body: {"courseId":"CS201","ttlSeconds":120}
+ * POST /students/{studentId}/holds/{holdId}/confirm - turn the hold into an enrollment
+ * DELETE /students/{studentId}/holds/{holdId} - release the held seat
+ * POST /students/{studentId}/schedules - ranked conflict-free schedules for a wish list (read-only)
+ *     Body: {"requirements":[["CS201","CS202"],"BUS101"],"limit":5,"budgetMillis":50}
+ * GET /students/{studentId}/registration-window - the student's appointment (RegistrationWindows)
+ * GET /registration/windows - cohorts with their opening times
+ * POST /registration/windows - assign students to a cohort
+ *     Body: {"cohort":"seniors","students":["S001"],"opensAt":"2026-11-02T08:00:00Z"} (or "opensInSeconds":60)
+ * POST /registration/windows/stagger - split students (priority order) into cohorts opening at intervals
+ *     Body: {"prefix":"fall","students":["S001","S002"],"perWindow":500,"opensInSeconds":60,"intervalSeconds":300}
+ *   Enroll, hold and swap requests before the student's window opens get 403 with Retry-After.
+ * GET /courses/seats/stream?courses=CS201,BUS101 - Server-Sent Events stream of seat changes
+ *     (SeatAvailabilityStream; honours Last-Event-ID)
+ * GET /health - health check (always 200 once bound, with a ready flag)
+ * GET /health/live - liveness: 200 while the process serves requests
+ * GET /health/ready - readiness: 503 until data load and JIT warm-up (WarmUp) have finished
  */
 public class StudentHttpService {
     private static final int PORT = 8081;
     private final EnrollmentManager enrollmentManager;
     private final MessageBroker broker;
+    private final CourseSearchIndex searchIndex = new CourseSearchIndex();
+    private final SeatAvailabilityStream seatStream;
+    private final PrerequisiteGraph prerequisites;
+    private final ScheduleBuilder scheduleBuilder;
+    private final SeatHoldManager seatHolds;
+    private final RegistrationWindows registrationWindows = new RegistrationWindows();
     private HttpServer server;
     
-    // In-memory data store for demo purposes
-    private final Map<String, Student> students = new ConcurrentHashMap<>();
-    private final Map<String, Course> courses = new ConcurrentHashMap<>();
+    // In-memory data store for demo purposes (off-heap records with -Dnexus.store=offheap)
+    private final CompactModelStore store = CompactModelStore.fromProperty();
+    private final Map<String, Student> students = store != null ? store.students() : new ConcurrentHashMap<>();
+    private final Map<String, Course> courses = store != null ? store.courses() : new ConcurrentHashMap<>();
+    private final Readiness readiness = new Readiness(Readiness.DATA, Readiness.WARMUP);
     
     public StudentHttpService() {
         this.enrollmentManager = new EnrollmentManager();
@@ -42,6 +95,17 @@ public class StudentHttpService {
         
         // Initialize sample data
         initializeSampleData();
+        SyntheticCatalog.populateFromProperty(students, courses);
+        if (store != null) System.out.println("Model store: " + store);
+        searchIndex.addAll(courses.values());
+        broker.subscribe(searchIndex); // keeps open-seat bits current
+        prerequisites = new PrerequisiteGraph(courses);
+        scheduleBuilder = new ScheduleBuilder(courses);
+        seatHolds = new SeatHoldManager(enrollmentManager);
+        seatStream = new SeatAvailabilityStream(courses);
+        broker.subscribe(seatStream);
+
+        readiness.done(Readiness.DATA);
     }
     
     private void initializeSampleData() {
@@ -69,21 +133,37 @@ public class StudentHttpService {
         server = HttpServer.create(new InetSocketAddress(PORT), 0);
         
         // Define endpoints
-        server.createContext("/students", new EnrollmentHandler());
-        server.createContext("/health", new HealthHandler());
+        TraceFilter.install("student-service", server.createContext("/students", new EnrollmentHandler()));
+        TraceFilter.install("student-service", server.createContext("/courses", new CourseHandler()));
+        TraceFilter.install("student-service", server.createContext("/registration", new RegistrationHandler()));
+        TraceFilter.install("student-service", server.createContext("/health", new HealthHandler()));
         
         server.setExecutor(Executors.newFixedThreadPool(10));
         server.start();
+        WarmUp.start("student", EnrollmentWarmUp::new, readiness);
         
         System.out.println("Student Service started on port " + PORT);
         System.out.println("Available endpoints:");
         System.out.println("  POST /students/{studentId}/enrollments - enroll in course");
+        System.out.println("  GET /students/{studentId}/enrollments - enrolled courses, seat counts and waitlist positions");
         System.out.println("  DELETE /students/{studentId}/enrollments/{courseId} - drop course");
-        System.out.println("  GET /health - health check");
+        System.out.println("  POST /students/{studentId}/enrollments/swap - swap one course for another atomically");
+        System.out.println("  GET /courses/search?q=...&open=true&studentId=...&noConflict=true - search the catalog");
+        System.out.println("  GET /courses/seats/stream?courses=CS201,BUS101 - seat availability (Server-Sent Events)");
+        System.out.println("  GET /students/{studentId}/eligible, /students/{studentId}/path/{courseId} - advising");
+        System.out.println("  POST /students/{studentId}/holds, POST .../holds/{holdId}/confirm, DELETE .../holds/{holdId} - seat holds");
+        System.out.println("  POST /students/{studentId}/schedules - conflict-free schedules for a wish list");
+        System.out.println("  GET /courses/{courseId}/eligible-students, /courses/{courseId}/unlocks - advising");
+        System.out.println("  GET|POST /courses/{courseId}/prerequisites, DELETE .../prerequisites/{prerequisiteId} - edit prerequisites");
+        System.out.println("  GET /students/{studentId}/registration-window, GET|POST /registration/windows[/stagger] - appointments");
+        System.out.println("  GET /health, /health/live, /health/ready - health, liveness and readiness");
     }
     
     public void stop() {
         if (server != null) {
+            seatStream.shutdown();
+            seatHolds.shutdown();
+            registrationWindows.shutdown();
             server.stop(0);
             System.out.println("Student Service stopped");
         }
@@ -96,7 +176,19 @@ public class StudentHttpService {
             String path = exchange.getRequestURI().getPath();
             
             try {
-                if ("POST".equals(method)) {
+                if ("GET".equals(method) && path.endsWith("/registration-window")) {
+                    handleRegistrationWindow(exchange, path);
+                } else if ("GET".equals(method) && path.endsWith("/enrollments")) {
+                    handleEnrollmentList(exchange, path);
+                } else if ("GET".equals(method)) {
+                    handleAdvising(exchange, path);
+                } else if (path.matches("/students/[^/]+/holds(/.*)?")) {
+                    handleHold(exchange, method, path);
+                } else if ("POST".equals(method) && path.endsWith("/enrollments/swap")) {
+                    handleSwap(exchange, path);
+                } else if ("POST".equals(method) && path.endsWith("/schedules")) {
+                    handleScheduleSearch(exchange, path);
+                } else if ("POST".equals(method)) {
                     handleEnrollment(exchange, path);
                 } else if ("DELETE".equals(method)) {
                     handleDropping(exchange, path);
@@ -109,6 +201,202 @@ public class StudentHttpService {
             }
         }
         
+        private void handleAdvising(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /students/{studentId}/eligible or /students/{studentId}/path/{courseId}
+            String[] parts = path.split("/");
+            if (parts.length < 4) {
+                sendResponse(exchange, 400, "Invalid path format. Expected: /students/{studentId}/eligible or /students/{studentId}/path/{courseId}");
+                return;
+            }
+            Student student = students.get(parts[2]);
+            if (student == null) {
+                sendResponse(exchange, 404, "Student not found: " + parts[2]);
+                return;
+            }
+            if ("eligible".equals(parts[3])) {
+                boolean nextTerm = "true".equals(queryParams(exchange).get("nextTerm"));
+                sendResponse(exchange, 200, "{\"studentId\":\"" + student.getId() + "\",\"nextTerm\":" + nextTerm
+                    + ",\"courses\":" + jsonArray(prerequisites.eligibleCourses(student, nextTerm)) + "}");
+            } else if ("path".equals(parts[3]) && parts.length >= 5) {
+                if (!courses.containsKey(parts[4])) {
+                    sendResponse(exchange, 404, "Course not found: " + parts[4]);
+                    return;
+                }
+                StringBuilder terms = new StringBuilder("[");
+                for (List<String> term : prerequisites.pathTo(parts[4], student)) {
+                    if (terms.length() > 1) terms.append(",");
+                    terms.append(jsonArray(term));
+                }
+                terms.append("]");
+                sendResponse(exchange, 200, "{\"studentId\":\"" + student.getId() + "\",\"target\":\"" + parts[4]
+                    + "\",\"terms\":" + terms + "}");
+            } else {
+                sendResponse(exchange, 404, "Not found: " + path);
+            }
+        }
+        
+        private void handleEnrollmentList(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /students/{studentId}/enrollments
+            String[] parts = path.split("/");
+            Student student = parts.length == 4 ? students.get(parts[2]) : null;
+            if (student == null) {
+                sendResponse(exchange, 404, "Student not found: " + (parts.length > 2 ? parts[2] : path));
+                return;
+            }
+            StringBuilder json = new StringBuilder("{\"studentId\":\"").append(student.getId()).append("\",\"enrollments\":[");
+            int n = 0;
+            for (Enrollment e : student.getEnrollments()) {
+                Course c = e.getCourse();
+                if (n++ > 0) json.append(",");
+                json.append("{\"courseId\":\"").append(c.getCode())
+                    .append("\",\"name\":\"").append(c.getName())
+                    .append("\",\"schedule\":\"").append(c.getSchedule())
+                    .append("\",\"credits\":").append(c.getCredits())
+                    .append(",\"enrolled\":").append(c.getRoster().size())
+                    .append(",\"held\":").append(c.getHeld())
+                    .append(",\"capacity\":").append(c.getCapacity())
+                    .append(",\"waitlist\":").append(c.getWaitlist().size()).append("}");
+            }
+            json.append("],\"waitlisted\":[");
+            n = 0;
+            for (Course c : courses.values()) {
+                int position = 1;
+                for (String id : c.getWaitlist()) {
+                    if (id.equals(student.getId())) {
+                        if (n++ > 0) json.append(",");
+                        json.append("{\"courseId\":\"").append(c.getCode()).append("\",\"position\":").append(position).append("}");
+                        break;
+                    }
+                    position++;
+                }
+            }
+            sendResponse(exchange, 200, json.append("]}").toString());
+        }
+        
+        private void handleRegistrationWindow(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /students/{studentId}/registration-window
+            String[] parts = path.split("/");
+            Student student = parts.length == 4 ? students.get(parts[2]) : null;
+            if (student == null) {
+                sendResponse(exchange, 404, "Student not found: " + (parts.length > 2 ? parts[2] : path));
+                return;
+            }
+            RegistrationWindows.Cohort cohort = registrationWindows.cohortOf(student.getId());
+            String window = cohort == null ? "null" : cohortJson(cohort);
+            sendResponse(exchange, 200, "{\"studentId\":\"" + student.getId() + "\",\"open\":"
+                + (cohort == null || cohort.isOpen()) + ",\"window\":" + window + "}");
+        }
+        
+        private void handleScheduleSearch(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /students/{studentId}/schedules
+            String[] parts = path.split("/");
+            Student student = parts.length == 4 ? students.get(parts[2]) : null;
+            if (student == null) {
+                sendResponse(exchange, 404, "Student not found: " + (parts.length > 2 ? parts[2] : path));
+                return;
+            }
+            String body = readRequestBody(exchange);
+            List<List<String>> requirements = JsonFields.stringGroups(body, "requirements");
+            if (requirements == null || requirements.isEmpty()) {
+                sendResponse(exchange, 400, "Expected JSON: {\"requirements\":[[\"CS201\",\"CS202\"],\"BUS101\"],\"limit\":5,\"budgetMillis\":50}");
+                return;
+            }
+            Integer limit = JsonFields.integer(body, "limit");
+            Integer budget = JsonFields.integer(body, "budgetMillis");
+            ScheduleBuilder.Result result;
+            try {
+                result = scheduleBuilder.build(student, requirements,
+                    limit == null ? ScheduleBuilder.DEFAULT_RESULTS : limit,
+                    budget == null ? ScheduleBuilder.DEFAULT_BUDGET_MILLIS : Math.min(budget, 1000));
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, "{\"success\":false,\"message\":\"" + e.getMessage() + "\"}");
+                return;
+            }
+            
+            StringBuilder json = new StringBuilder("{\"studentId\":\"").append(student.getId())
+                .append("\",\"complete\":").append(result.complete)
+                .append(",\"explored\":").append(result.explored)
+                .append(",\"schedules\":[");
+            for (int i = 0; i < result.schedules.size(); i++) {
+                ScheduleBuilder.Schedule sched = result.schedules.get(i);
+                if (i > 0) json.append(",");
+                json.append("{\"satisfied\":").append(sched.satisfied)
+                    .append(",\"credits\":").append(sched.credits)
+                    .append(",\"courses\":[");
+                for (int j = 0; j < sched.courses.size(); j++) {
+                    Course c = sched.courses.get(j);
+                    if (j > 0) json.append(",");
+                    json.append("{\"code\":\"").append(c.getCode())
+                        .append("\",\"schedule\":\"").append(c.getSchedule()).append("\"}");
+                }
+                json.append("]}");
+            }
+            json.append("],\"unavailable\":{");
+            int n = 0;
+            for (Map.Entry<String, String> en : result.unavailable.entrySet()) {
+                if (n++ > 0) json.append(",");
+                json.append("\"").append(en.getKey()).append("\":\"").append(en.getValue()).append("\"");
+            }
+            json.append("}}");
+            sendResponse(exchange, 200, json.toString());
+        }
+        
+        private void handleHold(HttpExchange exchange, String method, String path) throws IOException {
+            // Parse path: /students/{studentId}/holds[/{holdId}[/confirm]]
+            String[] parts = path.split("/");
+            Student student = students.get(parts[2]);
+            if (student == null) {
+                sendResponse(exchange, 404, "Student not found: " + parts[2]);
+                return;
+            }
+            if ("POST".equals(method) && parts.length == 4) {
+                String body = readRequestBody(exchange);
+                String courseId = JsonFields.string(body, "courseId");
+                if (courseId == null) {
+                    sendResponse(exchange, 400, "Missing courseId in request body. Expected JSON: {\"courseId\":\"CS201\",\"ttlSeconds\":120}");
+                    return;
+                }
+                Course course = courses.get(courseId);
+                if (course == null) {
+                    sendResponse(exchange, 404, "Course not found: " + courseId);
+                    return;
+                }
+                if (!registrationOpen(exchange, student)) return;
+                Integer ttl = JsonFields.integer(body, "ttlSeconds");
+                SeatHoldManager.Hold hold = seatHolds.hold(student, course,
+                    ttl == null ? SeatHoldManager.DEFAULT_TTL_SECONDS : ttl);
+                if (hold == null) {
+                    sendResponse(exchange, 409, String.format("{\"success\":false,\"message\":\"Cannot hold a seat in %s for student %s\"}",
+                        courseId, student.getId()));
+                    return;
+                }
+                sendResponse(exchange, 200, String.format("{\"success\":true,\"holdId\":\"%s\",\"courseId\":\"%s\",\"expiresInMillis\":%d}",
+                    hold.id, courseId, Math.max(0, hold.expiresAtMillis - System.currentTimeMillis())));
+            } else if ("POST".equals(method) && parts.length == 6 && "confirm".equals(parts[5])) {
+                SeatHoldManager.Hold hold = seatHolds.find(student.getId(), parts[4]);
+                switch (seatHolds.confirm(student.getId(), parts[4])) {
+                    case CONFIRMED:
+                        sendResponse(exchange, 200, String.format("{\"success\":true,\"message\":\"Student %s enrolled in %s\"}",
+                            student.getId(), hold.course.getCode()));
+                        break;
+                    case REJECTED:
+                        sendResponse(exchange, 409, String.format("{\"success\":false,\"message\":\"Failed to enroll student %s in %s; the held seat was released\"}",
+                            student.getId(), hold.course.getCode()));
+                        break;
+                    default:
+                        sendResponse(exchange, 404, "Hold not found or expired: " + parts[4]);
+                }
+            } else if ("DELETE".equals(method) && parts.length == 5) {
+                if (seatHolds.release(student.getId(), parts[4])) {
+                    sendResponse(exchange, 200, "{\"success\":true,\"message\":\"Hold " + parts[4] + " released\"}");
+                } else {
+                    sendResponse(exchange, 404, "Hold not found or expired: " + parts[4]);
+                }
+            } else {
+                sendResponse(exchange, 405, "Method not allowed");
+            }
+        }
+        
         private void handleEnrollment(HttpExchange exchange, String path) throws IOException {
             // Parse path: /students/{studentId}/enrollments
             String[] parts = path.split("/");
@@ -121,7 +409,7 @@ public class StudentHttpService {
             
             // Read request body to get course ID
             String requestBody = readRequestBody(exchange);
-            String courseId = extractCourseId(requestBody);
+            String courseId = JsonFields.string(requestBody, "courseId");
             
             if (courseId == null) {
                 sendResponse(exchange, 400, "Missing courseId in request body. Expected JSON: {\"courseId\":\"CS201\"}");
@@ -141,7 +429,8 @@ public class StudentHttpService {
                 return;
             }
             
-            boolean success = enrollmentManager.enroll(student, course);
+            if (!registrationOpen(exchange, student)) return;
+            boolean success = seatHolds.enroll(student, course); // confirms the student's own hold, if any
             
             if (success) {
                 String response = String.format("{\"success\":true,\"message\":\"Student %s enrolled in %s\"}",
@@ -154,6 +443,45 @@ public class StudentHttpService {
             }
         }
         
+        private void handleSwap(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /students/{studentId}/enrollments/swap
+            String[] parts = path.split("/");
+            String studentId = parts[2];
+            String requestBody = readRequestBody(exchange);
+            String fromId = JsonFields.string(requestBody, "from");
+            String toId = JsonFields.string(requestBody, "to");
+            
+            if (fromId == null || toId == null || fromId.equals(toId)) {
+                sendResponse(exchange, 400, "Expected two different courses. Expected JSON: {\"from\":\"CS201\",\"to\":\"CS202\"}");
+                return;
+            }
+            
+            Student student = students.get(studentId);
+            if (student == null) {
+                sendResponse(exchange, 404, "Student not found: " + studentId);
+                return;
+            }
+            Course from = courses.get(fromId);
+            Course to = courses.get(toId);
+            if (from == null || to == null) {
+                sendResponse(exchange, 404, "Course not found: " + (from == null ? fromId : toId));
+                return;
+            }
+            
+            if (!registrationOpen(exchange, student)) return;
+            boolean success = seatHolds.swap(student, from, to);
+            
+            if (success) {
+                String response = String.format("{\"success\":true,\"message\":\"Student %s swapped %s for %s\"}",
+                    studentId, fromId, toId);
+                sendResponse(exchange, 200, response);
+            } else {
+                String response = String.format("{\"success\":false,\"message\":\"Failed to swap student %s from %s to %s; enrollments unchanged\"}",
+                    studentId, fromId, toId);
+                sendResponse(exchange, 409, response);
+            }
+        }
+        
         private void handleDropping(HttpExchange exchange, String path) throws IOException {
             // Parse path: /students/{studentId}/enrollments/{courseId}
             String[] parts = path.split("/");
@@ -190,33 +518,296 @@ public class StudentHttpService {
                 sendResponse(exchange, 409, response);
             }
         }
+    }
+    
+    class CourseHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            if (path.contains("/prerequisites")) {
+                handlePrerequisites(exchange, path);
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendResponse(exchange, 405, "Method not allowed");
+                return;
+            }
+            if ("/courses/search".equals(path)) {
+                handleSearch(exchange);
+            } else if ("/courses/seats/stream".equals(path)) {
+                handleSeatStream(exchange);
+            } else if (path.endsWith("/eligible-students") || path.endsWith("/unlocks")) {
+                handlePrerequisiteQuery(exchange, path);
+            } else {
+                sendResponse(exchange, 404, "Not found: " + path);
+            }
+        }
         
-        private String extractCourseId(String requestBody) {
-            // Simple JSON parsing for courseId
-            if (requestBody != null && requestBody.contains("courseId")) {
-                String[] parts = requestBody.split("\"courseId\":");
-                if (parts.length > 1) {
-                    String value = parts[1].trim();
-                    if (value.startsWith("\"")) {
-                        int endIndex = value.indexOf("\"", 1);
-                        if (endIndex > 0) {
-                            return value.substring(1, endIndex);
-                        }
+        private void handlePrerequisites(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /courses/{courseId}/prerequisites[/{prerequisiteId}]
+            String method = exchange.getRequestMethod();
+            String[] parts = path.split("/");
+            if (parts.length < 4 || parts.length > 5 || !"prerequisites".equals(parts[3])) {
+                sendResponse(exchange, 404, "Not found: " + path);
+                return;
+            }
+            Course course = courses.get(parts[2]);
+            if (course == null) {
+                sendResponse(exchange, 404, "Course not found: " + parts[2]);
+                return;
+            }
+            if ("POST".equals(method) && parts.length == 4) {
+                String prerequisite = JsonFields.string(readRequestBody(exchange), "courseId");
+                if (prerequisite == null || prerequisite.isEmpty()) {
+                    sendResponse(exchange, 400, "Missing courseId in request body. Expected JSON: {\"courseId\":\"CS101\"}");
+                    return;
+                }
+                try {
+                    prerequisites.addPrerequisite(course, prerequisite);
+                } catch (IllegalArgumentException e) {
+                    sendResponse(exchange, 409, String.format("{\"success\":false,\"message\":\"%s\"}", e.getMessage()));
+                    return;
+                }
+                searchIndex.add(course);
+            } else if ("DELETE".equals(method) && parts.length == 5) {
+                if (!prerequisites.removePrerequisite(course, parts[4])) {
+                    sendResponse(exchange, 404, "Course " + course.getCode() + " does not require " + parts[4]);
+                    return;
+                }
+                searchIndex.add(course);
+            } else if (!"GET".equals(method) || parts.length != 4) {
+                sendResponse(exchange, 405, "Method not allowed");
+                return;
+            }
+            sendResponse(exchange, 200, "{\"courseId\":\"" + course.getCode() + "\""
+                + ",\"prerequisites\":" + jsonArray(new TreeSet<>(course.getPrerequisites()))
+                + ",\"allPrerequisites\":" + jsonArray(prerequisites.allPrerequisites(course.getCode())) + "}");
+        }
+        
+        private void handlePrerequisiteQuery(HttpExchange exchange, String path) throws IOException {
+            // Parse path: /courses/{courseId}/eligible-students or /courses/{courseId}/unlocks
+            String[] parts = path.split("/");
+            Course course = parts.length == 4 ? courses.get(parts[2]) : null;
+            if (course == null) {
+                sendResponse(exchange, 404, "Course not found: " + (parts.length > 2 ? parts[2] : path));
+                return;
+            }
+            StringBuilder json = new StringBuilder("{\"courseId\":\"").append(course.getCode()).append("\",");
+            if ("eligible-students".equals(parts[3])) {
+                json.append("\"students\":").append(jsonArray(prerequisites.eligibleStudents(course.getCode(), students.values())));
+            } else {
+                json.append("\"unlocks\":{");
+                int n = 0;
+                for (Map.Entry<String, List<String>> en : prerequisites.unlockedBy(course).entrySet()) {
+                    if (n++ > 0) json.append(",");
+                    json.append("\"").append(en.getKey()).append("\":").append(jsonArray(en.getValue()));
+                }
+                json.append("}");
+            }
+            sendResponse(exchange, 200, json.append("}").toString());
+        }
+        
+        private void handleSeatStream(HttpExchange exchange) throws IOException {
+            String list = queryParams(exchange).get("courses");
+            if (list == null || list.isBlank()) {
+                sendResponse(exchange, 400, "Missing courses parameter. Expected: /courses/seats/stream?courses=CS201,BUS101");
+                return;
+            }
+            Set<String> codes = new LinkedHashSet<>();
+            for (String code : list.split(",")) {
+                code = code.trim();
+                if (code.isEmpty()) continue;
+                if (!courses.containsKey(code)) {
+                    sendResponse(exchange, 404, "Course not found: " + code);
+                    return;
+                }
+                codes.add(code);
+            }
+            // the exchange stays open after this handler returns; the stream owns it now
+            seatStream.subscribe(exchange, codes, exchange.getRequestHeaders().getFirst("Last-Event-ID"));
+        }
+        
+        private void handleSearch(HttpExchange exchange) throws IOException {
+            Map<String, String> params = queryParams(exchange);
+            CourseSearchIndex.Query query = new CourseSearchIndex.Query()
+                .text(params.get("q"))
+                .slot(params.get("slot"))
+                .department(params.get("department"))
+                .prerequisite(params.get("prerequisite"))
+                .openOnly("true".equals(params.get("open")))
+                .noConflict("true".equals(params.get("noConflict")))
+                .prerequisitesSatisfied("true".equals(params.get("prerequisitesSatisfied")));
+            String studentId = params.get("studentId");
+            if (studentId != null) {
+                Student student = students.get(studentId);
+                if (student == null) {
+                    sendResponse(exchange, 404, "Student not found: " + studentId);
+                    return;
+                }
+                query.student(student);
+            } else if (query.noConflict || query.prerequisitesSatisfied) {
+                sendResponse(exchange, 400, "noConflict and prerequisitesSatisfied require studentId");
+                return;
+            }
+            try {
+                if (params.containsKey("limit")) query.limit(Math.max(0, Integer.parseInt(params.get("limit"))));
+            } catch (NumberFormatException e) {
+                sendResponse(exchange, 400, "Invalid limit: " + params.get("limit"));
+                return;
+            }
+            
+            long start = System.nanoTime();
+            CourseSearchIndex.Result result = searchIndex.search(query);
+            long micros = (System.nanoTime() - start) / 1000;
+            
+            StringBuilder json = new StringBuilder(128 + result.courses.size() * 128);
+            json.append("{\"total\":").append(result.total)
+                .append(",\"tookMicros\":").append(micros)
+                .append(",\"courses\":[");
+            for (int i = 0; i < result.courses.size(); i++) {
+                Course c = result.courses.get(i);
+                if (i > 0) json.append(",");
+                json.append("{\"code\":\"").append(c.getCode())
+                    .append("\",\"name\":\"").append(c.getName())
+                    .append("\",\"department\":\"").append(c.getDepartment())
+                    .append("\",\"schedule\":\"").append(c.getSchedule())
+                    .append("\",\"credits\":").append(c.getCredits())
+                    .append(",\"enrolled\":").append(c.getRoster().size())
+                    .append(",\"capacity\":").append(c.getCapacity())
+                    .append(",\"prerequisites\":[");
+                int p = 0;
+                for (String pre : c.getPrerequisites()) {
+                    if (p++ > 0) json.append(",");
+                    json.append("\"").append(pre).append("\"");
+                }
+                json.append("]}");
+            }
+            json.append("]}");
+            sendResponse(exchange, 200, json.toString());
+        }
+    }
+    
+    class RegistrationHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            try {
+                if ("GET".equals(method) && "/registration/windows".equals(path)) {
+                    StringBuilder json = new StringBuilder("{\"cohorts\":[");
+                    int n = 0;
+                    for (RegistrationWindows.Cohort c : registrationWindows.cohorts()) {
+                        if (n++ > 0) json.append(",");
+                        json.append(cohortJson(c));
                     }
+                    sendResponse(exchange, 200, json.append("]}").toString());
+                } else if ("POST".equals(method) && "/registration/windows".equals(path)) {
+                    handleAssign(exchange);
+                } else if ("POST".equals(method) && "/registration/windows/stagger".equals(path)) {
+                    handleStagger(exchange);
+                } else if ("GET".equals(method) || "POST".equals(method)) {
+                    sendResponse(exchange, 404, "Not found: " + path);
+                } else {
+                    sendResponse(exchange, 405, "Method not allowed");
+                }
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, "{\"success\":false,\"message\":\"" + e.getMessage() + "\"}");
+            } catch (Exception e) {
+                e.printStackTrace();
+                sendResponse(exchange, 500, "Internal server error: " + e.getMessage());
+            }
+        }
+        
+        private void handleAssign(HttpExchange exchange) throws IOException {
+            String body = readRequestBody(exchange);
+            String name = JsonFields.string(body, "cohort");
+            List<String> ids = JsonFields.stringArray(body, "students");
+            Long opensAt = opensAt(body);
+            if (name == null || ids == null || opensAt == null) {
+                sendResponse(exchange, 400, "Expected JSON: {\"cohort\":\"seniors\",\"students\":[\"S001\"],\"opensAt\":\"2026-11-02T08:00:00Z\"} (or \"opensInSeconds\":60)");
+                return;
+            }
+            if (!knownStudents(exchange, ids)) return;
+            sendResponse(exchange, 200, cohortJson(registrationWindows.assign(name, ids, opensAt)));
+        }
+        
+        private void handleStagger(HttpExchange exchange) throws IOException {
+            String body = readRequestBody(exchange);
+            String prefix = JsonFields.string(body, "prefix");
+            List<String> ids = JsonFields.stringArray(body, "students");
+            Integer perWindow = JsonFields.integer(body, "perWindow");
+            Integer interval = JsonFields.integer(body, "intervalSeconds");
+            Long opensAt = opensAt(body);
+            if (prefix == null || ids == null || perWindow == null || interval == null || opensAt == null) {
+                sendResponse(exchange, 400, "Expected JSON: {\"prefix\":\"fall\",\"students\":[\"S001\",\"S002\"],\"perWindow\":500,\"opensInSeconds\":60,\"intervalSeconds\":300}");
+                return;
+            }
+            if (!knownStudents(exchange, ids)) return;
+            StringBuilder json = new StringBuilder("{\"cohorts\":[");
+            int n = 0;
+            for (RegistrationWindows.Cohort c : registrationWindows.stagger(prefix, ids, perWindow, opensAt, interval * 1000L)) {
+                if (n++ > 0) json.append(",");
+                json.append(cohortJson(c));
+            }
+            sendResponse(exchange, 200, json.append("]}").toString());
+        }
+        
+        // "opensAt" (ISO-8601 instant) or "opensInSeconds" from now; null if neither is given
+        private Long opensAt(String body) {
+            String at = JsonFields.string(body, "opensAt");
+            if (at != null) {
+                try {
+                    return Instant.parse(at).toEpochMilli();
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid opensAt: " + at);
                 }
             }
-            return null;
+            Integer in = JsonFields.integer(body, "opensInSeconds");
+            return in == null ? null : System.currentTimeMillis() + in * 1000L;
+        }
+        
+        private boolean knownStudents(HttpExchange exchange, List<String> ids) throws IOException {
+            for (String id : ids) {
+                if (!students.containsKey(id)) {
+                    sendResponse(exchange, 404, "Student not found: " + id);
+                    return false;
+                }
+            }
+            return true;
         }
     }
     
     class HealthHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String response = "{\"status\":\"healthy\",\"service\":\"student\",\"port\":" + PORT + "}";
-            sendResponse(exchange, 200, response);
+            String path = exchange.getRequestURI().getPath();
+            if ("/health/ready".equals(path)) {
+                sendResponse(exchange, readiness.isReady() ? 200 : 503, readiness.json("student", PORT));
+            } else if ("/health/live".equals(path)) {
+                sendResponse(exchange, 200, "{\"status\":\"UP\",\"service\":\"student\",\"port\":" + PORT + "}");
+            } else {
+                String response = "{\"status\":\"healthy\",\"service\":\"student\",\"port\":" + PORT + ",\"ready\":" + readiness.isReady() + "}";
+                sendResponse(exchange, 200, response);
+            }
         }
     }
     
+    // Turns the request away (403 + Retry-After) while the student's registration window is still closed
+    private boolean registrationOpen(HttpExchange exchange, Student student) throws IOException {
+        RegistrationWindows.Cohort cohort = registrationWindows.cohortOf(student.getId());
+        if (cohort == null || cohort.isOpen()) return true;
+        long waitSeconds = Math.max(1, (cohort.getOpensAtMillis() - System.currentTimeMillis() + 999) / 1000);
+        exchange.getResponseHeaders().set("Retry-After", Long.toString(waitSeconds));
+        sendResponse(exchange, 403, String.format("{\"success\":false,\"message\":\"Registration for student %s opens at %s\",\"window\":%s}",
+            student.getId(), Instant.ofEpochMilli(cohort.getOpensAtMillis()), cohortJson(cohort)));
+        return false;
+    }
+    
+    private static String cohortJson(RegistrationWindows.Cohort c) {
+        return String.format("{\"cohort\":\"%s\",\"opensAt\":\"%s\",\"open\":%b,\"students\":%d}",
+            c.name, Instant.ofEpochMilli(c.getOpensAtMillis()), c.isOpen(), c.getSize());
+    }
+    
     private String readRequestBody(HttpExchange exchange) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody()))) {
             StringBuilder body = new StringBuilder();
@@ -228,6 +819,28 @@ public class StudentHttpService {
         }
     }
     
+    private static String jsonArray(Collection<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        for (String v : values) {
+            if (json.length() > 1) json.append(",");
+            json.append("\"").append(v).append("\"");
+        }
+        return json.append("]").toString();
+    }
+    
+    private Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                       URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+    
     private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
         exchange.getResponseHeaders().set("Content-Type", "application/json");
         exchange.sendResponseHeaders(statusCode, response.length());
@@ -5,6 +5,7 @@ import common.models.Course;
 
 public class CapacityValidator implements EnrollmentValidator {
     private String lastReason = "";
+    // swaps use the default releasing overload: giving up a seat elsewhere never frees one here
     public boolean validate(Student s, Course c){
         if(c.isFull()){
             lastReason = "Course is full";
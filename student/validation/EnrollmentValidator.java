@@ -5,5 +5,7 @@ import common.models.Course;
 
 public interface EnrollmentValidator {
     boolean validate(Student s, Course c);
+    // swap: the student's seat and time slot in releasing count as already given up
+    default boolean validate(Student s, Course c, Course releasing){ return validate(s, c); }
     String reason();
 }
@@ -7,7 +7,7 @@ public class PrerequisiteValidator implements EnrollmentValidator {
     private String lastReason = "";
     public boolean validate(Student s, Course c){
         for(String p : c.getPrerequisites()){
-            if(!s.getCompletedCourses().contains(p)){
+            if(!s.hasCompleted(p)){
                 lastReason = "Missing prerequisite: " + p;
                 return false;
             }
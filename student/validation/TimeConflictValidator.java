@@ -5,9 +5,11 @@ import common.models.Course;
 
 public class TimeConflictValidator implements EnrollmentValidator {
     private String lastReason = "";
-    public boolean validate(Student s, Course c){
+    public boolean validate(Student s, Course c){ return validate(s, c, null); }
+    public boolean validate(Student s, Course c, Course releasing){
         // simplified: conflict if any enrolled course has same schedule string
         for(var e : s.getEnrollments()){
+            if(e.getCourse() == releasing) continue;
             if(e.getCourse().getSchedule().equals(c.getSchedule())){
                 lastReason = "Time conflict with " + e.getCourse().getCode();
                 return false;